@@ -1,6 +1,7 @@
 plugins {
     id("java")
     id("application")
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "club.lemos"
@@ -26,16 +27,32 @@ dependencies {
     
     testImplementation(platform("org.junit:junit-bom:5.10.0"))
     testImplementation("org.junit.jupiter:junit-jupiter")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
 }
 
 application {
     mainClass.set("club.lemos.App")
 }
 
+// 源码注释包含中文，编译时不依赖系统默认编码
+tasks.withType<JavaCompile> {
+    options.encoding = "UTF-8"
+}
+
 tasks.test {
     useJUnitPlatform()
 }
 
+// 性能基准测试：./gradlew jmh，可用 -PjmhIncludes=Srt 只运行名称匹配的基准
+// 结果以JSON格式写入 build/reports/jmh/，文件名带版本号，便于不同版本之间比较
+jmh {
+    jmhVersion.set("1.37")
+    profilers.add("gc")
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file("reports/jmh/results-${project.version}.json"))
+    findProperty("jmhIncludes")?.let { includes.add(it.toString()) }
+}
+
 // 确保资源文件包含在JAR中
 tasks.jar {
     from(configurations.runtimeClasspath.get().map { if (it.isDirectory) it else zipTree(it) })
@@ -0,0 +1,49 @@
+package club.lemos.y7converter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 配置读取基准测试
+ * 配置在处理过程中被频繁读取，每次读取都按点号分隔的路径逐级查找
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ConfigBenchmark {
+
+    private ConfigLoader config;
+
+    @Setup
+    public void setUp() {
+        config = ConfigLoader.getInstance();
+    }
+
+    @Benchmark
+    public Object getConfigShallow() {
+        return config.getConfig("application.debug_mode", false);
+    }
+
+    @Benchmark
+    public Object getConfigDeep() {
+        return config.getConfig("speech_recognition.local_http.public_base_url", "");
+    }
+
+    @Benchmark
+    public Object getConfigMissing() {
+        return config.getConfig("translation.dashscope.not_configured", 10);
+    }
+}
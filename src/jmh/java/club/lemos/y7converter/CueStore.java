@@ -0,0 +1,142 @@
+package club.lemos.y7converter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 按列存储的字幕集合
+ * 序号、起止时间分别存放在基本类型数组中，文本以UTF-8编码连续存放在共享的字节数组里，按偏移量访问。
+ * 与每条字幕一个 {@link SubtitleBlock} 相比，整份字幕只占用少量大数组，几小时、多语言的字幕也不会产生数百万个小对象。
+ * 文本在读取时才解码。非线程安全。
+ * 目前只是基准测试中的原型，用于评估大字幕按列存储的收益；处理流程中的字幕仍逐条流式读写，不整份驻留内存。
+ */
+final class CueStore {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private int size;
+    private int[] numbers;
+    private long[] startMs;
+    private long[] endMs;
+    // 第 i 条字幕的文本位于 textArena[textOffsets[i], textOffsets[i] + textLengths[i])
+    private int[] textOffsets;
+    private int[] textLengths;
+    private byte[] textArena;
+    private int arenaLength;
+
+    CueStore() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * @param expectedCues 预计的字幕条数
+     */
+    CueStore(int expectedCues) {
+        int capacity = Math.max(1, expectedCues);
+        numbers = new int[capacity];
+        startMs = new long[capacity];
+        endMs = new long[capacity];
+        textOffsets = new int[capacity];
+        textLengths = new int[capacity];
+        textArena = new byte[capacity * 32];
+    }
+
+    /**
+     * 追加一条字幕
+     */
+    void add(int number, long start, long end, String text) {
+        if (size == numbers.length) {
+            int capacity = size + (size >> 1) + 1;
+            numbers = Arrays.copyOf(numbers, capacity);
+            startMs = Arrays.copyOf(startMs, capacity);
+            endMs = Arrays.copyOf(endMs, capacity);
+            textOffsets = Arrays.copyOf(textOffsets, capacity);
+            textLengths = Arrays.copyOf(textLengths, capacity);
+        }
+        numbers[size] = number;
+        startMs[size] = start;
+        endMs[size] = end;
+        storeText(size, text);
+        size++;
+    }
+
+    /**
+     * 追加一条字幕
+     */
+    void add(SubtitleBlock block) {
+        add(block.number, block.startMs, block.endMs, block.text);
+    }
+
+    int size() {
+        return size;
+    }
+
+    int getNumber(int index) {
+        checkIndex(index);
+        return numbers[index];
+    }
+
+    long getStartMs(int index) {
+        checkIndex(index);
+        return startMs[index];
+    }
+
+    long getEndMs(int index) {
+        checkIndex(index);
+        return endMs[index];
+    }
+
+    /**
+     * 解码第 index 条字幕的文本
+     */
+    String getText(int index) {
+        checkIndex(index);
+        return new String(textArena, textOffsets[index], textLengths[index], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 时间轴整体平移，平移后早于0的时间按0处理
+     *
+     * @param offsetMs 平移的毫秒数
+     */
+    void shift(long offsetMs) {
+        for (int i = 0; i < size; i++) {
+            startMs[i] = Math.max(0, startMs[i] + offsetMs);
+            endMs[i] = Math.max(0, endMs[i] + offsetMs);
+        }
+    }
+
+    /**
+     * 按顺序写出全部字幕
+     *
+     * @param writer     SRT写入器
+     * @param renumber   是否按写入器已写条数重新编号（合并多份字幕时使用）
+     */
+    void writeTo(SrtWriter writer, boolean renumber) throws IOException {
+        for (int i = 0; i < size; i++) {
+            writer.write(renumber ? writer.getCount() + 1 : numbers[i], startMs[i], endMs[i], getText(i));
+        }
+    }
+
+    private void storeText(int index, String text) {
+        byte[] bytes = (text != null ? text : "").getBytes(StandardCharsets.UTF_8);
+        if (arenaLength + bytes.length > textArena.length) {
+            long capacity = Math.max((long) textArena.length * 2, (long) arenaLength + bytes.length);
+            if (capacity > Integer.MAX_VALUE - 8) {
+                throw new IllegalStateException("字幕文本超过 " + (Integer.MAX_VALUE - 8) + " 字节");
+            }
+            textArena = Arrays.copyOf(textArena, (int) capacity);
+        }
+        System.arraycopy(bytes, 0, textArena, arenaLength, bytes.length);
+        textOffsets[index] = arenaLength;
+        textLengths[index] = bytes.length;
+        arenaLength += bytes.length;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("字幕序号越界: " + index + "，共 " + size + " 条");
+        }
+    }
+}
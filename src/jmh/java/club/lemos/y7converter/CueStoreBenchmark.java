@@ -0,0 +1,100 @@
+package club.lemos.y7converter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按列存储与逐条对象存储的对比
+ * 分别以 {@link CueStore} 和 {@link SubtitleBlock} 列表完成解析、时间轴平移与写出，
+ * 配合 -prof gc 比较分配量；常驻内存的对比见 {@link CueStoreHeapBenchmark}。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CueStoreBenchmark {
+
+    @Param({"100000", "1000000"})
+    int cues;
+
+    private String srt;
+    private List<SubtitleBlock> blocks;
+    private CueStore store;
+
+    @Setup
+    public void setUp() throws IOException {
+        List<SubtitleBlock> corpus = SubtitleCorpus.blocks(cues);
+        srt = SubtitleCorpus.srt(corpus);
+        blocks = parseBlocks();
+        store = parseCueStore();
+    }
+
+    @Benchmark
+    public List<SubtitleBlock> parseBlocks() throws IOException {
+        List<SubtitleBlock> parsed = new ArrayList<>();
+        try (SrtReader reader = new SrtReader(new StringReader(srt))) {
+            reader.forEachRemaining(parsed::add);
+        }
+        return parsed;
+    }
+
+    @Benchmark
+    public CueStore parseCueStore() throws IOException {
+        try (SrtReader reader = new SrtReader(new StringReader(srt))) {
+            CueStore parsed = new CueStore();
+            while (reader.hasNext()) {
+                parsed.add(reader.next());
+            }
+            return parsed;
+        }
+    }
+
+    @Benchmark
+    public List<SubtitleBlock> shiftBlocks() {
+        for (SubtitleBlock block : blocks) {
+            block.startMs += 1;
+            block.endMs += 1;
+        }
+        return blocks;
+    }
+
+    @Benchmark
+    public CueStore shiftCueStore() {
+        store.shift(1);
+        return store;
+    }
+
+    @Benchmark
+    public int writeBlocks() throws IOException {
+        try (SrtWriter writer = new SrtWriter(Writer.nullWriter())) {
+            writer.writeAll(blocks);
+            return writer.getCount();
+        }
+    }
+
+    @Benchmark
+    public int writeCueStore() throws IOException {
+        try (SrtWriter writer = new SrtWriter(Writer.nullWriter())) {
+            store.writeTo(writer, false);
+            return writer.getCount();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package club.lemos.y7converter;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 常驻内存对比
+ * 分别以 {@link SubtitleBlock} 列表和 {@link CueStore} 保存同一份字幕，
+ * 前后各做一次完整GC，以堆占用的差值作为常驻内存，结果见 retainedBytes 计数。
+ * 每个fork只测量一次，需要更稳定的结果时增加fork次数。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(value = 3, jvmArgsAppend = {"-Xmx4g", "-XX:+UseSerialGC"})
+public class CueStoreHeapBenchmark {
+
+    @Param({"100000", "1000000"})
+    int cues;
+
+    private List<SubtitleBlock> corpus;
+    // 保持测量对象可达，直到测量结束
+    private Object retained;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Heap {
+        public long retainedBytes;
+    }
+
+    @Setup
+    public void setUp() {
+        corpus = SubtitleCorpus.blocks(cues);
+    }
+
+    @Benchmark
+    public void blockList(Heap heap) {
+        retained = null;
+        long before = usedHeapAfterGc();
+        List<SubtitleBlock> blocks = new ArrayList<>(corpus.size());
+        for (SubtitleBlock block : corpus) {
+            // 复制文本，与逐条解析得到的对象结构一致
+            blocks.add(new SubtitleBlock(block.number, block.startMs, block.endMs, new String(block.text.toCharArray())));
+        }
+        retained = blocks;
+        heap.retainedBytes = usedHeapAfterGc() - before;
+    }
+
+    @Benchmark
+    public void cueStore(Heap heap) {
+        retained = null;
+        long before = usedHeapAfterGc();
+        CueStore store = new CueStore(corpus.size());
+        for (SubtitleBlock block : corpus) {
+            store.add(block);
+        }
+        retained = store;
+        heap.retainedBytes = usedHeapAfterGc() - before;
+    }
+
+    private static long usedHeapAfterGc() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        memory.gc();
+        memory.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,88 @@
+package club.lemos.y7converter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SRT文件读取对比
+ * 逐行读取的 {@link SrtReader} 与内存映射的 {@link MappedSrtReader} 读取同一个文件，
+ * mappedTimingOnly 只读取序号与时间轴、不解码文本，对应只需要时间信息的场景。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class MappedSrtBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    int cues;
+
+    private File srtFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        srtFile = File.createTempFile("benchmark_", ".srt");
+        Files.write(srtFile.toPath(), SubtitleCorpus.srt(SubtitleCorpus.blocks(cues)).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        srtFile.delete();
+    }
+
+    @Benchmark
+    public int srtReader(Blackhole blackhole) throws IOException {
+        int count = 0;
+        try (SrtReader reader = new SrtReader(srtFile)) {
+            while (reader.hasNext()) {
+                blackhole.consume(reader.next());
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int mapped(Blackhole blackhole) throws IOException {
+        int count = 0;
+        try (MappedSrtReader reader = new MappedSrtReader(srtFile)) {
+            while (reader.hasNext()) {
+                blackhole.consume(reader.next().toBlock());
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public long mappedTimingOnly() throws IOException {
+        long total = 0;
+        try (MappedSrtReader reader = new MappedSrtReader(srtFile)) {
+            while (reader.hasNext()) {
+                MappedSrtReader.Cue cue = reader.next();
+                total += cue.endMs - cue.startMs;
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,65 @@
+package club.lemos.y7converter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.Writer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SRT字幕读写基准测试
+ * 读取整份字幕文本并逐条解析，或将整份字幕写出（输出丢弃，只测量格式化开销）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class SrtBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    int cues;
+
+    private List<SubtitleBlock> blocks;
+    private String srt;
+
+    @Setup
+    public void setUp() {
+        blocks = SubtitleCorpus.blocks(cues);
+        srt = SubtitleCorpus.srt(blocks);
+    }
+
+    @Benchmark
+    public int read(Blackhole blackhole) throws IOException {
+        int count = 0;
+        try (SrtReader reader = new SrtReader(new StringReader(srt))) {
+            while (reader.hasNext()) {
+                blackhole.consume(reader.next());
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int write() throws IOException {
+        try (SrtWriter writer = new SrtWriter(Writer.nullWriter())) {
+            writer.writeAll(blocks);
+            return writer.getCount();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package club.lemos.y7converter;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 基准测试用的合成字幕语料
+ * 内容按固定种子生成，不同版本的测量结果可以直接比较
+ */
+final class SubtitleCorpus {
+
+    private static final long SEED = 20240501L;
+
+    private static final String[] WORDS = {
+            "the", "subtitle", "converter", "はい", "そうですね", "今日は", "天气", "不错", "我们", "出发吧",
+            "really", "great", "ありがとう", "すみません", "没问题", "一起", "video", "audio", "まだ", "走吧"
+    };
+
+    private SubtitleCorpus() {
+    }
+
+    /**
+     * 生成指定条数的字幕块，时间轴依次递增，约五分之一的字幕为两行
+     */
+    static List<SubtitleBlock> blocks(int count) {
+        Random random = new Random(SEED);
+        List<SubtitleBlock> blocks = new ArrayList<>(count);
+        long startMs = 0;
+        for (int i = 1; i <= count; i++) {
+            startMs += 500 + random.nextInt(2500);
+            long endMs = startMs + 800 + random.nextInt(3000);
+            String text = sentence(random);
+            if (random.nextInt(5) == 0) {
+                text += "\n" + sentence(random);
+            }
+            blocks.add(new SubtitleBlock(i, startMs, endMs, text));
+        }
+        return blocks;
+    }
+
+    /**
+     * 将字幕块写成SRT文本
+     */
+    static String srt(List<SubtitleBlock> blocks) {
+        StringWriter output = new StringWriter();
+        try (SrtWriter writer = new SrtWriter(output)) {
+            writer.writeAll(blocks);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return output.toString();
+    }
+
+    /**
+     * 生成与识别服务结构相同的转写结果JSON（含词级结果）
+     */
+    static JsonObject transcriptionJson(int sentenceCount) {
+        Random random = new Random(SEED);
+        JsonArray sentences = new JsonArray();
+        long beginTime = 0;
+        for (int i = 0; i < sentenceCount; i++) {
+            beginTime += 500 + random.nextInt(2500);
+            long endTime = beginTime + 800 + random.nextInt(3000);
+            String text = sentence(random);
+
+            JsonArray words = new JsonArray();
+            String[] wordTexts = text.split(" ");
+            long wordDuration = (endTime - beginTime) / wordTexts.length;
+            for (int w = 0; w < wordTexts.length; w++) {
+                JsonObject word = new JsonObject();
+                word.addProperty("begin_time", beginTime + w * wordDuration);
+                word.addProperty("end_time", beginTime + (w + 1) * wordDuration);
+                word.addProperty("text", wordTexts[w]);
+                word.addProperty("punctuation", w == wordTexts.length - 1 ? "." : "");
+                words.add(word);
+            }
+
+            JsonObject sentence = new JsonObject();
+            sentence.addProperty("begin_time", beginTime);
+            sentence.addProperty("end_time", endTime);
+            sentence.addProperty("text", text);
+            sentence.addProperty("sentence_id", i + 1);
+            sentence.add("words", words);
+            sentences.add(sentence);
+        }
+
+        JsonObject transcript = new JsonObject();
+        transcript.addProperty("channel_id", 0);
+        transcript.add("sentences", sentences);
+        JsonArray transcripts = new JsonArray();
+        transcripts.add(transcript);
+
+        JsonObject json = new JsonObject();
+        json.addProperty("file_url", "https://example.com/audio.aac");
+        json.add("transcripts", transcripts);
+        return json;
+    }
+
+    /**
+     * 生成一批字幕对应的翻译API返回内容（"[序号] 译文" 每行一条）
+     */
+    static String translatedContent(List<SubtitleBlock> batch) {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < batch.size(); i++) {
+            if (i > 0) {
+                content.append('\n');
+            }
+            content.append('[').append(i + 1).append("] ").append(batch.get(i).text.replace('\n', ' ').toUpperCase());
+        }
+        return content.toString();
+    }
+
+    private static String sentence(Random random) {
+        int wordCount = 3 + random.nextInt(10);
+        StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < wordCount; i++) {
+            if (i > 0) {
+                sentence.append(' ');
+            }
+            sentence.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sentence.toString();
+    }
+}
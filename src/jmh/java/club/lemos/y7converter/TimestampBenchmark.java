@@ -0,0 +1,104 @@
+package club.lemos.y7converter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 时间戳格式化与解析基准测试
+ * 每次调用处理一组覆盖0到10小时的时间戳，结果按单个时间戳计算。
+ * legacy 开头的基准保留改用 {@link SrtTime} 之前的实现（String.format 与字符串拆分），用于对比。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TimestampBenchmark {
+
+    private static final int TIMESTAMP_COUNT = 1024;
+
+    private final long[] timestamps = new long[TIMESTAMP_COUNT];
+    private final String[] timestampLines = new String[TIMESTAMP_COUNT];
+    private final char[] buffer = new char[SrtTime.MAX_RANGE_LENGTH];
+    private final SubtitleBlock block = new SubtitleBlock();
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(20240501L);
+        for (int i = 0; i < TIMESTAMP_COUNT; i++) {
+            timestamps[i] = (long) (random.nextDouble() * 10 * 3600_000);
+            timestampLines[i] = SrtTime.formatRange(timestamps[i], timestamps[i] + random.nextInt(5000));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TIMESTAMP_COUNT)
+    public void format(Blackhole blackhole) {
+        for (long timestamp : timestamps) {
+            blackhole.consume(SrtTime.format(timestamp));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TIMESTAMP_COUNT)
+    public void formatRangeIntoBuffer(Blackhole blackhole) {
+        for (long timestamp : timestamps) {
+            blackhole.consume(SrtTime.formatRange(timestamp, timestamp + 1500, buffer));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TIMESTAMP_COUNT)
+    public void legacyFormat(Blackhole blackhole) {
+        for (long timestamp : timestamps) {
+            blackhole.consume(legacyFormatTimestamp(timestamp));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TIMESTAMP_COUNT)
+    public void parseRange(Blackhole blackhole) {
+        for (String line : timestampLines) {
+            blackhole.consume(SrtTime.parseRange(line, block));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TIMESTAMP_COUNT)
+    public void legacyParseRange(Blackhole blackhole) {
+        for (String line : timestampLines) {
+            String[] range = line.split("-->");
+            blackhole.consume(legacyParseTimestamp(range[0]));
+            blackhole.consume(legacyParseTimestamp(range[1]));
+        }
+    }
+
+    private static String legacyFormatTimestamp(long milliseconds) {
+        long hours = milliseconds / 3600000;
+        long minutes = (milliseconds % 3600000) / 60000;
+        long seconds = (milliseconds % 60000) / 1000;
+        long millis = milliseconds % 1000;
+
+        return String.format("%02d:%02d:%02d,%03d", hours, minutes, seconds, millis);
+    }
+
+    private static long legacyParseTimestamp(String timestamp) {
+        String[] parts = timestamp.trim().split("[:,.]");
+        return Long.parseLong(parts[0]) * 3600000 + Long.parseLong(parts[1]) * 60000 +
+                Long.parseLong(parts[2]) * 1000 + Long.parseLong(parts[3]);
+    }
+}
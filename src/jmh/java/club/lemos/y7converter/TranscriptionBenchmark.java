@@ -0,0 +1,74 @@
+package club.lemos.y7converter;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 识别结果转换基准测试
+ * 将含词级结果的转写JSON转换为字幕并写出（输出丢弃）。
+ * legacyTree 保留改为按流解析之前的实现（先构建完整的JSON树再遍历），用于对比。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class TranscriptionBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    int sentences;
+
+    private String transcription;
+
+    @Setup
+    public void setUp() {
+        transcription = SubtitleCorpus.transcriptionJson(sentences).toString();
+    }
+
+    @Benchmark
+    public int streaming() throws IOException {
+        try (SrtWriter writer = new SrtWriter(Writer.nullWriter())) {
+            SpeechRecognitionService.parseTranscription(new StringReader(transcription), writer);
+            return writer.getCount();
+        }
+    }
+
+    @Benchmark
+    public int legacyTree() throws IOException {
+        try (SrtWriter writer = new SrtWriter(Writer.nullWriter())) {
+            JsonObject transcriptionJson = JsonParser.parseString(transcription).getAsJsonObject();
+            for (JsonElement transcriptElement : transcriptionJson.getAsJsonArray("transcripts")) {
+                JsonArray sentenceArray = transcriptElement.getAsJsonObject().getAsJsonArray("sentences");
+                for (JsonElement sentenceElement : sentenceArray) {
+                    JsonObject sentence = sentenceElement.getAsJsonObject();
+                    String text = sentence.has("text") ? sentence.get("text").getAsString().trim() : "";
+                    long beginTime = sentence.has("begin_time") ? sentence.get("begin_time").getAsLong() : 0;
+                    long endTime = sentence.has("end_time") ? sentence.get("end_time").getAsLong() : beginTime + 5000;
+                    if (!text.isEmpty()) {
+                        writer.write(writer.getCount() + 1, beginTime, endTime, text);
+                    }
+                }
+            }
+            return writer.getCount();
+        }
+    }
+}
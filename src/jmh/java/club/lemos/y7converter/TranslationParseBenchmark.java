@@ -0,0 +1,57 @@
+package club.lemos.y7converter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 翻译结果解析基准测试
+ * 整份字幕按翻译批次大小分批，逐批解析翻译API返回的内容
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class TranslationParseBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    int cues;
+
+    @Param({"10"})
+    int batchSize;
+
+    private final List<List<SubtitleBlock>> batches = new ArrayList<>();
+    private final List<String> contents = new ArrayList<>();
+
+    @Setup
+    public void setUp() {
+        List<SubtitleBlock> blocks = SubtitleCorpus.blocks(cues);
+        for (int start = 0; start < blocks.size(); start += batchSize) {
+            List<SubtitleBlock> batch = blocks.subList(start, Math.min(blocks.size(), start + batchSize));
+            batches.add(batch);
+            contents.add(SubtitleCorpus.translatedContent(batch));
+        }
+    }
+
+    @Benchmark
+    public void parseTranslatedContent(Blackhole blackhole) {
+        for (int i = 0; i < batches.size(); i++) {
+            blackhole.consume(SubtitleTranslationService.parseTranslatedContent(batches.get(i), contents.get(i)));
+        }
+    }
+}
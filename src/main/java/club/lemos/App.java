@@ -3,8 +3,11 @@ package club.lemos;
 import club.lemos.y7converter.CommandActions;
 import club.lemos.y7converter.CommandExecutor;
 import club.lemos.y7converter.CommandResult;
+import club.lemos.y7converter.ConfigLoader;
 import club.lemos.y7converter.FFmpegUtil;
 import club.lemos.y7converter.FileNameUtils;
+import club.lemos.y7converter.JobScheduler;
+import club.lemos.y7converter.JobServer;
 import com.formdev.flatlaf.themes.FlatMacLightLaf;
 import net.miginfocom.swing.MigLayout;
 import org.apache.commons.io.FileUtils;
@@ -31,16 +34,26 @@ public class App {
     private final JButton fileSelectorBtn = new JButton("选择文件");
     private final JButton generateSubtitleBtn = new JButton("生成字幕");
     private final JButton translateSubtitleBtn = new JButton("翻译字幕");
+    private final JButton generateAndTranslateBtn = new JButton("生成并翻译");
     private final JButton cancelBtn = new JButton("取消");
     private final JButton downloadBtn = new JButton("保存字幕");
     private final JButton nextOneBtn = new JButton("下一个");
     private final JButton retryBtn = new JButton("重试");
+    private final JButton stopBtn = new JButton("取消处理");
+    private final JLabel handlingLabel = new JLabel("正在处理~");
 
     // 数据属性
     private File selectedFile;
     private File destFile;
     private Integer commandAction;
     private CommandResult commandResult;
+    private SwingWorker<?, Void> currentWorker;
+    // 执行单个文件命令的线程，取消时只结束该命令启动的进程
+    private volatile Thread commandThread;
+    // 批量处理：选择了多个文件或文件夹时使用
+    private List<File> selectedFiles;
+    private JobScheduler batchScheduler;
+    private String batchSummary;
 
     // 界面面板
     private JPanel fileSelectPanel;
@@ -57,6 +70,9 @@ public class App {
         setupEventListeners();
         setupFrame();
         setupShutdownHook();
+        // 在后台准备FFmpeg，第一个任务无需等待安装或探测
+        FFmpegUtil.prewarm();
+        startJobServer();
     }
 
     /**
@@ -102,14 +118,16 @@ public class App {
 
         actionsPanel = new JPanel(new MigLayout("al center center"));
         actionsPanel.add(generateSubtitleBtn, "al center, wrap");
+        actionsPanel.add(generateAndTranslateBtn, "al center, wrap");
         actionsPanel.add(translateSubtitleBtn, "al center, wrap");
         cancelBtn.setForeground(Color.GRAY);
         actionsPanel.add(cancelBtn, "al center");
 
         handlingPanel = new JPanel(new MigLayout("al center center"));
-        JLabel handlingLabel = new JLabel("正在处理~");
         handlingLabel.setFont(handlingLabel.getFont().deriveFont(Font.PLAIN, 12f));
         handlingPanel.add(handlingLabel, "al center, wrap");
+        stopBtn.setForeground(Color.GRAY);
+        handlingPanel.add(stopBtn, "al center");
 
         errorPanel = new JPanel(new MigLayout("al center center"));
         JLabel errorLabel = new JLabel("出错了~");
@@ -129,34 +147,53 @@ public class App {
     private void setupEventListeners() {
         fileSelectorBtn.addActionListener(e -> {
             FileDialog fileDialog = new FileDialog(frame, "选择文件", FileDialog.LOAD);
+            // 可同时选择多个文件进行批量处理
+            fileDialog.setMultipleMode(true);
             fileDialog.setVisible(true);
 
-            String directory = fileDialog.getDirectory();
-            String file = fileDialog.getFile();
-
-            if (file != null) {
-                File selectedFileFromDialog = new File(directory, file);
-                handleFileSelection(selectedFileFromDialog);
+            File[] files = fileDialog.getFiles();
+            if (files != null && files.length > 0) {
+                handleFilesSelection(List.of(files));
             }
         });
 
         ActionListener commandActionListener = e -> {
+            if (selectedFiles != null) {
+                startBatch();
+                return;
+            }
             try {
                 panel.remove(actionsPanel);
+                stopBtn.setEnabled(true);
                 panel.add(handlingPanel);
                 panel.revalidate();
                 panel.repaint();
 
+                handlingLabel.setText("正在处理~");
                 SwingWorker<CommandResult, Void> worker = new SwingWorker<>() {
                     @Override
                     protected CommandResult doInBackground() throws Exception {
                         String suffix = getOutputFileSuffix(commandAction, selectedFile);
                         File tmpDestFile = Files.createTempFile("processed", suffix).toFile();
-                        return CommandExecutor.execute(commandAction, selectedFile, tmpDestFile);
+                        commandThread = Thread.currentThread();
+                        // 进度在处理线程中回调，切换到界面线程更新提示
+                        return CommandExecutor.execute(commandAction, selectedFile, tmpDestFile,
+                                progress -> SwingUtilities.invokeLater(() -> {
+                                    if (currentWorker == this) {
+                                        handlingLabel.setText(progress.getDescription());
+                                    }
+                                }));
                     }
 
                     @Override
                     protected void done() {
+                        currentWorker = null;
+                        commandThread = null;
+                        if (isCancelled()) {
+                            // 用户已取消，直接回到文件选择
+                            returnToFileSelection();
+                            return;
+                        }
                         try {
                             commandResult = get();
                             destFile = commandResult.getResultFile();
@@ -175,6 +212,7 @@ public class App {
                     }
                 };
 
+                currentWorker = worker;
                 worker.execute();
             } catch (Exception ex) {
                 throw new RuntimeException(ex);
@@ -191,6 +229,11 @@ public class App {
             commandActionListener.actionPerformed(e);
         });
 
+        generateAndTranslateBtn.addActionListener(e -> {
+            commandAction = CommandActions.GENERATE_AND_TRANSLATE;
+            commandActionListener.actionPerformed(e);
+        });
+
         downloadBtn.addActionListener(e -> {
             FileDialog fileDialog = new FileDialog(frame, "保存字幕文件", FileDialog.SAVE);
 
@@ -209,9 +252,18 @@ public class App {
                     FileUtils.copyFile(destFile, saveFile);
                     destFile = saveFile;
 
+                    // 生成并翻译时译文字幕一并保存到同一目录
+                    String savedMessage = "字幕文件保存成功！";
+                    if (commandResult != null && commandResult.getAction() == CommandActions.GENERATE_AND_TRANSLATE) {
+                        File translatedFile = CommandExecutor.getDefaultTranslatedFile(saveFile);
+                        FileUtils.copyFile(CommandExecutor.getDefaultTranslatedFile(commandResult.getResultFile()),
+                                translatedFile);
+                        savedMessage = "字幕文件保存成功！\n翻译文件: " + translatedFile.getName();
+                    }
+
                     // 显示导出成功对话框
                     JOptionPane.showMessageDialog(frame,
-                            "字幕文件保存成功！",
+                            savedMessage,
                             "保存成功",
                             JOptionPane.PLAIN_MESSAGE);
                 } catch (IOException ex) {
@@ -220,6 +272,23 @@ public class App {
             }
         });
 
+        stopBtn.addActionListener(e -> {
+            SwingWorker<?, Void> worker = currentWorker;
+            if (worker != null) {
+                stopBtn.setEnabled(false);
+                JobScheduler scheduler = batchScheduler;
+                if (scheduler != null) {
+                    scheduler.cancelAll();
+                }
+                // 中断后台任务，并结束该任务正在运行的 FFmpeg 进程；任务接口提交的任务不受影响
+                worker.cancel(true);
+                Thread thread = commandThread;
+                if (thread != null) {
+                    CommandExecutor.cancelRunningProcesses(thread);
+                }
+            }
+        });
+
         nextOneBtn.addActionListener(e -> returnToFileSelection());
         cancelBtn.addActionListener(e -> returnToFileSelection());
         retryBtn.addActionListener(e -> returnToFileSelection());
@@ -232,6 +301,18 @@ public class App {
     private void createDonePanelWithExport() {
         donePanel.removeAll();
 
+        if (batchSummary != null) {
+            // 批量处理的字幕已保存到输出目录，只显示汇总
+            JLabel summaryLabel = new JLabel("批量处理完成，" + batchSummary);
+            summaryLabel.setFont(summaryLabel.getFont().deriveFont(Font.PLAIN, 13f));
+            summaryLabel.setForeground(Color.GRAY);
+            donePanel.add(summaryLabel, "span, align center, wrap 20");
+            donePanel.add(nextOneBtn, "align center");
+            donePanel.revalidate();
+            donePanel.repaint();
+            return;
+        }
+
         if (commandResult != null) {
             String timeInfo = String.format("%s完成，耗时：%s",
                     commandResult.getActionDescription(),
@@ -254,6 +335,12 @@ public class App {
      */
     private void returnToFileSelection() {
         selectedFile = null;
+        selectedFiles = null;
+        batchSummary = null;
+        if (batchScheduler != null) {
+            batchScheduler.shutdown();
+            batchScheduler = null;
+        }
         destFile = null;
         commandResult = null;
         Component currentComponent = getCurrentDisplayedComponent();
@@ -265,12 +352,98 @@ public class App {
         panel.repaint();
     }
     
+    /**
+     * 处理多个文件或文件夹的选择事件
+     * 只选择了一个文件时按单个文件处理，否则进入批量处理
+     *
+     * @param files 用户选择的文件或文件夹
+     */
+    private void handleFilesSelection(List<File> files) {
+        if (files.size() == 1 && files.get(0).isFile()) {
+            handleFileSelection(files.get(0));
+            return;
+        }
+        handleFileSelection(null);
+        selectedFiles = List.copyOf(files);
+        updateActionPanel();
+    }
+
+    /**
+     * 开始批量处理选择的文件与文件夹
+     * 字幕保存到配置的输出目录（默认与源文件相同目录）
+     */
+    private void startBatch() {
+        panel.remove(actionsPanel);
+        stopBtn.setEnabled(true);
+        handlingLabel.setText("正在准备批量处理~");
+        panel.add(handlingPanel);
+        panel.revalidate();
+        panel.repaint();
+
+        int action = commandAction;
+        List<File> files = selectedFiles;
+        JobScheduler scheduler = new JobScheduler(job -> SwingUtilities.invokeLater(() -> updateBatchProgress(job)));
+        batchScheduler = scheduler;
+
+        SwingWorker<String, Void> worker = new SwingWorker<>() {
+            @Override
+            protected String doInBackground() throws Exception {
+                if (scheduler.submitAll(action, files).isEmpty()) {
+                    throw new IllegalArgumentException("所选文件夹中没有可处理的文件");
+                }
+                scheduler.awaitAll();
+                System.out.println(scheduler.getReport());
+                return scheduler.getSummary();
+            }
+
+            @Override
+            protected void done() {
+                currentWorker = null;
+                if (isCancelled()) {
+                    returnToFileSelection();
+                    return;
+                }
+                panel.remove(handlingPanel);
+                try {
+                    batchSummary = get();
+                    createDonePanelWithExport();
+                    panel.add(donePanel);
+                } catch (Exception ex) {
+                    ex.printStackTrace();
+                    panel.add(errorPanel);
+                }
+                panel.revalidate();
+                panel.repaint();
+            }
+        };
+
+        currentWorker = worker;
+        worker.execute();
+    }
+
+    /**
+     * 更新批量处理的进度提示
+     */
+    private void updateBatchProgress(JobScheduler.Job job) {
+        JobScheduler scheduler = batchScheduler;
+        if (scheduler == null || scheduler.getJob(job.getId()) != job) {
+            return;
+        }
+        List<JobScheduler.Job> jobs = scheduler.getJobs();
+        long finished = jobs.stream().filter(j -> j.getStatus().isFinished()).count();
+        String current = job.getStatus() == JobScheduler.JobStatus.RUNNING && job.getProgress() != null
+                ? job.getSourceFile().getName() + " " + job.getProgress().getDescription()
+                : job.getSourceFile().getName() + " " + job.getStatus().getDescription();
+        handlingLabel.setText(String.format("批量处理 %d/%d：%s", finished, jobs.size(), current));
+    }
+
     /**
      * 处理文件选择事件
      *
      * @param file 用户选择的文件
      */
     private void handleFileSelection(File file) {
+        selectedFiles = null;
         selectedFile = file;
 
         // 根据文件类型显示不同的操作选项
@@ -292,7 +465,16 @@ public class App {
         // 清空现有组件
         actionsPanel.removeAll();
 
-        if (selectedFile != null) {
+        if (selectedFiles != null) {
+            // 批量处理：显示所有选项，文件夹中只处理适用于所选操作的文件
+            JLabel countLabel = new JLabel("已选择 " + selectedFiles.size() + " 项");
+            countLabel.setFont(countLabel.getFont().deriveFont(Font.PLAIN, 12f));
+            actionsPanel.add(countLabel, "al center, wrap");
+            actionsPanel.add(generateSubtitleBtn, "al center, wrap");
+            actionsPanel.add(generateAndTranslateBtn, "al center, wrap");
+            actionsPanel.add(translateSubtitleBtn, "al center, wrap");
+            fileSelectorBtn.setText("选择文件");
+        } else if (selectedFile != null) {
             if (FileNameUtils.isSubtitleFile(selectedFile)) {
                 // 字幕文件：只显示翻译选项
                 actionsPanel.add(translateSubtitleBtn, "al center, wrap");
@@ -300,16 +482,19 @@ public class App {
             } else if (FileNameUtils.isVideoFile(selectedFile) || FileNameUtils.isAudioFile(selectedFile)) {
                 // 视频/音频文件：显示生成字幕选项
                 actionsPanel.add(generateSubtitleBtn, "al center, wrap");
+                actionsPanel.add(generateAndTranslateBtn, "al center, wrap");
                 fileSelectorBtn.setText("选择视频文件");
             } else {
                 // 未知文件类型：显示所有选项
                 actionsPanel.add(generateSubtitleBtn, "al center, wrap");
+                actionsPanel.add(generateAndTranslateBtn, "al center, wrap");
                 actionsPanel.add(translateSubtitleBtn, "al center, wrap");
                 fileSelectorBtn.setText("选择文件");
             }
         } else {
             // 默认显示所有选项
             actionsPanel.add(generateSubtitleBtn, "al center, wrap");
+            actionsPanel.add(generateAndTranslateBtn, "al center, wrap");
             actionsPanel.add(translateSubtitleBtn, "al center, wrap");
             fileSelectorBtn.setText("选择文件");
         }
@@ -344,7 +529,7 @@ public class App {
     private String getOutputFileSuffix(int action, File sourceFile) {
         return switch (action) {
             case CommandActions.EXTRACT_AUDIO -> "_extracted.aac"; // 音频提取后缀
-            case CommandActions.GENERATE_SUBTITLE -> "_subtitle.srt"; // 字幕文件后缀
+            case CommandActions.GENERATE_SUBTITLE, CommandActions.GENERATE_AND_TRANSLATE -> "_subtitle.srt"; // 字幕文件后缀
             case CommandActions.TRANSLATE_SUBTITLE -> "_translated.srt"; // 翻译后字幕文件后缀
             default -> ".out";
         };
@@ -369,6 +554,23 @@ public class App {
         return FileNameUtils.generateSubtitleFileName(selectedFile);
     }
 
+    /**
+     * 配置启用时启动任务HTTP接口，其他程序可在界面运行期间提交任务
+     */
+    private void startJobServer() {
+        if (!ConfigLoader.getInstance().isJobServerEnabled()) {
+            return;
+        }
+        JobScheduler scheduler = new JobScheduler(null);
+        try {
+            new JobServer(scheduler).start();
+            Runtime.getRuntime().addShutdownHook(new Thread(scheduler::cancelAll));
+        } catch (IOException e) {
+            scheduler.shutdown();
+            System.err.println("警告: 任务HTTP接口启动失败: " + e.getMessage());
+        }
+    }
+
     /**
      * 设置关闭钩子来清理FFmpeg临时文件
      */
@@ -439,11 +641,10 @@ public class App {
                 List<File> files = (List<File>) transferable.getTransferData(DataFlavor.javaFileListFlavor);
 
                 if (!files.isEmpty()) {
-                    File droppedFile = files.get(0);
-                    if (droppedFile.isFile()) {
-                        SwingUtilities.invokeLater(() -> handleFileSelection(droppedFile));
-                        return true;
-                    }
+                    // 可拖入多个文件或文件夹进行批量处理
+                    List<File> droppedFiles = List.copyOf(files);
+                    SwingUtilities.invokeLater(() -> handleFilesSelection(droppedFiles));
+                    return true;
                 }
             } catch (Exception e) {
                 e.printStackTrace();
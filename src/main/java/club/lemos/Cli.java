@@ -0,0 +1,340 @@
+package club.lemos;
+
+import club.lemos.y7converter.CommandActions;
+import club.lemos.y7converter.ConfigLoader;
+import club.lemos.y7converter.FFmpegUtil;
+import club.lemos.y7converter.JobScheduler;
+import club.lemos.y7converter.JobServer;
+import com.google.gson.Gson;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 命令行入口
+ * 不依赖图形界面，可在服务器上批量处理文件、持续监视文件夹、从标准输入读取任务列表或通过HTTP接收任务。
+ * 每个任务结束时向标准输出写入一行JSON统计，程序日志改写到错误输出。
+ *
+ * <pre>
+ * java -cp y7converter.jar club.lemos.Cli [选项] &lt;文件或文件夹&gt;...
+ * </pre>
+ */
+public class Cli {
+
+    // 退出码
+    static final int EXIT_OK = 0;
+    static final int EXIT_JOB_FAILED = 1;
+    static final int EXIT_USAGE = 2;
+    static final int EXIT_NO_INPUT = 3;
+
+    private static final Gson GSON = new Gson();
+
+    private static final String USAGE = String.join("\n",
+            "用法: java -cp y7converter.jar club.lemos.Cli [选项] <文件或文件夹>...",
+            "",
+            "选项:",
+            "  -a, --action <操作>                 操作类型：generate 生成字幕（默认），translate 翻译字幕，",
+            "                                      generate_translate 生成字幕并同时翻译",
+            "  -w, --workers <数量>                同时处理的文件数量（默认读取 batch.workers）",
+            "  -o, --output-dir <目录>             输出目录（默认读取 batch.output_dir，留空则与源文件相同目录）",
+            "      --overwrite                     已有输出文件时重新处理（默认跳过）",
+            "      --stdin                         从标准输入逐行读取文件路径（空行与 # 开头的行忽略）",
+            "      --watch <目录>                  持续监视文件夹，处理新出现的文件（可指定多次，按 Ctrl+C 结束）",
+            "      --interval <秒>                 监视文件夹的扫描间隔（默认 5 秒）",
+            "      --serve                         启动任务HTTP接口，接收其他程序提交的任务（按 Ctrl+C 结束）",
+            "      --port <端口>                   任务HTTP接口的端口（默认读取 job_server.port）",
+            "  -h, --help                          显示帮助",
+            "",
+            "每个任务结束时向标准输出写入一行JSON统计，日志写入错误输出。",
+            "退出码: 0 全部成功或跳过，1 有任务失败或取消，2 参数错误，3 没有可处理的文件");
+
+    private final PrintStream statsOut;
+    private final Object statsLock = new Object();
+
+    private Cli(PrintStream statsOut) {
+        this.statsOut = statsOut;
+    }
+
+    /**
+     * 命令行入口
+     *
+     * @param args 命令行参数
+     */
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        // 标准输出只写入JSON统计，处理过程中的日志改写到错误输出
+        PrintStream statsOut = new PrintStream(System.out, true, StandardCharsets.UTF_8);
+        System.setOut(System.err);
+        System.exit(new Cli(statsOut).run(args));
+    }
+
+    private int run(String[] args) {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println("错误: " + e.getMessage());
+            System.err.println();
+            System.err.println(USAGE);
+            return EXIT_USAGE;
+        }
+        if (options.help) {
+            System.err.println(USAGE);
+            return EXIT_OK;
+        }
+
+        ConfigLoader config = ConfigLoader.getInstance();
+        int workers = options.workers > 0 ? options.workers : config.getBatchWorkers();
+        File outputDir = options.outputDir;
+        if (outputDir == null && !config.getBatchOutputDir().trim().isEmpty()) {
+            outputDir = new File(config.getBatchOutputDir().trim());
+        }
+
+        FFmpegUtil.prewarm();
+        JobScheduler scheduler = new JobScheduler(workers, outputDir, !options.overwrite, this::onJobUpdate);
+
+        // Ctrl+C 时取消未完成的任务，结束 FFmpeg 进程并删除不完整的输出
+        Thread shutdownHook = new Thread(() -> {
+            scheduler.cancelAll();
+            FFmpegUtil.cleanup();
+        }, "cli-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+
+        try {
+            int submitted = scheduler.submitAll(options.action, options.inputs).size();
+            if (options.readStdin) {
+                submitted += submitFromStdin(scheduler, options.action);
+            }
+            if (options.serve) {
+                new JobServer(scheduler).start(config.getJobServerBindAddress(),
+                        options.port >= 0 ? options.port : config.getJobServerPort());
+            }
+            if (!options.watchDirs.isEmpty()) {
+                // 监视模式持续运行，直到进程被结束
+                watch(scheduler, options);
+            } else if (options.serve) {
+                new CountDownLatch(1).await();
+            }
+            if (submitted == 0) {
+                System.err.println("没有可处理的文件");
+                return EXIT_NO_INPUT;
+            }
+
+            scheduler.awaitAll();
+            System.err.println(scheduler.getReport());
+            return scheduler.getJobs().stream().allMatch(job -> job.getStatus() == JobScheduler.JobStatus.SUCCEEDED
+                    || job.getStatus() == JobScheduler.JobStatus.SKIPPED) ? EXIT_OK : EXIT_JOB_FAILED;
+        } catch (IOException e) {
+            System.err.println("错误: 任务HTTP接口启动失败: " + e.getMessage());
+            return EXIT_USAGE;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            scheduler.cancelAll();
+            return EXIT_JOB_FAILED;
+        } finally {
+            scheduler.shutdown();
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException e) {
+                // 正在退出
+            }
+        }
+    }
+
+    /**
+     * 从标准输入逐行读取文件路径，读取的同时开始处理
+     *
+     * @return 提交的任务数量
+     */
+    private static int submitFromStdin(JobScheduler scheduler, int action) {
+        int submitted = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                File file = new File(line);
+                if (!file.exists()) {
+                    System.err.println("警告: 文件不存在，已忽略: " + line);
+                    continue;
+                }
+                submitted += scheduler.submitAll(action, List.of(file)).size();
+            }
+        } catch (IOException e) {
+            System.err.println("警告: 读取标准输入失败: " + e.getMessage());
+        }
+        return submitted;
+    }
+
+    /**
+     * 定期扫描监视的文件夹，提交新出现的文件
+     * 文件大小与修改时间在两次扫描之间不变时才处理，避免处理仍在复制中的文件；
+     * 已处理的文件内容变化后重新处理，替换之前的输出（上一次处理尚未结束时等其结束后再处理）
+     */
+    private static void watch(JobScheduler scheduler, Options options) throws InterruptedException {
+        Map<String, String> pending = new HashMap<>();
+        Map<String, String> submitted = new HashMap<>();
+        Map<String, JobScheduler.Job> lastJobs = new HashMap<>();
+        int maxFinishedJobs = ConfigLoader.getInstance().getJobServerMaxFinishedJobs();
+        System.err.println("正在监视: " + options.watchDirs + "（扫描间隔 " + options.intervalSeconds + " 秒）");
+
+        while (!Thread.currentThread().isInterrupted()) {
+            Set<String> present = new HashSet<>();
+            for (File file : JobScheduler.collectFiles(options.action, options.watchDirs)) {
+                String path = file.getAbsolutePath();
+                String state = file.length() + ":" + file.lastModified();
+                present.add(path);
+                if (state.equals(submitted.get(path))) {
+                    continue;
+                }
+                if (state.equals(pending.get(path))) {
+                    JobScheduler.Job lastJob = lastJobs.get(path);
+                    if (lastJob != null && !lastJob.getStatus().isFinished()) {
+                        continue;
+                    }
+                    pending.remove(path);
+                    submitted.put(path, state);
+                    lastJobs.put(path, scheduler.submit(options.action, file, lastJob != null));
+                } else {
+                    pending.put(path, state);
+                }
+            }
+
+            // 已删除的文件不再记录，长时间运行时占用的内存不随处理过的文件增长
+            pending.keySet().retainAll(present);
+            submitted.keySet().retainAll(present);
+            lastJobs.keySet().retainAll(present);
+            scheduler.pruneFinished(maxFinishedJobs);
+
+            TimeUnit.SECONDS.sleep(options.intervalSeconds);
+        }
+    }
+
+    /**
+     * 任务结束时输出一行JSON统计
+     */
+    private void onJobUpdate(JobScheduler.Job job) {
+        if (!job.getStatus().isFinished()) {
+            return;
+        }
+
+        synchronized (statsLock) {
+            statsOut.println(GSON.toJson(job.toMap()));
+        }
+    }
+
+    /**
+     * 命令行参数
+     */
+    private static class Options {
+        int action = CommandActions.GENERATE_SUBTITLE;
+        int workers;
+        File outputDir;
+        boolean overwrite;
+        boolean readStdin;
+        boolean help;
+        boolean serve;
+        int port = -1;
+        long intervalSeconds = 5;
+        final List<File> inputs = new ArrayList<>();
+        final List<File> watchDirs = new ArrayList<>();
+
+        static Options parse(String[] args) {
+            Options options = new Options();
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                switch (arg) {
+                    case "-a":
+                    case "--action":
+                        String action = value(args, ++i, arg);
+                        options.action = JobScheduler.parseActionName(action);
+                        if (options.action < 0) {
+                            throw new IllegalArgumentException("不支持的操作类型: " + action);
+                        }
+                        break;
+                    case "-w":
+                    case "--workers":
+                        options.workers = positiveInt(value(args, ++i, arg), arg);
+                        break;
+                    case "-o":
+                    case "--output-dir":
+                        options.outputDir = new File(value(args, ++i, arg));
+                        break;
+                    case "--overwrite":
+                        options.overwrite = true;
+                        break;
+                    case "--stdin":
+                        options.readStdin = true;
+                        break;
+                    case "--watch":
+                        File watchDir = new File(value(args, ++i, arg));
+                        if (!watchDir.isDirectory()) {
+                            throw new IllegalArgumentException("监视的文件夹不存在: " + watchDir);
+                        }
+                        options.watchDirs.add(watchDir);
+                        break;
+                    case "--interval":
+                        options.intervalSeconds = positiveInt(value(args, ++i, arg), arg);
+                        break;
+                    case "--serve":
+                        options.serve = true;
+                        break;
+                    case "--port":
+                        options.port = positiveInt(value(args, ++i, arg), arg);
+                        break;
+                    case "-h":
+                    case "--help":
+                        options.help = true;
+                        break;
+                    default:
+                        if (arg.startsWith("-")) {
+                            throw new IllegalArgumentException("未知选项: " + arg);
+                        }
+                        File input = new File(arg);
+                        if (!input.exists()) {
+                            throw new IllegalArgumentException("文件不存在: " + arg);
+                        }
+                        options.inputs.add(input);
+                }
+            }
+            if (!options.help && options.inputs.isEmpty() && !options.readStdin && options.watchDirs.isEmpty()
+                    && !options.serve) {
+                throw new IllegalArgumentException("请指定要处理的文件或文件夹，或使用 --stdin、--watch、--serve");
+            }
+            return options;
+        }
+
+        private static String value(String[] args, int index, String option) {
+            if (index >= args.length) {
+                throw new IllegalArgumentException("选项 " + option + " 缺少参数");
+            }
+            return args[index];
+        }
+
+        private static int positiveInt(String value, String option) {
+            try {
+                int number = Integer.parseInt(value);
+                if (number > 0) {
+                    return number;
+                }
+            } catch (NumberFormatException e) {
+                // 统一在下方报错
+            }
+            throw new IllegalArgumentException("选项 " + option + " 需要正整数: " + value);
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package club.lemos.y7converter;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.annotations.SerializedName;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 音频探测工具类
+ * 使用 ffprobe 读取输入第一条音轨的编码、采样率和声道数，
+ * 判断音轨能否不经转码直接交给识别服务。
+ */
+class AudioProbe {
+
+    // ffprobe 只读取文件头，很快结束
+    private static final long PROBE_TIMEOUT_SECONDS = 30;
+
+    private static final Gson GSON = new Gson();
+
+    private final String formatName;
+    private final String codecName;
+    private final int sampleRate;
+    private final int channels;
+    private final long bitRate;
+    private final boolean hasVideo;
+
+    private AudioProbe(String formatName, String codecName, int sampleRate, int channels, long bitRate,
+                       boolean hasVideo) {
+        this.formatName = formatName;
+        this.codecName = codecName;
+        this.sampleRate = sampleRate;
+        this.channels = channels;
+        this.bitRate = bitRate;
+        this.hasVideo = hasVideo;
+    }
+
+    /**
+     * 探测源文件的音轨
+     *
+     * @param sourceFile 源视频或音频文件
+     * @return 探测结果；没有 ffprobe、探测失败或没有音轨时返回null（按需转码处理）
+     */
+    static AudioProbe probe(File sourceFile) {
+        try {
+            List<String> command = new ArrayList<>();
+            command.add(FFmpegUtil.getFFprobePath());
+            command.add("-v");
+            command.add("error");
+            command.add("-show_entries");
+            command.add("stream=codec_type,codec_name,sample_rate,channels,bit_rate,disposition:format=format_name,bit_rate");
+            command.add("-of");
+            command.add("json");
+            command.add(sourceFile.getAbsolutePath());
+
+            ProcessRunner.Result result = ProcessRunner.run(command, null, PROBE_TIMEOUT_SECONDS);
+            if (result.getExitCode() != 0) {
+                throw new IOException(result.getError().trim());
+            }
+            return parse(result.getOutput());
+        } catch (IOException | JsonParseException e) {
+            if (ConfigLoader.getInstance().isDebugMode()) {
+                System.out.println("音频探测失败，按需转码: " + e.getMessage());
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 解析 ffprobe 的 JSON 输出
+     *
+     * @param json ffprobe 输出
+     * @return 探测结果；没有音轨时返回null
+     */
+    static AudioProbe parse(String json) {
+        ProbeOutput output = GSON.fromJson(json, ProbeOutput.class);
+        if (output == null || output.streams == null) {
+            return null;
+        }
+
+        ProbeStream audio = null;
+        boolean hasVideo = false;
+        for (ProbeStream stream : output.streams) {
+            if ("audio".equals(stream.codecType) && audio == null) {
+                audio = stream;
+            } else if ("video".equals(stream.codecType)) {
+                // 音频文件中的封面图片不算视频
+                boolean attachedPicture = stream.disposition != null && stream.disposition.attachedPic == 1;
+                hasVideo |= !attachedPicture;
+            }
+        }
+        if (audio == null || audio.codecName == null) {
+            return null;
+        }
+
+        long bitRate = parseLong(audio.bitRate);
+        if (bitRate <= 0 && output.format != null) {
+            // 部分封装只在格式信息中给出整体码率
+            bitRate = parseLong(output.format.bitRate);
+        }
+        return new AudioProbe(output.format != null ? output.format.formatName : null, audio.codecName,
+                (int) parseLong(audio.sampleRate), audio.channels, bitRate, hasVideo);
+    }
+
+    /**
+     * 音轨能否直接交给识别服务（不转码）
+     * 编码在配置的列表中、声道数和码率不超过上限时可以直接使用；码率未知时按可用处理
+     */
+    boolean isRecognizerCompatible() {
+        ConfigLoader config = ConfigLoader.getInstance();
+        if (!config.getPassthroughCodecs().contains(codecName.toLowerCase(Locale.ROOT))) {
+            return false;
+        }
+        if (sampleRate < 8000 || channels < 1 || channels > config.getPassthroughMaxChannels()) {
+            return false;
+        }
+        return bitRate <= 0 || bitRate <= config.getPassthroughMaxBitRateKbps() * 1000L;
+    }
+
+    /**
+     * 获取复制音轨时使用的输出扩展名，编码不能单独封装时返回null
+     */
+    String getCopyExtension() {
+        switch (codecName.toLowerCase(Locale.ROOT)) {
+            case "aac":
+                return ".aac";
+            case "mp3":
+                return ".mp3";
+            case "flac":
+                return ".flac";
+            case "opus":
+            case "vorbis":
+                return ".ogg";
+            case "pcm_s16le":
+                return ".wav";
+            default:
+                return null;
+        }
+    }
+
+    String getFormatName() {
+        return formatName;
+    }
+
+    String getCodecName() {
+        return codecName;
+    }
+
+    int getSampleRate() {
+        return sampleRate;
+    }
+
+    int getChannels() {
+        return channels;
+    }
+
+    /**
+     * 获取码率（bit/s），未知时为0
+     */
+    long getBitRate() {
+        return bitRate;
+    }
+
+    /**
+     * 是否包含视频流（不含封面图片）
+     */
+    boolean hasVideo() {
+        return hasVideo;
+    }
+
+    @Override
+    public String toString() {
+        return codecName + ", " + sampleRate + " Hz, " + channels + " 声道" +
+                (bitRate > 0 ? ", " + bitRate / 1000 + " kb/s" : "");
+    }
+
+    private static long parseLong(String value) {
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * ffprobe 输出结构
+     */
+    private static class ProbeOutput {
+        List<ProbeStream> streams;
+        ProbeFormat format;
+    }
+
+    private static class ProbeStream {
+        @SerializedName("codec_type")
+        String codecType;
+        @SerializedName("codec_name")
+        String codecName;
+        // ffprobe 以字符串输出采样率和码率
+        @SerializedName("sample_rate")
+        String sampleRate;
+        int channels;
+        @SerializedName("bit_rate")
+        String bitRate;
+        ProbeDisposition disposition;
+    }
+
+    private static class ProbeDisposition {
+        @SerializedName("attached_pic")
+        int attachedPic;
+    }
+
+    private static class ProbeFormat {
+        @SerializedName("format_name")
+        String formatName;
+        @SerializedName("bit_rate")
+        String bitRate;
+    }
+}
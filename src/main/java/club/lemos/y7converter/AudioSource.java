@@ -0,0 +1,95 @@
+package club.lemos.y7converter;
+
+import java.io.File;
+import java.io.InputStream;
+
+/**
+ * 语音识别的音频接入方式
+ * 负责把音频交给识别服务，并将识别出的句子写入字幕。
+ * 具体实现由配置项 speech_recognition.audio_source 选择。
+ */
+interface AudioSource {
+
+    /**
+     * 获取接入方式名称
+     */
+    String getName();
+
+    /**
+     * 识别本地音频文件
+     *
+     * @param audioFile 音频文件
+     * @param writer    字幕写入器，识别出的句子逐条写入
+     * @return 写入的字幕条数
+     * @throws Exception 如果识别失败
+     */
+    int transcribe(File audioFile, SrtWriter writer) throws Exception;
+
+    /**
+     * 是否可以直接识别源文件的原始音轨（不转码，编码与采样率各不相同）
+     */
+    default boolean supportsPassthrough() {
+        return true;
+    }
+
+    /**
+     * 是否支持直接识别 FFmpeg 输出的音频流（不生成临时音频文件）
+     */
+    default boolean supportsStreaming() {
+        return false;
+    }
+
+    /**
+     * 识别 FFmpeg 输出的音频流
+     *
+     * @param audioStream 音频流
+     * @param writer      字幕写入器，识别出的句子逐条写入
+     * @return 写入的字幕条数
+     * @throws Exception 如果识别失败
+     */
+    default int transcribeStream(AudioStream audioStream, SrtWriter writer) throws Exception {
+        throw new UnsupportedOperationException("音频接入方式不支持流式识别: " + getName());
+    }
+
+    /**
+     * 根据配置创建音频接入方式
+     *
+     * @return 音频接入方式
+     */
+    static AudioSource fromConfig() {
+        String audioSource = ConfigLoader.getInstance().getSpeechAudioSource();
+        switch (audioSource.trim().toLowerCase()) {
+            case "oss":
+                return new OssAudioSource(false);
+            case "oss_presigned":
+                return new OssAudioSource(true);
+            case "local_http":
+                return new LocalHttpAudioSource();
+            case "realtime":
+                return new RealtimeAudioSource();
+            default:
+                throw new IllegalArgumentException("不支持的音频接入方式: " + audioSource);
+        }
+    }
+
+    /**
+     * 正在输出的音频流
+     */
+    interface AudioStream {
+
+        /**
+         * 获取音频数据流
+         */
+        InputStream getInputStream();
+
+        /**
+         * 获取音频文件名（用于上传时命名）
+         */
+        String getFileName();
+
+        /**
+         * 等待音频输出结束，输出失败时抛出异常
+         */
+        void awaitCompletion() throws Exception;
+    }
+}
@@ -0,0 +1,160 @@
+package club.lemos.y7converter;
+
+import java.io.File;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 分段并行语音识别
+ * 长音频在目标分段时长附近的静音处切分，各分段分别提取音频并同时识别，
+ * 识别结果的时间轴加上分段起始时间后按顺序合并到同一个字幕文件。
+ */
+class ChunkedTranscriber {
+
+    // 分段音频提取超时时间（秒）
+    private static final long CHUNK_EXTRACT_TIMEOUT_SECONDS = 300;
+
+    /**
+     * 规划源文件的分段
+     * 音频不足目标分段时长的 1.5 倍时只有一个分段
+     *
+     * @param sourceFile 源视频或音频文件
+     * @return 按时间顺序排列的分段
+     * @throws Exception 如果静音检测失败
+     */
+    static List<SilenceDetector.Interval> planChunks(File sourceFile) throws Exception {
+        long chunkMs = Math.max(1, ConfigLoader.getInstance().getChunkDurationSeconds()) * 1000L;
+        SilenceDetector.Result detection = SilenceDetector.detect(sourceFile);
+        return planChunks(detection.getDurationMs(), detection.getSilences(), chunkMs);
+    }
+
+    /**
+     * 按静音区间规划分段
+     * 每个切分点取目标位置前后半个分段范围内、中点离目标位置最近的静音；附近没有静音时直接在目标位置切分
+     *
+     * @param durationMs 音频时长（毫秒）
+     * @param silences   按时间顺序排列的静音区间
+     * @param chunkMs    目标分段时长（毫秒）
+     * @return 按时间顺序排列的分段
+     */
+    static List<SilenceDetector.Interval> planChunks(long durationMs, List<SilenceDetector.Interval> silences,
+                                                     long chunkMs) {
+        List<SilenceDetector.Interval> chunks = new ArrayList<>();
+        long start = 0;
+
+        while (durationMs - start > chunkMs + chunkMs / 2) {
+            long target = start + chunkMs;
+            long cut = target;
+            long bestDistance = chunkMs / 2;
+            for (SilenceDetector.Interval silence : silences) {
+                long middle = (silence.startMs + silence.endMs) / 2;
+                long distance = Math.abs(middle - target);
+                if (middle > start && distance <= bestDistance) {
+                    bestDistance = distance;
+                    cut = middle;
+                }
+            }
+            chunks.add(new SilenceDetector.Interval(start, cut));
+            start = cut;
+        }
+
+        chunks.add(new SilenceDetector.Interval(start, durationMs));
+        return chunks;
+    }
+
+    /**
+     * 并行识别各分段，按顺序合并写入字幕
+     *
+     * @param sourceFile  源视频或音频文件
+     * @param chunks      分段
+     * @param audioSource 音频接入方式
+     * @param writer      字幕写入器
+     * @return 写入的字幕条数
+     * @throws Exception 如果任一分段识别失败
+     */
+    static int transcribe(File sourceFile, List<SilenceDetector.Interval> chunks, AudioSource audioSource,
+                          SrtWriter writer) throws Exception {
+        int concurrency = Math.max(1, Math.min(chunks.size(), ConfigLoader.getInstance().getChunkConcurrency()));
+        System.out.println("音频分为 " + chunks.size() + " 段，同时识别 " + concurrency + " 段");
+
+        AtomicInteger threadNumber = new AtomicInteger(1);
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency, r -> {
+            Thread thread = new Thread(r, "transcription-chunk-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        List<Future<List<SubtitleBlock>>> futures = new ArrayList<>();
+        // 各分段的阶段耗时计入所属任务
+        StageLimiter.Timings timings = StageLimiter.currentRecording();
+        try {
+            for (SilenceDetector.Interval chunk : chunks) {
+                futures.add(executor.submit(() -> StageLimiter.runRecording(timings,
+                        () -> transcribeChunk(sourceFile, chunk, audioSource))));
+            }
+
+            // 按分段顺序等待结果，时间轴平移到原始音频的位置
+            for (int i = 0; i < chunks.size(); i++) {
+                List<SubtitleBlock> blocks;
+                try {
+                    blocks = futures.get(i).get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof Exception) {
+                        throw (Exception) cause;
+                    }
+                    throw new Exception("分段识别失败: " + cause.getMessage(), cause);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new Exception("语音识别过程被中断", e);
+                }
+
+                long offsetMs = chunks.get(i).startMs;
+                for (SubtitleBlock block : blocks) {
+                    writer.write(writer.getCount() + 1, block.startMs + offsetMs, block.endMs + offsetMs, block.text);
+                }
+                writer.flush();
+
+                System.out.printf("分段识别进度: %d/%d，已生成字幕 %d 条\n", i + 1, chunks.size(), writer.getCount());
+            }
+            return writer.getCount();
+        } finally {
+            for (Future<List<SubtitleBlock>> future : futures) {
+                future.cancel(true);
+            }
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 提取并识别一个分段，返回以分段起点为零点的字幕
+     */
+    private static List<SubtitleBlock> transcribeChunk(File sourceFile, SilenceDetector.Interval chunk,
+                                                       AudioSource audioSource) throws Exception {
+        File chunkFile = Files.createTempFile("audio_chunk_", ".aac").toFile();
+        chunkFile.deleteOnExit();
+        try {
+            StageLimiter.run(StageLimiter.Stage.EXTRACT, () -> FFmpegUtil.runCommand(
+                    FFmpegUtil.buildAudioChunkExtractCommand(FFmpegUtil.getFFmpegPath(), sourceFile, chunkFile,
+                            chunk.startMs, chunk.getDurationMs()), CHUNK_EXTRACT_TIMEOUT_SECONDS));
+
+            // 识别出的字幕直接收集，等待按顺序合并时再统一编号。
+            // 不经过SRT文本中转，纯数字的句子（如"2020"）不会被当作序号行丢弃
+            List<SubtitleBlock> blocks = new ArrayList<>();
+            try (SrtWriter chunkWriter = new SrtWriter(Writer.nullWriter())) {
+                chunkWriter.setBlockListener(blocks::add);
+                audioSource.transcribe(chunkFile, chunkWriter);
+            }
+            return blocks;
+        } finally {
+            chunkFile.delete();
+        }
+    }
+}
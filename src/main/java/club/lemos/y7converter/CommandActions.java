@@ -19,4 +19,9 @@ public class CommandActions {
      * 翻译字幕操作
      */
     public static final int TRANSLATE_SUBTITLE = 3;
+    
+    /**
+     * 生成并翻译字幕操作（识别出的字幕随即翻译，同时输出原文与译文字幕）
+     */
+    public static final int GENERATE_AND_TRANSLATE = 4;
 }
@@ -2,14 +2,27 @@ package club.lemos.y7converter;
 
 import java.io.*;
 import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 字幕生成命令执行工具类
  */
 public class CommandExecutor {
 
+    // 进度阶段名称
+    private static final String STAGE_EXTRACT_AUDIO = "音频提取";
+    private static final String STAGE_SILENCE_DETECT = "静音检测";
+    private static final String STAGE_RECOGNITION = "语音识别";
+    private static final String STAGE_TRANSLATION = "字幕翻译";
+
+    // 各线程正在执行的命令，取消时只结束对应命令启动的进程
+    private static final Map<Thread, StageLimiter.Timings> runningCommands = new ConcurrentHashMap<>();
+
     /**
      * 执行命令行操作
      *
@@ -19,74 +32,344 @@ public class CommandExecutor {
      * @return 命令执行结果，包含处理时间信息
      */
     public static CommandResult execute(int action, File sourceFile, File destFile) {
+        return execute(action, sourceFile, destFile, null);
+    }
+    
+    /**
+     * 执行命令行操作，并报告处理进度
+     * 进度同时发布给 ProgressMonitor 上注册的全局监听器
+     *
+     * @param action           操作类型
+     * @param sourceFile       源文件
+     * @param destFile         目标文件
+     * @param progressListener 进度监听器，可为null；在执行线程中回调
+     * @return 命令执行结果，包含处理时间信息
+     */
+    public static CommandResult execute(int action, File sourceFile, File destFile, ProgressListener progressListener) {
+        return execute(action, sourceFile, destFile, null, progressListener);
+    }
+    
+    /**
+     * 执行命令行操作，并报告处理进度
+     *
+     * @param action           操作类型
+     * @param sourceFile       源文件
+     * @param destFile         目标文件
+     * @param translatedFile   翻译后的字幕文件，仅用于生成并翻译字幕；为null时使用 {@link #getDefaultTranslatedFile}
+     * @param progressListener 进度监听器，可为null；在执行线程中回调
+     * @return 命令执行结果，包含处理时间信息
+     */
+    public static CommandResult execute(int action, File sourceFile, File destFile, File translatedFile,
+                                        ProgressListener progressListener) {
+        // 记录各阶段的等待与执行时间（嵌套调用时由最外层记录）
+        StageLimiter.Timings timings = StageLimiter.startRecording();
+        if (timings != null) {
+            runningCommands.put(Thread.currentThread(), timings);
+        }
+        try {
+            CommandResult commandResult = executeAction(action, sourceFile, destFile,
+                    translatedFile != null ? translatedFile : getDefaultTranslatedFile(destFile),
+                    progressListener);
+            if (timings != null) {
+                timings.addTo(commandResult);
+            }
+            return commandResult;
+        } finally {
+            if (timings != null) {
+                runningCommands.remove(Thread.currentThread());
+                StageLimiter.stopRecording();
+            }
+        }
+    }
+    
+    /**
+     * 获取生成并翻译字幕时译文字幕的默认位置：与原文字幕同目录，按原文字幕名与默认目标语言命名（如 a.srt 对应 a.zh.srt）
+     *
+     * @param destFile 原文字幕文件
+     * @return 译文字幕文件
+     */
+    public static File getDefaultTranslatedFile(File destFile) {
+        return new File(destFile.getAbsoluteFile().getParentFile(),
+                FileNameUtils.generateDefaultTranslatedFileName(destFile));
+    }
+    
+    private static CommandResult executeAction(int action, File sourceFile, File destFile, File translatedFile,
+                                               ProgressListener progressListener) {
         try {
             long startTime = System.currentTimeMillis();
             
             // 对于生成字幕操作，需要特殊处理
             if (action == CommandActions.GENERATE_SUBTITLE) {
-                return executeSubtitleGeneration(sourceFile, destFile, startTime);
+                return executeSubtitleGeneration(sourceFile, destFile, startTime, progressListener, null);
+            }
+            
+            // 生成并翻译字幕：识别与翻译同时进行
+            if (action == CommandActions.GENERATE_AND_TRANSLATE) {
+                return executeSubtitleGenerationAndTranslation(sourceFile, destFile, translatedFile, startTime,
+                        progressListener);
             }
             
             // 对于翻译字幕操作，需要特殊处理
             if (action == CommandActions.TRANSLATE_SUBTITLE) {
-                return executeSubtitleTranslation(sourceFile, destFile, startTime);
+                return executeSubtitleTranslation(sourceFile, destFile, startTime, progressListener);
             }
             
             List<String> command = buildCommand(action, sourceFile, destFile);
             
-            ProcessBuilder processBuilder = new ProcessBuilder(command);
-            processBuilder.directory(sourceFile.getParentFile()); // 设置工作目录为源文件所在目录
-            
-            Process process = processBuilder.start();
-            
-            // 读取输出和错误流
-            String output = readStream(process.getInputStream());
-            String error = readStream(process.getErrorStream());
-            
-            // 根据操作类型设置不同的超时时间
-            int timeoutSeconds = getTimeoutForAction(action);
-            boolean finished = process.waitFor(timeoutSeconds, TimeUnit.SECONDS);
-            if (!finished) {
-                process.destroyForcibly();
-                throw new RuntimeException("命令执行超时");
-            }
+            // 输出与错误流同时读取，超时在进程运行期间生效；工作目录为源文件所在目录
+            // 错误输出中的进度行逐行解析并发布
+            FFmpegProgressParser progressParser = new FFmpegProgressParser(STAGE_EXTRACT_AUDIO, sourceFile.getName(),
+                    -1, progressListener);
+            ProcessRunner.Result result = StageLimiter.run(StageLimiter.Stage.EXTRACT,
+                    () -> ProcessRunner.start(command, sourceFile.getParentFile(), getTimeoutForAction(action), false,
+                            progressParser).waitFor());
             
-            int exitCode = process.exitValue();
+            int exitCode = result.getExitCode();
             long endTime = System.currentTimeMillis();
             long processingTime = endTime - startTime;
             
             if (exitCode != 0) {
-                throw new RuntimeException("命令执行失败: " + error);
+                throw new RuntimeException("命令执行失败: " + result.getError());
             }
             
-            return new CommandResult(destFile, processingTime, action, output, error, exitCode);
+            CommandResult commandResult = new CommandResult(destFile, processingTime, action, result.getOutput(),
+                    result.getError(), exitCode);
+            addProgressStats(commandResult, progressParser.getLastProgress());
+            return commandResult;
+        } catch (CancellationException e) {
+            throw e;
         } catch (Exception e) {
             throw new RuntimeException("执行命令时发生错误: " + e.getMessage(), e);
         }
     }
     
+    /**
+     * 取消指定线程正在执行的命令所启动的外部进程（如 FFmpeg），包括该命令在其他线程中启动的进程；
+     * 同一程序中其他命令（如任务接口提交的任务）的进程不受影响
+     *
+     * @param executingThread 调用 {@link #execute} 的线程
+     * @return 被取消的进程数量
+     */
+    public static int cancelRunningProcesses(Thread executingThread) {
+        StageLimiter.Timings timings = runningCommands.get(executingThread);
+        return timings != null ? timings.cancelProcesses() : 0;
+    }
+    
+    /**
+     * 执行生成并翻译字幕操作
+     * 识别出的字幕块随即送入翻译流水线，凑满一批就开始翻译，识别结束时大部分字幕已翻译完成；
+     * 原文字幕与译文字幕分别写入，不需要先写出字幕文件再重新读取。
+     */
+    private static CommandResult executeSubtitleGenerationAndTranslation(File sourceFile, File destFile,
+                                                                         File translatedFile, long startTime,
+                                                                         ProgressListener progressListener) throws Exception {
+        ConfigLoader config = ConfigLoader.getInstance();
+        String sourceLang = config.getDefaultSourceLanguage();
+        String targetLang = config.getDefaultTargetLanguage();
+        
+        CommandResult generationResult;
+        SubtitleTranslationService.TranslationResult translationResult;
+        long recognitionEndTime;
+        try (SubtitleTranslationService.StreamingTranslation translation =
+                     SubtitleTranslationService.startStreamingTranslation(translatedFile, sourceLang, targetLang)) {
+            generationResult = executeSubtitleGeneration(sourceFile, destFile, startTime, progressListener, translation);
+            recognitionEndTime = System.currentTimeMillis();
+            
+            // 识别结束后只需等待在途的翻译批次
+            ProgressMonitor.publish(progressListener, ProgressInfo.stage(STAGE_TRANSLATION, sourceFile.getName()));
+            translationResult = translation.finish();
+        } catch (Exception e) {
+            // 失败或取消时不保留不完整的译文
+            translatedFile.delete();
+            throw e;
+        }
+        
+        long endTime = System.currentTimeMillis();
+        String successMessage = "字幕生成并翻译成功\n" + translationResult + 
+                               "\n字幕文件: " + destFile.getAbsolutePath() + 
+                               "\n翻译文件: " + translatedFile.getAbsolutePath();
+        System.out.println("字幕翻译完成: " + translationResult);
+        
+        CommandResult commandResult = new CommandResult(destFile, endTime - startTime,
+                CommandActions.GENERATE_AND_TRANSLATE, successMessage, "", 0);
+        generationResult.getStats().forEach(commandResult::addStat);
+        commandResult.addStat("translated_count", translationResult.getTranslatedCount());
+        commandResult.addStat("translation_memory_hits", translationResult.getCacheHits());
+        commandResult.addStat("translation_memory_misses", translationResult.getCacheMisses());
+        // 识别结束后等待翻译的时间，流水线越充分越接近一个批次的翻译时间
+        commandResult.addStat("translation_tail_ms", endTime - recognitionEndTime);
+        return commandResult;
+    }
+    
     /**
      * 执行字幕生成操作（音频提取 + 语音识别）
+     *
+     * @param blockListener 字幕块监听器，识别出的每个字幕块写入后通知，可为null
      */
-    private static CommandResult executeSubtitleGeneration(File sourceFile, File destFile, long startTime) throws Exception {
-        // 第一步：提取音频
-        File tempAudioFile = Files.createTempFile("extracted_audio_", ".aac").toFile();
+    private static CommandResult executeSubtitleGeneration(File sourceFile, File destFile, long startTime,
+                                                           ProgressListener progressListener,
+                                                           SrtWriter.BlockListener blockListener) throws Exception {
+        // 同一文件已生成过字幕时直接使用缓存结果
+        SubtitleCache subtitleCache = SubtitleCache.getInstance();
+        String cacheKey = null;
+        if (subtitleCache.isEnabled()) {
+            cacheKey = subtitleCache.computeKey(sourceFile);
+            File cachedFile = subtitleCache.lookup(cacheKey);
+            if (cachedFile != null) {
+                Files.copy(cachedFile.toPath(), destFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                if (blockListener != null) {
+                    try (SrtReader reader = new SrtReader(destFile)) {
+                        while (reader.hasNext()) {
+                            blockListener.onBlock(reader.next());
+                        }
+                    }
+                }
+                
+                long processingTime = System.currentTimeMillis() - startTime;
+                String successMessage = "字幕生成成功（使用缓存结果）\n字幕文件: " + destFile.getAbsolutePath();
+                
+                CommandResult commandResult = new CommandResult(destFile, processingTime, CommandActions.GENERATE_SUBTITLE, 
+                                       successMessage, "", 0);
+                commandResult.addStat("subtitle_cache_hit", 1);
+                return commandResult;
+            }
+        }
+        
+        AudioSource audioSource = AudioSource.fromConfig();
+        String inputName = sourceFile.getName();
+        
+        // 分段模式：长音频在静音处切分，各分段同时识别
+        if (ConfigLoader.getInstance().isChunkedTranscriptionEnabled()) {
+            ProgressMonitor.publish(progressListener, ProgressInfo.stage(STAGE_SILENCE_DETECT, inputName));
+            List<SilenceDetector.Interval> chunks = StageLimiter.run(StageLimiter.Stage.EXTRACT,
+                    () -> ChunkedTranscriber.planChunks(sourceFile));
+            if (chunks.size() > 1) {
+                ProgressMonitor.publish(progressListener, ProgressInfo.stage(STAGE_RECOGNITION, inputName));
+                int recognizedCount = performChunkedSpeechRecognition(audioSource, sourceFile, chunks, destFile,
+                        blockListener);
+                
+                if (cacheKey != null && recognizedCount > 0) {
+                    subtitleCache.store(cacheKey, destFile);
+                }
+                
+                long processingTime = System.currentTimeMillis() - startTime;
+                String successMessage = "字幕生成成功（分 " + chunks.size() + " 段并行识别）\n字幕文件: " + destFile.getAbsolutePath();
+                
+                CommandResult commandResult = new CommandResult(destFile, processingTime, CommandActions.GENERATE_SUBTITLE, 
+                                       successMessage, "", 0);
+                commandResult.addStat("subtitle_cache_hit", 0);
+                commandResult.addStat("transcription_chunks", chunks.size());
+                return commandResult;
+            }
+        }
+        
+        // 语音活动检测：去除长静音，只提取语音部分进行识别
+        TimeOffsetMap timeOffsetMap = null;
+        if (ConfigLoader.getInstance().isVadEnabled()) {
+            ProgressMonitor.publish(progressListener, ProgressInfo.stage(STAGE_SILENCE_DETECT, inputName));
+            timeOffsetMap = StageLimiter.run(StageLimiter.Stage.EXTRACT, () -> TimeOffsetMap.detect(sourceFile));
+            if (timeOffsetMap != null) {
+                System.out.printf("语音活动检测完成，去除静音 %.1f 秒，保留语音 %.1f 秒\n",
+                        timeOffsetMap.getRemovedMs() / 1000.0, timeOffsetMap.getKeptMs() / 1000.0);
+            }
+        }
+        
+        // 流式模式：FFmpeg 输出的音频直接交给识别服务，提取与上传（或识别）同时进行
+        if (audioSource.supportsStreaming()) {
+            FFmpegProgressParser progressParser = new FFmpegProgressParser(STAGE_EXTRACT_AUDIO, inputName,
+                    timeOffsetMap != null ? timeOffsetMap.getKeptMs() : -1, progressListener);
+            int recognizedCount = performStreamingSpeechRecognition(audioSource, sourceFile, timeOffsetMap,
+                    progressParser, destFile, blockListener);
+            
+            if (cacheKey != null && recognizedCount > 0) {
+                subtitleCache.store(cacheKey, destFile);
+            }
+            
+            long processingTime = System.currentTimeMillis() - startTime;
+            String successMessage = "字幕生成成功（流式处理，" + audioSource.getName() + "）\n字幕文件: " + destFile.getAbsolutePath();
+            
+            CommandResult commandResult = new CommandResult(destFile, processingTime, CommandActions.GENERATE_SUBTITLE, 
+                                   successMessage, "", 0);
+            commandResult.addStat("subtitle_cache_hit", 0);
+            addVadStats(commandResult, timeOffsetMap);
+            addProgressStats(commandResult, progressParser.getLastProgress());
+            return commandResult;
+        }
+        
+        // 音轨可直接识别时不转码：音频文件直接交给识别服务，视频文件只复制音轨
+        AudioProbe audioProbe = null;
+        if (timeOffsetMap == null && ConfigLoader.getInstance().isPassthroughEnabled()
+                && audioSource.supportsPassthrough()) {
+            audioProbe = AudioProbe.probe(sourceFile);
+            if (audioProbe != null) {
+                System.out.println("源音轨: " + audioProbe + (audioProbe.isRecognizerCompatible() ? "（可直接识别）" : ""));
+                if (!audioProbe.isRecognizerCompatible()) {
+                    audioProbe = null;
+                }
+            }
+        }
+        
+        if (audioProbe != null && !audioProbe.hasVideo() && FileNameUtils.isAudioFile(sourceFile)) {
+            ProgressMonitor.publish(progressListener, ProgressInfo.stage(STAGE_RECOGNITION, inputName));
+            int recognizedCount = performSpeechRecognition(audioSource, sourceFile, null, destFile, blockListener);
+            
+            if (cacheKey != null && recognizedCount > 0) {
+                subtitleCache.store(cacheKey, destFile);
+            }
+            
+            long processingTime = System.currentTimeMillis() - startTime;
+            String successMessage = "字幕生成成功（音频文件直接识别）\n字幕文件: " + destFile.getAbsolutePath();
+            
+            CommandResult commandResult = new CommandResult(destFile, processingTime, CommandActions.GENERATE_SUBTITLE, 
+                                   successMessage, "", 0);
+            commandResult.addStat("subtitle_cache_hit", 0);
+            commandResult.addStat("audio_passthrough", 1);
+            return commandResult;
+        }
+        
+        // 第一步：提取音频（可直接识别的音轨只复制，不转码）
+        String copyExtension = audioProbe != null ? audioProbe.getCopyExtension() : null;
+        File tempAudioFile = Files.createTempFile("extracted_audio_",
+                copyExtension != null ? copyExtension : ".aac").toFile();
         tempAudioFile.deleteOnExit();
         
         try {
             // 执行音频提取
-            CommandResult audioResult = execute(CommandActions.EXTRACT_AUDIO, sourceFile, tempAudioFile);
-            
-            if (!audioResult.isSuccess() || !tempAudioFile.exists()) {
-                throw new RuntimeException("音频提取失败: " + audioResult.getError());
+            ProgressInfo extractProgress = null;
+            Map<String, Long> extractStats = Collections.emptyMap();
+            if (timeOffsetMap != null) {
+                // 只提取语音区间，输出时长为保留的语音时长
+                FFmpegProgressParser progressParser = new FFmpegProgressParser(STAGE_EXTRACT_AUDIO, inputName,
+                        timeOffsetMap.getKeptMs(), progressListener);
+                String audioFilter = timeOffsetMap.toAudioFilter();
+                StageLimiter.run(StageLimiter.Stage.EXTRACT, () -> FFmpegUtil.runCommand(
+                        FFmpegUtil.buildAudioExtractCommand(FFmpegUtil.getFFmpegPath(), sourceFile, tempAudioFile,
+                                audioFilter), getTimeoutForAction(CommandActions.EXTRACT_AUDIO), progressParser));
+                extractProgress = progressParser.getLastProgress();
+            } else if (copyExtension != null) {
+                FFmpegProgressParser progressParser = new FFmpegProgressParser(STAGE_EXTRACT_AUDIO, inputName,
+                        -1, progressListener);
+                StageLimiter.run(StageLimiter.Stage.EXTRACT, () -> FFmpegUtil.runCommand(
+                        FFmpegUtil.buildAudioCopyCommand(FFmpegUtil.getFFmpegPath(), sourceFile, tempAudioFile),
+                        getTimeoutForAction(CommandActions.EXTRACT_AUDIO), progressParser));
+                extractProgress = progressParser.getLastProgress();
+            } else {
+                CommandResult audioResult = execute(CommandActions.EXTRACT_AUDIO, sourceFile, tempAudioFile, progressListener);
+                
+                if (!audioResult.isSuccess() || !tempAudioFile.exists()) {
+                    throw new RuntimeException("音频提取失败: " + audioResult.getError());
+                }
+                extractStats = audioResult.getStats();
             }
             
-            // 第二步：语音识别（自动上传音频文件并进行识别）
-            String subtitleContent = performSpeechRecognition(tempAudioFile);
+            // 第二步：语音识别（按配置的接入方式交给识别服务），识别结果直接写入字幕文件
+            ProgressMonitor.publish(progressListener, ProgressInfo.stage(STAGE_RECOGNITION, inputName));
+            int recognizedCount = performSpeechRecognition(audioSource, tempAudioFile, timeOffsetMap, destFile,
+                    blockListener);
             
-            // 第三步：保存字幕文件
-            try (java.io.FileWriter writer = new java.io.FileWriter(destFile)) {
-                writer.write(subtitleContent);
+            // 未识别到语音时只有提示字幕，不缓存，下次重新识别
+            if (cacheKey != null && recognizedCount > 0) {
+                subtitleCache.store(cacheKey, destFile);
             }
             
             long endTime = System.currentTimeMillis();
@@ -95,8 +378,14 @@ public class CommandExecutor {
             String successMessage = "字幕生成成功\n音频文件: " + tempAudioFile.getAbsolutePath() + 
                                    "\n字幕文件: " + destFile.getAbsolutePath();
             
-            return new CommandResult(destFile, processingTime, CommandActions.GENERATE_SUBTITLE, 
+            CommandResult commandResult = new CommandResult(destFile, processingTime, CommandActions.GENERATE_SUBTITLE, 
                                    successMessage, "", 0);
+            commandResult.addStat("subtitle_cache_hit", 0);
+            addVadStats(commandResult, timeOffsetMap);
+            commandResult.addStat("audio_stream_copy", copyExtension != null ? 1 : 0);
+            addProgressStats(commandResult, extractProgress);
+            extractStats.forEach(commandResult::addStat);
+            return commandResult;
             
         } finally {
             // 清理临时音频文件（如果语音识别过程中未删除）
@@ -112,7 +401,8 @@ public class CommandExecutor {
     /**
      * 执行字幕翻译操作
      */
-    private static CommandResult executeSubtitleTranslation(File sourceFile, File destFile, long startTime) throws Exception {
+    private static CommandResult executeSubtitleTranslation(File sourceFile, File destFile, long startTime,
+                                                            ProgressListener progressListener) throws Exception {
         try {
             // 检查翻译API Key是否配置
             if (!SubtitleTranslationService.isTranslationApiKeyConfigured()) {
@@ -128,8 +418,10 @@ public class CommandExecutor {
             String targetLang = config.getDefaultTargetLanguage();
             
             // 执行翻译
-            String translationResult = SubtitleTranslationService.translateSubtitleFile(
-                    sourceFile, destFile, sourceLang, targetLang);
+            ProgressMonitor.publish(progressListener, ProgressInfo.stage(STAGE_TRANSLATION, sourceFile.getName()));
+            SubtitleTranslationService.TranslationResult translationResult = StageLimiter.run(
+                    StageLimiter.Stage.TRANSLATION,
+                    () -> SubtitleTranslationService.translateSubtitleFile(sourceFile, destFile, sourceLang, targetLang));
             
             long endTime = System.currentTimeMillis();
             long processingTime = endTime - startTime;
@@ -140,9 +432,16 @@ public class CommandExecutor {
             
             System.out.println("字幕翻译完成: " + translationResult);
             
-            return new CommandResult(destFile, processingTime, CommandActions.TRANSLATE_SUBTITLE, 
+            CommandResult commandResult = new CommandResult(destFile, processingTime, CommandActions.TRANSLATE_SUBTITLE, 
                                    successMessage, "", 0);
-            
+            commandResult.addStat("translated_count", translationResult.getTranslatedCount());
+            commandResult.addStat("resumed_batches", translationResult.getResumedBatches());
+            commandResult.addStat("translation_memory_hits", translationResult.getCacheHits());
+            commandResult.addStat("translation_memory_misses", translationResult.getCacheMisses());
+            return commandResult;
+            
+        } catch (CancellationException e) {
+            throw e;
         } catch (Exception e) {
             // 提供详细的错误信息和解决建议
             String errorMessage = "字幕翻译失败: " + e.getMessage();
@@ -158,56 +457,89 @@ public class CommandExecutor {
     }
     
     /**
-     * 执行语音识别
+     * 执行语音识别，将识别结果写入字幕文件
+     *
+     * @return 识别出的字幕条数（不含未识别到语音时的提示字幕）
      */
-    private static String performSpeechRecognition(File audioFile) throws Exception {
+    private static int performSpeechRecognition(AudioSource audioSource, File audioFile, TimeOffsetMap timeOffsetMap,
+                                                File destFile, SrtWriter.BlockListener blockListener) throws Exception {
+        System.out.println("音频文件: " + audioFile.getAbsolutePath());
+        System.out.println("文件大小: " + audioFile.length() + " 字节");
+        
+        return recognizeAudio(audioSource, destFile, timeOffsetMap, blockListener,
+                writer -> audioSource.transcribe(audioFile, writer));
+    }
+    
+    /**
+     * 以流式方式执行语音识别：FFmpeg 将音频写入标准输出，由音频接入方式边读取边处理
+     *
+     * @return 识别出的字幕条数（不含未识别到语音时的提示字幕）
+     */
+    private static int performStreamingSpeechRecognition(AudioSource audioSource, File sourceFile,
+                                                         TimeOffsetMap timeOffsetMap, FFmpegProgressParser progressParser,
+                                                         File destFile, SrtWriter.BlockListener blockListener) throws Exception {
+        System.out.println("源文件: " + sourceFile.getAbsolutePath());
+        
+        return recognizeAudio(audioSource, destFile, timeOffsetMap, blockListener, writer -> {
+            FFmpegAudioStream audioStream = FFmpegAudioStream.start(sourceFile,
+                    timeOffsetMap != null ? timeOffsetMap.toAudioFilter() : null, progressParser);
+            try {
+                return audioSource.transcribeStream(audioStream, writer);
+            } finally {
+                audioStream.destroy();
+            }
+        });
+    }
+    
+    /**
+     * 分段并行执行语音识别，各分段结果按时间顺序合并写入字幕文件
+     *
+     * @return 识别出的字幕条数（不含未识别到语音时的提示字幕）
+     */
+    private static int performChunkedSpeechRecognition(AudioSource audioSource, File sourceFile,
+                                                       List<SilenceDetector.Interval> chunks, File destFile,
+                                                       SrtWriter.BlockListener blockListener) throws Exception {
+        System.out.println("源文件: " + sourceFile.getAbsolutePath());
+        
+        return recognizeAudio(audioSource, destFile, null, blockListener,
+                writer -> ChunkedTranscriber.transcribe(sourceFile, chunks, audioSource, writer));
+    }
+    
+    /**
+     * 执行语音识别并处理错误信息
+     *
+     * @param audioSource   音频接入方式
+     * @param destFile      字幕文件
+     * @param timeOffsetMap 去除静音后的时间映射，为null时识别的是完整音频
+     * @param blockListener 字幕块监听器，可为null
+     * @param recognizer    具体的识别过程
+     * @return 识别出的字幕条数（不含未识别到语音时的提示字幕）
+     */
+    private static int recognizeAudio(AudioSource audioSource, File destFile, TimeOffsetMap timeOffsetMap,
+                                      SrtWriter.BlockListener blockListener, Recognizer recognizer) throws Exception {
         // 检查API Key是否配置
         if (!SpeechRecognitionService.isApiKeyConfigured()) {
             throw new RuntimeException("未配置DashScope API Key。请在配置文件中设置 speech_recognition.dashscope.api_key 或设置环境变量 DASHSCOPE_API_KEY");
         }
         
-        System.out.println("开始语音识别流程...");
-        System.out.println("音频文件: " + audioFile.getAbsolutePath());
-        System.out.println("文件大小: " + audioFile.length() + " 字节");
+        System.out.println("开始语音识别流程，音频接入方式: " + audioSource.getName());
         
-        FileUploadService uploadService = null;
         try {
-            // 第一步：将音频文件上传到网络
-            System.out.println("正在上传音频文件到云存储...");
-            uploadService = new FileUploadService();
-            FileUploadService.UploadResult uploadResult = uploadService.uploadFile(audioFile);
-            
-            if (!uploadResult.isSuccess()) {
-                throw new RuntimeException("音频文件上传失败: " + uploadResult.getMessage());
-            }
-            
-            String fileUrl = uploadResult.getFileUrl();
-            if (fileUrl == null || fileUrl.trim().isEmpty()) {
-                throw new RuntimeException("上传成功但未获取到文件URL。上传结果: " + uploadResult.toString());
-            }
-            
-            System.out.println("音频文件上传成功，URL: " + fileUrl);
-            
-            // 第二步：执行语音识别
-            System.out.println("正在进行语音识别...");
-            String transcriptionResult = SpeechRecognitionService.transcribeAudioFromUrl(fileUrl);
-            
-            if (transcriptionResult.trim().isEmpty()) {
-                throw new RuntimeException("语音识别完成但结果为空");
-            }
-            
-            System.out.println("语音识别完成，生成字幕内容长度: " + transcriptionResult.length() + " 字符");
-            
-            // 第三步：从OSS删除已上传的音频文件
-            System.out.println("正在从云存储删除音频文件...");
-            if (uploadService.deleteUploadedFile(uploadResult)) {
-                System.out.println("云存储中的音频文件删除成功");
-            } else {
-                System.err.println("云存储中的音频文件删除失败，请手动清理");
+            int subtitleCount;
+            try (SrtWriter writer = new SrtWriter(destFile)) {
+                // 识别结果的时间轴换算回原始音频
+                writer.setTimeOffsetMap(timeOffsetMap);
+                writer.setBlockListener(blockListener);
+                recognizer.recognize(writer);
+                subtitleCount = writer.getCount();
+                SpeechRecognitionService.writePlaceholderIfEmpty(writer);
             }
             
-            return transcriptionResult;
+            System.out.println("语音识别完成，生成字幕 " + subtitleCount + " 条");
+            return subtitleCount;
             
+        } catch (CancellationException e) {
+            throw e;
         } catch (Exception e) {
             // 提供详细的错误信息和解决建议
             String errorMessage = "语音识别失败: " + e.getMessage();
@@ -219,24 +551,48 @@ public class CommandExecutor {
                 errorMessage += "\n3. 认证信息是否有效";
             } else if (e.getMessage().contains("API Key")) {
                 errorMessage += "\n\n请在配置文件config.yaml中设置DashScope API Key，或设置环境变量DASHSCOPE_API_KEY";
+            } else if (audioSource instanceof LocalHttpAudioSource) {
+                errorMessage += "\n\n请确认识别服务能够访问 speech_recognition.local_http.public_base_url 配置的地址";
             }
             
             throw new RuntimeException(errorMessage, e);
         } finally {
-            // 确保关闭上传服务
-            if (uploadService != null) {
-                uploadService.close();
+            if (ConfigLoader.getInstance().isDebugMode() && audioSource instanceof OssAudioSource) {
+                System.out.println("OSS 连接统计: " + OssClientHolder.getStatsSummary());
             }
         }
     }
     
+    /**
+     * 记录语音活动检测去除与保留的音频时长
+     */
+    private static void addVadStats(CommandResult commandResult, TimeOffsetMap timeOffsetMap) {
+        if (timeOffsetMap != null) {
+            commandResult.addStat("vad_removed_ms", timeOffsetMap.getRemovedMs());
+            commandResult.addStat("vad_kept_ms", timeOffsetMap.getKeptMs());
+        }
+    }
+    
+    /**
+     * 记录音频提取的处理速度（百分比，100 表示与实时相同）和输出大小
+     */
+    private static void addProgressStats(CommandResult commandResult, ProgressInfo extractProgress) {
+        if (extractProgress != null && extractProgress.getSpeed() > 0) {
+            commandResult.addStat("extract_speed_pct", Math.round(extractProgress.getSpeed() * 100));
+        }
+        if (extractProgress != null && extractProgress.getTotalSize() >= 0) {
+            commandResult.addStat("extract_output_bytes", extractProgress.getTotalSize());
+        }
+    }
+    
     /**
      * 根据操作类型获取超时时间
      */
     private static int getTimeoutForAction(int action) {
         switch (action) {
             case CommandActions.EXTRACT_AUDIO:
-                return 120; // 音频提取2分钟超时
+                // 超时在进程运行期间生效，长视频的提取时间较长，可在配置文件中调整
+                return ConfigLoader.getInstance().getExtractTimeoutSeconds();
             case CommandActions.TRANSLATE_SUBTITLE:
                 return 300; // 字幕翻译5分钟超时
             default:
@@ -271,19 +627,70 @@ public class CommandExecutor {
     }
 
     /**
-     * 读取流内容
-     *
-     * @param inputStream 输入流
-     * @return 流内容
+     * 识别过程
      */
-    private static String readStream(InputStream inputStream) throws IOException {
-        StringBuilder result = new StringBuilder();
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                result.append(line).append("\n");
+    @FunctionalInterface
+    private interface Recognizer {
+        int recognize(SrtWriter writer) throws Exception;
+    }
+
+    /**
+     * FFmpeg 提取音频并写入标准输出的进程
+     */
+    private static class FFmpegAudioStream implements AudioSource.AudioStream {
+        private final ProcessRunner runner;
+        private final String fileName;
+
+        private FFmpegAudioStream(ProcessRunner runner, String fileName) {
+            this.runner = runner;
+            this.fileName = fileName;
+        }
+
+        /**
+         * 启动 FFmpeg 提取音频
+         *
+         * @param sourceFile  源文件
+         * @param audioFilter    音频滤镜，为null时不使用
+         * @param progressParser 进度解析器
+         */
+        static FFmpegAudioStream start(File sourceFile, String audioFilter, FFmpegProgressParser progressParser)
+                throws IOException {
+            List<String> command;
+            try {
+                command = FFmpegUtil.buildAudioStreamCommand(FFmpegUtil.getFFmpegPath(), sourceFile, audioFilter);
+            } catch (IOException e) {
+                throw new RuntimeException("无法获取FFmpeg: " + e.getMessage(), e);
+            }
+            
+            // 标准输出交给调用方读取，错误输出（含进度）在后台读取，避免缓冲区写满导致 FFmpeg 阻塞
+            ProcessRunner runner = ProcessRunner.start(command, sourceFile.getParentFile(),
+                    getTimeoutForAction(CommandActions.EXTRACT_AUDIO), true, progressParser);
+            return new FFmpegAudioStream(runner, FileNameUtils.getBaseName(sourceFile) + ".aac");
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return runner.getInputStream();
+        }
+
+        @Override
+        public String getFileName() {
+            return fileName;
+        }
+
+        @Override
+        public void awaitCompletion() throws Exception {
+            ProcessRunner.Result result = runner.waitFor();
+            if (result.getExitCode() != 0) {
+                throw new RuntimeException("音频提取失败: " + result.getError());
             }
         }
-        return result.toString();
+
+        /**
+         * 结束仍在运行的 FFmpeg 进程
+         */
+        void destroy() {
+            runner.destroy();
+        }
     }
 }
@@ -1,6 +1,9 @@
 package club.lemos.y7converter;
 
 import java.io.File;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * 命令行操作结果类
@@ -13,6 +16,7 @@ public class CommandResult {
     private final String output;
     private final String error;
     private final int exitCode;
+    private final Map<String, Long> stats = new LinkedHashMap<>();
 
     /**
      * 构造函数
@@ -82,6 +86,23 @@ public class CommandResult {
         return exitCode;
     }
 
+    /**
+     * 记录一项统计数据（如缓存命中次数）
+     *
+     * @param name  统计项名称
+     * @param value 统计值
+     */
+    public void addStat(String name, long value) {
+        stats.put(name, value);
+    }
+
+    /**
+     * 获取统计数据
+     */
+    public Map<String, Long> getStats() {
+        return Collections.unmodifiableMap(stats);
+    }
+
     /**
      * 获取操作类型描述
      */
@@ -91,6 +112,8 @@ public class CommandResult {
                 return "音频提取";
             case CommandActions.GENERATE_SUBTITLE:
                 return "字幕生成";
+            case CommandActions.GENERATE_AND_TRANSLATE:
+                return "字幕生成与翻译";
             default:
                 return "处理";
         }
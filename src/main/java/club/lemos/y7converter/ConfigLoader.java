@@ -1,6 +1,7 @@
 package club.lemos.y7converter;
 
 import org.yaml.snakeyaml.Yaml;
+import java.io.File;
 import java.io.InputStream;
 import java.util.Map;
 import java.util.List;
@@ -107,6 +108,19 @@ public class ConfigLoader {
         return getConfig(path, defaultValue);
     }
     
+    /**
+     * 获取浮点数配置值
+     * YAML 中的整数与小数都可以读取
+     * 
+     * @param path 配置路径
+     * @param defaultValue 默认值
+     * @return 浮点数配置值
+     */
+    public Double getDouble(String path, Double defaultValue) {
+        Object value = getConfig(path, null);
+        return value instanceof Number ? ((Number) value).doubleValue() : defaultValue;
+    }
+    
     /**
      * 获取列表配置值
      * 
@@ -201,6 +215,69 @@ public class ConfigLoader {
         return getInt("file_upload.max_connections", 100);
     }
     
+    /**
+     * 获取 OSS 空闲连接的保持时间（毫秒）
+     * 
+     * @return 空闲连接保持时间
+     */
+    public long getOssIdleConnectionTime() {
+        return getInt("file_upload.idle_connection_time", 60000);
+    }
+    
+    /**
+     * 获取分片上传阈值（MB），不小于该大小的文件使用并行分片上传
+     * 
+     * @return 分片上传阈值
+     */
+    public int getOssMultipartThresholdMb() {
+        return getInt("file_upload.multipart_threshold_mb", 20);
+    }
+    
+    /**
+     * 获取分片上传的分片大小（MB）
+     * 
+     * @return 分片大小
+     */
+    public int getOssPartSizeMb() {
+        return getInt("file_upload.part_size_mb", 5);
+    }
+    
+    /**
+     * 获取并行上传的分片数量
+     * 
+     * @return 并行上传的分片数量
+     */
+    public int getOssUploadConcurrency() {
+        return getInt("file_upload.upload_concurrency", 4);
+    }
+    
+    /**
+     * 获取分片上传失败后的重试次数
+     * 
+     * @return 重试次数
+     */
+    public int getOssUploadRetries() {
+        return getInt("file_upload.upload_retries", 3);
+    }
+    
+    /**
+     * 是否启用流式上传（FFmpeg 输出直接上传到 OSS，不落地临时文件）
+     * 
+     * @return 是否启用流式上传
+     */
+    public boolean isOssStreamingUpload() {
+        return getBoolean("file_upload.streaming_upload", false);
+    }
+    
+    /**
+     * 获取流式上传的分片大小（KB）
+     * 
+     * @return 分片大小
+     */
+    public int getOssStreamPartSizeKb() {
+        return getInt("file_upload.stream_part_size_kb", 1024);
+    }
+    
     // 语音识别相关配置的便捷方法
     
     /**
@@ -226,6 +303,26 @@ public class ConfigLoader {
         return getString("speech_recognition.dashscope.model", "paraformer-v2");
     }
     
+    /**
+     * 获取语音识别的HTTP API地址
+     * 为空时使用SDK默认地址，可指向本地模拟服务进行测试
+     * 
+     * @return HTTP API地址
+     */
+    public String getSpeechBaseUrl() {
+        return getString("speech_recognition.dashscope.base_url", "");
+    }
+    
+    /**
+     * 获取实时语音识别的WebSocket API地址
+     * 为空时使用SDK默认地址，可指向本地模拟服务进行测试
+     * 
+     * @return WebSocket API地址
+     */
+    public String getSpeechWebsocketUrl() {
+        return getString("speech_recognition.dashscope.websocket_url", "");
+    }
+    
     /**
      * 获取语言提示列表
      * 
@@ -235,6 +332,190 @@ public class ConfigLoader {
         return getStringList("speech_recognition.dashscope.language_hints", 
                             List.of("zh", "ja", "en"));
     }
+
+    /**
+     * 获取音频接入方式
+     * oss、oss_presigned、local_http 或 realtime
+     *
+     * @return 音频接入方式
+     */
+    public String getSpeechAudioSource() {
+        return getString("speech_recognition.audio_source", "oss");
+    }
+
+    /**
+     * 获取OSS预签名URL的有效期（秒）
+     *
+     * @return 有效期（秒）
+     */
+    public int getSpeechPresignedUrlExpiration() {
+        return getInt("speech_recognition.presigned_url_expiration", 3600);
+    }
+
+    /**
+     * 获取本机音频HTTP服务的监听地址
+     *
+     * @return 监听地址
+     */
+    public String getLocalHttpBindAddress() {
+        return getString("speech_recognition.local_http.bind_address", "127.0.0.1");
+    }
+
+    /**
+     * 获取本机音频HTTP服务的端口（0 表示随机端口）
+     *
+     * @return 端口
+     */
+    public int getLocalHttpPort() {
+        return getInt("speech_recognition.local_http.port", 18080);
+    }
+
+    /**
+     * 获取识别服务访问本机音频HTTP服务时使用的地址
+     * 未配置时使用本机地址和实际监听端口
+     *
+     * @return 访问地址
+     */
+    public String getLocalHttpPublicBaseUrl() {
+        return getString("speech_recognition.local_http.public_base_url", "");
+    }
+
+    /**
+     * 获取实时语音识别模型名称
+     *
+     * @return 模型名称
+     */
+    public String getRealtimeSpeechModel() {
+        return getString("speech_recognition.realtime.model", "paraformer-realtime-v2");
+    }
+
+    /**
+     * 获取实时语音识别的音频采样率
+     *
+     * @return 采样率
+     */
+    public int getRealtimeSampleRate() {
+        return getInt("speech_recognition.realtime.sample_rate", 16000);
+    }
+
+    /**
+     * 获取实时语音识别等待结果的超时时间
+     * 音频发送完毕后，超过该时间没有收到任何识别结果时视为连接中断
+     *
+     * @return 超时时间（秒）
+     */
+    public int getRealtimeResultTimeoutSeconds() {
+        return getInt("speech_recognition.realtime.result_timeout_seconds", 120);
+    }
+
+    /**
+     * 是否启用分段并行识别
+     *
+     * @return 是否启用
+     */
+    public boolean isChunkedTranscriptionEnabled() {
+        return getBoolean("speech_recognition.chunking.enabled", false);
+    }
+
+    /**
+     * 获取分段识别的目标分段时长（秒）
+     *
+     * @return 分段时长（秒）
+     */
+    public int getChunkDurationSeconds() {
+        return getInt("speech_recognition.chunking.chunk_duration_seconds", 600);
+    }
+
+    /**
+     * 获取同时识别的分段数量
+     *
+     * @return 并发数
+     */
+    public int getChunkConcurrency() {
+        return getInt("speech_recognition.chunking.concurrency", 3);
+    }
+
+    /**
+     * 获取静音检测的音量阈值（dB），低于该音量视为静音
+     *
+     * @return 音量阈值（dB）
+     */
+    public double getSilenceNoiseDb() {
+        return getDouble("speech_recognition.silence.noise_db", -30.0);
+    }
+
+    /**
+     * 获取静音检测的最短静音时长（秒）
+     *
+     * @return 最短静音时长（秒）
+     */
+    public double getSilenceMinDuration() {
+        return getDouble("speech_recognition.silence.min_duration", 0.5);
+    }
+    
+    /**
+     * 是否启用音轨直通（音轨可直接识别时不转码）
+     *
+     * @return 是否启用
+     */
+    public boolean isPassthroughEnabled() {
+        return getBoolean("speech_recognition.passthrough.enabled", true);
+    }
+
+    /**
+     * 获取可直接识别的音频编码列表（ffprobe 的编码名称）
+     *
+     * @return 编码列表
+     */
+    public List<String> getPassthroughCodecs() {
+        return getStringList("speech_recognition.passthrough.codecs",
+                            List.of("aac", "mp3", "flac", "opus", "pcm_s16le"));
+    }
+
+    /**
+     * 获取可直接识别的最大声道数
+     *
+     * @return 最大声道数
+     */
+    public int getPassthroughMaxChannels() {
+        return getInt("speech_recognition.passthrough.max_channels", 2);
+    }
+
+    /**
+     * 获取可直接识别的最大码率（kb/s），超过时转码以减小上传的文件
+     *
+     * @return 最大码率（kb/s）
+     */
+    public int getPassthroughMaxBitRateKbps() {
+        return getInt("speech_recognition.passthrough.max_bit_rate_kbps", 320);
+    }
+    
+    /**
+     * 是否启用语音活动检测预处理（去除长静音后再识别）
+     *
+     * @return 是否启用
+     */
+    public boolean isVadEnabled() {
+        return getBoolean("speech_recognition.vad.enabled", false);
+    }
+
+    /**
+     * 获取语音活动检测去除的最短静音时长（秒）
+     *
+     * @return 最短静音时长（秒）
+     */
+    public double getVadMinSilenceSeconds() {
+        return getDouble("speech_recognition.vad.min_silence_seconds", 2.0);
+    }
+
+    /**
+     * 获取每段语音前后保留的时长（毫秒）
+     *
+     * @return 保留时长（毫秒）
+     */
+    public int getVadPaddingMs() {
+        return getInt("speech_recognition.vad.padding_ms", 300);
+    }
     
     /**
      * 是否启用调试模式
@@ -245,6 +526,154 @@ public class ConfigLoader {
         return getBoolean("application.debug_mode", false);
     }
     
+    /**
+     * 获取音频提取的超时时间（秒）
+     * 
+     * @return 超时时间（秒）
+     */
+    public int getExtractTimeoutSeconds() {
+        return getInt("application.extract_timeout_seconds", 1800);
+    }
+    
+    /**
+     * 获取临时文件目录
+     * 未配置时使用系统临时目录
+     * 
+     * @return 临时文件目录
+     */
+    public File getTempDir() {
+        String tempDir = getString("application.temp_dir", "");
+        if (tempDir == null || tempDir.trim().isEmpty()) {
+            tempDir = System.getProperty("java.io.tmpdir");
+        }
+        return new File(tempDir.trim());
+    }
+
+    /**
+     * 获取当前用户的持久缓存目录（存放需要跨启动复用、且不应被其他用户改动的文件，如FFmpeg）
+     * 未配置时使用用户主目录下的 .y7converter
+     * 
+     * @return 缓存目录
+     */
+    public File getCacheDir() {
+        String cacheDir = getString("application.cache_dir", "");
+        if (cacheDir == null || cacheDir.trim().isEmpty()) {
+            return new File(System.getProperty("user.home"), ".y7converter");
+        }
+        return new File(cacheDir.trim());
+    }
+    
+    // 批量处理相关配置的便捷方法
+    
+    /**
+     * 获取批量处理时同时处理的文件数量
+     * 
+     * @return 同时处理的文件数量
+     */
+    public int getBatchWorkers() {
+        return getInt("batch.workers", 4);
+    }
+    
+    /**
+     * 获取批量处理的输出目录
+     * 为空时输出到源文件所在目录
+     * 
+     * @return 输出目录
+     */
+    public String getBatchOutputDir() {
+        return getString("batch.output_dir", "");
+    }
+    
+    /**
+     * 批量处理时是否跳过已有输出文件的源文件
+     * 
+     * @return 是否跳过
+     */
+    public boolean isBatchSkipExisting() {
+        return getBoolean("batch.skip_existing", true);
+    }
+    
+    /**
+     * 获取处理阶段同时进行的数量上限
+     * 音频提取未配置（或为 0）时取 CPU 核数的一半
+     * 
+     * @param stage 阶段名称（extract、upload、recognition 或 translation）
+     * @return 并发数上限
+     */
+    public int getStageLimit(String stage) {
+        int limit = getInt("batch.stage_limits." + stage, 0);
+        if (limit > 0) {
+            return limit;
+        }
+        return "extract".equals(stage) ? Math.max(1, Runtime.getRuntime().availableProcessors() / 2) : 2;
+    }
+    
+    // 任务HTTP接口相关配置的便捷方法
+    
+    /**
+     * 启动图形界面时是否同时启动任务HTTP接口
+     * 
+     * @return 是否启用
+     */
+    public boolean isJobServerEnabled() {
+        return getBoolean("job_server.enabled", false);
+    }
+    
+    /**
+     * 获取任务HTTP接口的监听地址
+     * 
+     * @return 监听地址
+     */
+    public String getJobServerBindAddress() {
+        return getString("job_server.bind_address", "127.0.0.1");
+    }
+    
+    /**
+     * 获取任务HTTP接口的监听端口
+     * 
+     * @return 监听端口，0 表示随机端口
+     */
+    public int getJobServerPort() {
+        return getInt("job_server.port", 18090);
+    }
+    
+    /**
+     * 获取处理HTTP请求的线程数量
+     * 
+     * @return 线程数量
+     */
+    public int getJobServerThreads() {
+        return getInt("job_server.threads", 4);
+    }
+    
+    /**
+     * 获取未结束任务的数量上限，超出时拒绝新任务
+     * 
+     * @return 未结束任务的数量上限
+     */
+    public int getJobServerMaxPendingJobs() {
+        return getInt("job_server.max_pending_jobs", 100);
+    }
+    
+    /**
+     * 获取保留的已结束任务数量，超出时移除最早结束的任务
+     * 
+     * @return 保留的已结束任务数量
+     */
+    public int getJobServerMaxFinishedJobs() {
+        return getInt("job_server.max_finished_jobs", 1000);
+    }
+    
+    /**
+     * 获取任务HTTP接口的访问令牌
+     * 
+     * @return 访问令牌，为空时不要求令牌
+     */
+    public String getJobServerToken() {
+        String token = getString("job_server.token", "");
+        return token != null ? token.trim() : "";
+    }
+    
     // 字幕翻译相关配置的便捷方法
     
     /**
@@ -280,12 +709,98 @@ public class ConfigLoader {
     }
     
     /**
-     * 获取翻译API调用间隔（毫秒）
+     * 获取翻译并发数（同时在途的批次数量）
+     * 
+     * @return 翻译并发数
+     */
+    public int getTranslationConcurrency() {
+        return getInt("translation.dashscope.concurrency", 4);
+    }
+    
+    /**
+     * 获取翻译API地址
+     * 为空时使用SDK默认地址，可指向本地模拟服务进行测试
+     * 
+     * @return 翻译API地址
+     */
+    public String getTranslationBaseUrl() {
+        return getString("translation.dashscope.base_url", "");
+    }
+    
+    // 缓存相关配置的便捷方法
+    
+    /**
+     * 是否启用翻译记忆
+     * 
+     * @return 是否启用翻译记忆
+     */
+    public boolean isTranslationMemoryEnabled() {
+        return getBoolean("cache.translation_memory.enabled", true);
+    }
+    
+    /**
+     * 获取翻译记忆最大条目数
+     * 
+     * @return 最大条目数
+     */
+    public int getTranslationMemoryMaxEntries() {
+        return getInt("cache.translation_memory.max_entries", 100000);
+    }
+    
+    /**
+     * 是否启用字幕结果缓存
+     * 
+     * @return 是否启用字幕结果缓存
+     */
+    public boolean isSubtitleCacheEnabled() {
+        return getBoolean("cache.subtitle.enabled", true);
+    }
+    
+    /**
+     * 获取字幕结果缓存的容量上限（MB）
+     * 
+     * @return 容量上限
+     */
+    public int getSubtitleCacheMaxSizeMb() {
+        return getInt("cache.subtitle.max_size_mb", 200);
+    }
+    
+    // DashScope 限流相关配置的便捷方法
+    
+    /**
+     * 是否启用 DashScope 调用限流
+     * 
+     * @return 是否启用限流
+     */
+    public boolean isRateLimitEnabled() {
+        return getBoolean("rate_limit.enabled", true);
+    }
+    
+    /**
+     * 获取每秒请求数上限（0 表示不限制）
+     * 
+     * @return 每秒请求数上限
+     */
+    public double getRateLimitRequestsPerSecond() {
+        return getDouble("rate_limit.requests_per_second", 5.0);
+    }
+    
+    /**
+     * 获取每分钟Token数上限（0 表示不限制）
+     * 
+     * @return 每分钟Token数上限
+     */
+    public int getRateLimitTokensPerMinute() {
+        return getInt("rate_limit.tokens_per_minute", 0);
+    }
+    
+    /**
+     * 获取被限流后的最大重试次数
      * 
-     * @return API调用间隔
+     * @return 最大重试次数
      */
-    public int getTranslationApiDelay() {
-        return getInt("translation.dashscope.api_delay", 1000);
+    public int getRateLimitMaxRetries() {
+        return getInt("rate_limit.max_retries", 3);
     }
     
     /**
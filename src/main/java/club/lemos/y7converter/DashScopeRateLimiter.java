@@ -0,0 +1,296 @@
+package club.lemos.y7converter;
+
+import com.alibaba.dashscope.common.Status;
+import com.alibaba.dashscope.exception.ApiException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToIntFunction;
+
+/**
+ * DashScope 调用限流器
+ * 基于令牌桶同时限制每秒请求数和每分钟Token数，翻译与语音识别的所有调用共享同一个实例。
+ * 收到限流响应（HTTP 429）时自动降低请求速率并退避重试，调用成功后逐步恢复。
+ */
+public class DashScopeRateLimiter {
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final long NANOS_PER_MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    // 限流后的最低请求速率，以及每次成功调用后恢复的速率比例
+    private static final double MIN_REQUESTS_PER_SECOND = 0.1;
+    private static final double RECOVERY_RATIO = 0.05;
+
+    // 限流退避的初始时间与上限（毫秒）
+    private static final long BASE_BACKOFF_MS = 1000;
+    private static final long MAX_BACKOFF_MS = 30000;
+
+    private static DashScopeRateLimiter instance;
+
+    private final boolean enabled;
+    private final double maxRequestsPerSecond;
+    private final long tokensPerMinute;
+    private final int maxRetries;
+    private final Ticker ticker;
+
+    // 令牌桶状态，由 synchronized 方法保护
+    private double requestsPerSecond;
+    private double requestPermits;
+    private double tokenPermits;
+    private long lastRefillNanos;
+    private long pausedUntilNanos;
+
+    // 统计计数
+    private final AtomicLong totalCalls = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong throttledCalls = new AtomicLong();
+    private final AtomicLong rejectedCalls = new AtomicLong();
+
+    private DashScopeRateLimiter() {
+        this(ConfigLoader.getInstance().isRateLimitEnabled(),
+                ConfigLoader.getInstance().getRateLimitRequestsPerSecond(),
+                ConfigLoader.getInstance().getRateLimitTokensPerMinute(),
+                ConfigLoader.getInstance().getRateLimitMaxRetries(), Ticker.SYSTEM);
+    }
+
+    /**
+     * 创建限流器，时间由指定的计时器提供（测试时使用模拟时间）
+     */
+    DashScopeRateLimiter(boolean enabled, double maxRequestsPerSecond, long tokensPerMinute, int maxRetries,
+                         Ticker ticker) {
+        this.enabled = enabled;
+        this.maxRequestsPerSecond = Math.max(0, maxRequestsPerSecond);
+        this.tokensPerMinute = Math.max(0, tokensPerMinute);
+        this.maxRetries = Math.max(0, maxRetries);
+        this.ticker = ticker;
+
+        this.requestsPerSecond = this.maxRequestsPerSecond;
+        this.requestPermits = Math.max(1, this.maxRequestsPerSecond);
+        this.tokenPermits = this.tokensPerMinute;
+        this.lastRefillNanos = ticker.nanoTime();
+    }
+
+    /**
+     * 获取限流器实例（单例模式）
+     *
+     * @return 限流器实例
+     */
+    public static synchronized DashScopeRateLimiter getInstance() {
+        if (instance == null) {
+            instance = new DashScopeRateLimiter();
+        }
+        return instance;
+    }
+
+    /**
+     * 在限流控制下执行一次 DashScope 调用
+     *
+     * @param estimatedTokens 预计消耗的Token数（不计Token时传0）
+     * @param call            实际的API调用
+     * @return 调用结果
+     * @throws Exception 调用失败或重试次数耗尽时抛出
+     */
+    public <T> T execute(int estimatedTokens, DashScopeCall<T> call) throws Exception {
+        return execute(estimatedTokens, call, null);
+    }
+
+    /**
+     * 在限流控制下执行一次 DashScope 调用，并根据实际用量修正Token预算
+     *
+     * @param estimatedTokens 预计消耗的Token数（不计Token时传0）
+     * @param call            实际的API调用
+     * @param usedTokens      从调用结果中读取实际消耗的Token数，可为null
+     * @return 调用结果
+     * @throws Exception 调用失败或重试次数耗尽时抛出
+     */
+    public <T> T execute(int estimatedTokens, DashScopeCall<T> call, ToIntFunction<T> usedTokens) throws Exception {
+        if (!enabled) {
+            totalCalls.incrementAndGet();
+            return call.call();
+        }
+
+        for (int attempt = 0; ; attempt++) {
+            long waitNanos = reserve(estimatedTokens);
+            if (waitNanos > 0) {
+                totalWaitNanos.addAndGet(waitNanos);
+                ticker.sleep(waitNanos);
+            }
+
+            totalCalls.incrementAndGet();
+            try {
+                T result = call.call();
+                onSuccess(estimatedTokens, usedTokens != null && result != null ? usedTokens.applyAsInt(result) : -1);
+                return result;
+            } catch (ApiException e) {
+                if (!isThrottled(e)) {
+                    throw e;
+                }
+                throttledCalls.incrementAndGet();
+                if (attempt >= maxRetries) {
+                    rejectedCalls.incrementAndGet();
+                    throw e;
+                }
+                long backoffMs = Math.min(MAX_BACKOFF_MS, BASE_BACKOFF_MS << attempt);
+                onThrottled(backoffMs);
+                System.err.printf("DashScope 调用被限流，%d 毫秒后重试（第 %d/%d 次）\n", backoffMs, attempt + 1, maxRetries);
+            }
+        }
+    }
+
+    /**
+     * 预留一次调用所需的请求数与Token数
+     *
+     * @return 需要等待的纳秒数
+     */
+    private synchronized long reserve(int estimatedTokens) {
+        long now = ticker.nanoTime();
+        refill(now);
+
+        long waitNanos = Math.max(0, pausedUntilNanos - now);
+
+        if (requestsPerSecond > 0) {
+            if (requestPermits < 1) {
+                waitNanos = Math.max(waitNanos, (long) ((1 - requestPermits) / requestsPerSecond * NANOS_PER_SECOND));
+            }
+            requestPermits -= 1;
+        }
+
+        if (tokensPerMinute > 0 && estimatedTokens > 0) {
+            double cost = Math.min(estimatedTokens, tokensPerMinute);
+            if (tokenPermits < cost) {
+                waitNanos = Math.max(waitNanos, (long) ((cost - tokenPermits) / tokensPerMinute * NANOS_PER_MINUTE));
+            }
+            tokenPermits -= cost;
+        }
+
+        return waitNanos;
+    }
+
+    /**
+     * 按经过的时间补充令牌
+     */
+    private void refill(long now) {
+        long elapsed = now - lastRefillNanos;
+        if (elapsed <= 0) {
+            return;
+        }
+        lastRefillNanos = now;
+
+        if (requestsPerSecond > 0) {
+            double capacity = Math.max(1, requestsPerSecond);
+            requestPermits = Math.min(capacity, requestPermits + elapsed * requestsPerSecond / NANOS_PER_SECOND);
+        }
+        if (tokensPerMinute > 0) {
+            tokenPermits = Math.min(tokensPerMinute, tokenPermits + (double) elapsed * tokensPerMinute / NANOS_PER_MINUTE);
+        }
+    }
+
+    /**
+     * 调用成功：修正Token预算，并逐步恢复请求速率
+     */
+    private synchronized void onSuccess(int estimatedTokens, int actualTokens) {
+        if (tokensPerMinute > 0 && actualTokens >= 0) {
+            tokenPermits -= actualTokens - Math.min(estimatedTokens, tokensPerMinute);
+        }
+        if (maxRequestsPerSecond > 0 && requestsPerSecond < maxRequestsPerSecond) {
+            requestsPerSecond = Math.min(maxRequestsPerSecond,
+                    requestsPerSecond + maxRequestsPerSecond * RECOVERY_RATIO);
+        }
+    }
+
+    /**
+     * 调用被限流：速率减半，并在退避时间内暂停所有调用
+     */
+    private synchronized void onThrottled(long backoffMs) {
+        if (maxRequestsPerSecond > 0) {
+            requestsPerSecond = Math.max(MIN_REQUESTS_PER_SECOND, requestsPerSecond / 2);
+            requestPermits = Math.min(requestPermits, 0);
+        }
+        pausedUntilNanos = Math.max(pausedUntilNanos, ticker.nanoTime() + TimeUnit.MILLISECONDS.toNanos(backoffMs));
+    }
+
+    /**
+     * 判断异常是否为服务端限流（HTTP 429 或 Throttling 错误码）
+     */
+    private static boolean isThrottled(ApiException e) {
+        Status status = e.getStatus();
+        if (status == null) {
+            return false;
+        }
+        return status.getStatusCode() == 429 ||
+                (status.getCode() != null && status.getCode().startsWith("Throttling"));
+    }
+
+    /**
+     * 获取累计调用次数（含重试）
+     */
+    public long getTotalCalls() {
+        return totalCalls.get();
+    }
+
+    /**
+     * 获取累计等待时间（毫秒）
+     */
+    public long getTotalWaitMs() {
+        return TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.get());
+    }
+
+    /**
+     * 获取被服务端限流的调用次数
+     */
+    public long getThrottledCalls() {
+        return throttledCalls.get();
+    }
+
+    /**
+     * 获取重试耗尽后最终被拒绝的调用次数
+     */
+    public long getRejectedCalls() {
+        return rejectedCalls.get();
+    }
+
+    /**
+     * 获取当前生效的每秒请求数上限
+     */
+    public synchronized double getCurrentRequestsPerSecond() {
+        return requestsPerSecond;
+    }
+
+    /**
+     * 获取统计信息描述
+     */
+    public String getStatsSummary() {
+        return String.format("调用 %d 次，等待 %d 毫秒，被限流 %d 次，被拒绝 %d 次，当前速率 %.2f 次/秒",
+                getTotalCalls(), getTotalWaitMs(), getThrottledCalls(), getRejectedCalls(),
+                getCurrentRequestsPerSecond());
+    }
+
+    /**
+     * 限流使用的计时器
+     */
+    interface Ticker {
+        Ticker SYSTEM = new Ticker() {
+            @Override
+            public long nanoTime() {
+                return System.nanoTime();
+            }
+
+            @Override
+            public void sleep(long nanos) throws InterruptedException {
+                TimeUnit.NANOSECONDS.sleep(nanos);
+            }
+        };
+
+        long nanoTime();
+
+        void sleep(long nanos) throws InterruptedException;
+    }
+
+    /**
+     * DashScope API 调用
+     */
+    @FunctionalInterface
+    public interface DashScopeCall<T> {
+        T call() throws Exception;
+    }
+}
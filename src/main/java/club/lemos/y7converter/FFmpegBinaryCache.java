@@ -0,0 +1,274 @@
+package club.lemos.y7converter;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * FFmpeg 可执行文件的持久缓存
+ * 内嵌的 FFmpeg 按内容哈希安装到当前用户的缓存目录（ffmpeg/<哈希>/），多次启动共用同一份，
+ * 安装时先写入临时文件再原子移动，其他进程不会看到不完整的文件；
+ * 资源标识到哈希、以及系统 FFmpeg 的路径记录在索引文件中，再次启动时无需重新读取资源或逐个探测候选路径。
+ * 缓存目录仅当前用户可访问，复用已安装的文件前仍会重新校验其哈希，不会运行被替换过的文件。
+ */
+class FFmpegBinaryCache {
+
+    private static final String FFMPEG_DIR_NAME = "ffmpeg";
+    private static final String INDEX_FILE_NAME = "index.properties";
+    private static final String SYSTEM_PATH_KEY = "system.path";
+    private static final Set<PosixFilePermission> OWNER_ONLY = PosixFilePermissions.fromString("rwx------");
+
+    private final File cacheDir;
+    private final File indexFile;
+
+    // 本进程正在安装的临时文件，退出时清理
+    private volatile File installingFile;
+
+    FFmpegBinaryCache() {
+        this.cacheDir = new File(ConfigLoader.getInstance().getCacheDir(), FFMPEG_DIR_NAME);
+        this.indexFile = new File(cacheDir, INDEX_FILE_NAME);
+    }
+
+    /**
+     * 获取内嵌资源在缓存中的可执行文件，不存在时安装
+     *
+     * @param resourceUrl    内嵌资源地址
+     * @param executableName 可执行文件名
+     * @return 缓存中的可执行文件
+     * @throws IOException 如果安装失败
+     */
+    synchronized File install(URL resourceUrl, String executableName) throws IOException {
+        // 资源标识（地址、大小、修改时间）未变时直接使用记录的哈希，不必读取整个资源
+        String resourceStamp = getResourceStamp(resourceUrl);
+        Properties index = loadIndex();
+        String hash = index.getProperty(resourceStamp);
+        if (hash != null) {
+            File cached = new File(new File(cacheDir, hash), executableName);
+            if (isVerified(cached, hash)) {
+                return cached;
+            }
+        }
+
+        hash = hash(resourceUrl.openStream());
+        File targetDir = new File(cacheDir, hash);
+        File target = new File(targetDir, executableName);
+        if (!isVerified(target, hash)) {
+            installAtomically(resourceUrl, target, hash);
+        }
+
+        // 同一资源的旧记录（程序升级前）不再需要，旧版本的文件一并删除
+        String resourcePrefix = resourceUrl + "|";
+        for (String key : index.stringPropertyNames()) {
+            String oldHash = index.getProperty(key);
+            if (key.startsWith(resourcePrefix) && !oldHash.equals(hash)) {
+                deleteHashDir(oldHash);
+            }
+        }
+        index.keySet().removeIf(key -> key.toString().startsWith(resourcePrefix));
+        index.setProperty(resourceStamp, hash);
+        storeIndex(index);
+        return target;
+    }
+
+    /**
+     * 获取上次记录的系统 FFmpeg 路径
+     *
+     * @return 仍然存在且可执行的路径，没有记录时返回null
+     */
+    synchronized String getSystemPath() {
+        String path = loadIndex().getProperty(SYSTEM_PATH_KEY);
+        return path != null && isUsable(new File(path)) ? path : null;
+    }
+
+    /**
+     * 记录系统 FFmpeg 的路径
+     *
+     * @param path 可执行文件的绝对路径
+     */
+    synchronized void setSystemPath(String path) {
+        try {
+            Properties index = loadIndex();
+            index.setProperty(SYSTEM_PATH_KEY, path);
+            storeIndex(index);
+        } catch (IOException e) {
+            System.err.println("警告: 保存FFmpeg路径失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 删除本进程未完成安装的临时文件
+     */
+    void cleanup() {
+        File file = installingFile;
+        if (file != null) {
+            file.delete();
+        }
+    }
+
+    /**
+     * 写入临时文件、设置可执行权限并校验后，原子移动到目标位置
+     */
+    private void installAtomically(URL resourceUrl, File target, String hash) throws IOException {
+        File targetDir = target.getParentFile();
+        createPrivateDirectories(targetDir);
+
+        Path tempFile = Files.createTempFile(targetDir.toPath(), target.getName(), ".tmp");
+        installingFile = tempFile.toFile();
+        try {
+            MessageDigest digest = HashUtils.newSha256();
+            try (InputStream inputStream = new DigestInputStream(resourceUrl.openStream(), digest)) {
+                Files.copy(inputStream, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            if (!HashUtils.toHex(digest.digest()).equals(hash)) {
+                throw new IOException("FFmpeg资源在安装过程中发生变化: " + resourceUrl);
+            }
+            File file = tempFile.toFile();
+            file.setExecutable(true);
+            if (!file.canExecute()) {
+                throw new IOException("无法设置FFmpeg的可执行权限: " + file.getAbsolutePath());
+            }
+
+            try {
+                Files.move(tempFile, target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                // 其他进程已安装了相同内容（Windows 上目标文件可能正在运行，无法替换）
+                if (!isVerified(target, hash)) {
+                    throw e;
+                }
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+            installingFile = null;
+        }
+
+        if (ConfigLoader.getInstance().isDebugMode()) {
+            System.out.println("FFmpeg 已安装到缓存: " + target.getAbsolutePath());
+        }
+    }
+
+    /**
+     * 文件存在且可执行；缺少可执行权限时尝试补上
+     */
+    private static boolean isUsable(File file) {
+        if (!file.isFile() || file.length() == 0) {
+            return false;
+        }
+        return file.canExecute() || file.setExecutable(true) && file.canExecute();
+    }
+
+    /**
+     * 文件可用且内容哈希与缓存目录名一致
+     */
+    private static boolean isVerified(File file, String hash) {
+        if (!isUsable(file)) {
+            return false;
+        }
+        try {
+            return hash(new FileInputStream(file)).equals(hash);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 删除旧版本的安装目录，文件正在被其他进程运行而无法删除时保留
+     */
+    private void deleteHashDir(String hash) {
+        // 只删除哈希命名的目录，索引内容异常时不会删到缓存目录之外
+        if (!hash.matches("[0-9a-f]{64}")) {
+            return;
+        }
+        File[] files = new File(cacheDir, hash).listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        new File(cacheDir, hash).delete();
+    }
+
+    /**
+     * 创建缓存目录并限制为仅当前用户可访问（支持POSIX权限的系统上）
+     * 目录属于其他用户时无法修改权限，安装随之失败
+     */
+    private void createPrivateDirectories(File dir) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("无法创建FFmpeg缓存目录: " + dir.getAbsolutePath());
+        }
+        for (File current = dir; current != null; current = current.getParentFile()) {
+            Path path = current.toPath();
+            if (Files.getFileAttributeView(path, PosixFileAttributeView.class) != null) {
+                Files.setPosixFilePermissions(path, OWNER_ONLY);
+            }
+            // 缓存根目录之上（如用户主目录）不做修改
+            if (current.equals(cacheDir.getParentFile())) {
+                break;
+            }
+        }
+    }
+
+    private static String getResourceStamp(URL resourceUrl) throws IOException {
+        URLConnection connection = resourceUrl.openConnection();
+        return resourceUrl + "|" + connection.getContentLengthLong() + "|" + connection.getLastModified();
+    }
+
+    private static String hash(InputStream content) throws IOException {
+        MessageDigest digest = HashUtils.newSha256();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream inputStream = new DigestInputStream(content, digest)) {
+            while (inputStream.read(buffer) != -1) {
+                // 读取过程中计算哈希
+            }
+        }
+        return HashUtils.toHex(digest.digest());
+    }
+
+    private Properties loadIndex() {
+        Properties index = new Properties();
+        if (indexFile.isFile()) {
+            try (Reader reader = Files.newBufferedReader(indexFile.toPath(), StandardCharsets.UTF_8)) {
+                index.load(reader);
+            } catch (IOException | IllegalArgumentException e) {
+                // 索引损坏时重新生成
+            }
+        }
+        return index;
+    }
+
+    private void storeIndex(Properties index) throws IOException {
+        createPrivateDirectories(cacheDir);
+        Path tempFile = Files.createTempFile(cacheDir.toPath(), INDEX_FILE_NAME, ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+                index.store(writer, "FFmpeg binary cache index");
+            }
+            try {
+                Files.move(tempFile, indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+}
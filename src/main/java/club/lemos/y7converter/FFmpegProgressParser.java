@@ -0,0 +1,104 @@
+package club.lemos.y7converter;
+
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * FFmpeg 进度解析器
+ * 逐行解析 FFmpeg 在 -progress 模式下输出的 key=value 进度块，每个进度块结束时发布一次进度；
+ * 未指定媒体总时长时，从输入信息中的 Duration 行读取。
+ */
+class FFmpegProgressParser implements Consumer<String> {
+
+    private static final Pattern DURATION_PATTERN =
+            Pattern.compile("Duration: (\\d+):(\\d{2}):(\\d{2}(?:\\.\\d+)?)");
+
+    private final String stage;
+    private final String inputName;
+    private final ProgressListener listener;
+    private final long startNanos = System.nanoTime();
+
+    private long totalMs;
+    private long processedMs = -1;
+    private long totalSize = -1;
+    private double speed;
+    private volatile ProgressInfo lastProgress;
+
+    /**
+     * @param stage     阶段名称
+     * @param inputName 输入文件名
+     * @param totalMs   输出的媒体总时长（毫秒），未知时传-1
+     * @param listener  单次操作的进度监听器，可为null
+     */
+    FFmpegProgressParser(String stage, String inputName, long totalMs, ProgressListener listener) {
+        this.stage = stage;
+        this.inputName = inputName;
+        this.totalMs = totalMs;
+        this.listener = listener;
+    }
+
+    @Override
+    public void accept(String line) {
+        int separator = line.indexOf('=');
+        if (separator <= 0) {
+            if (totalMs < 0) {
+                Matcher matcher = DURATION_PATTERN.matcher(line);
+                if (matcher.find()) {
+                    totalMs = Long.parseLong(matcher.group(1)) * 3600000 +
+                            Long.parseLong(matcher.group(2)) * 60000 +
+                            Math.round(Double.parseDouble(matcher.group(3)) * 1000);
+                }
+            }
+            return;
+        }
+
+        String key = line.substring(0, separator).trim();
+        String value = line.substring(separator + 1).trim();
+        try {
+            switch (key) {
+                case "out_time_us":
+                case "out_time_ms":
+                    // 两者的单位都是微秒（out_time_ms 的命名是 FFmpeg 的历史遗留）
+                    if (!value.startsWith("N/A")) {
+                        processedMs = Math.max(0, Long.parseLong(value) / 1000);
+                    }
+                    break;
+                case "total_size":
+                    if (!value.startsWith("N/A")) {
+                        totalSize = Long.parseLong(value);
+                    }
+                    break;
+                case "speed":
+                    if (value.endsWith("x")) {
+                        speed = Double.parseDouble(value.substring(0, value.length() - 1));
+                    }
+                    break;
+                case "progress":
+                    publish("end".equals(value));
+                    break;
+                default:
+                    break;
+            }
+        } catch (NumberFormatException e) {
+            // 忽略无法解析的值
+        }
+    }
+
+    private void publish(boolean finished) {
+        long elapsedMs = (System.nanoTime() - startNanos) / 1_000_000;
+        // 速度未知时按已耗时计算
+        double currentSpeed = speed > 0 ? speed : (elapsedMs > 0 && processedMs > 0 ? (double) processedMs / elapsedMs : 0);
+        ProgressInfo progress = new ProgressInfo(stage, inputName, processedMs, totalMs, currentSpeed,
+                totalSize, elapsedMs, finished);
+        lastProgress = progress;
+        ProgressMonitor.publish(listener, progress);
+    }
+
+    /**
+     * 获取最后一次发布的进度，尚未发布时返回null
+     */
+    ProgressInfo getLastProgress() {
+        return lastProgress;
+    }
+}
@@ -2,12 +2,11 @@ package club.lemos.y7converter;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
+import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
 
 /**
  * FFmpeg工具类
@@ -15,18 +14,20 @@ import java.util.List;
  */
 public class FFmpegUtil {
 
-    private static final String TEMP_DIR_PREFIX = "y7converter_ffmpeg_";
-    private static File extractedFFmpegPath;
+    private static volatile FFmpegBinaryCache binaryCache;
+    private static String ffmpegPath;
+    private static String ffprobePath;
 
     /**
-     * 获取或提取FFmpeg可执行文件路径
+     * 获取FFmpeg可执行文件路径
+     * 内嵌的FFmpeg安装在持久缓存中，多次启动共用；解析结果在进程内缓存
      *
      * @return FFmpeg可执行文件的绝对路径
      * @throws IOException 如果提取失败
      */
-    public static String getFFmpegPath() throws IOException {
-        if (extractedFFmpegPath != null && extractedFFmpegPath.exists()) {
-            return extractedFFmpegPath.getAbsolutePath();
+    public static synchronized String getFFmpegPath() throws IOException {
+        if (ffmpegPath != null) {
+            return ffmpegPath;
         }
 
         String osName = System.getProperty("os.name").toLowerCase();
@@ -44,40 +45,53 @@ public class FFmpegUtil {
             executableName = "ffmpeg";
         }
 
-        // 尝试从资源文件提取FFmpeg
-        try (InputStream resourceStream = FFmpegUtil.class.getResourceAsStream(resourcePath)) {
-            if (resourceStream == null) {
-                // 如果没有内嵌的FFmpeg，尝试使用系统FFmpeg
-                return getSystemFFmpegPath();
-            }
-
-            // 创建临时目录
-            Path tempDir = Files.createTempDirectory(TEMP_DIR_PREFIX);
-            tempDir.toFile().deleteOnExit();
+        URL resourceUrl = FFmpegUtil.class.getResource(resourcePath);
+        if (resourceUrl == null) {
+            // 如果没有内嵌的FFmpeg，尝试使用系统FFmpeg
+            ffmpegPath = getSystemFFmpegPath();
+        } else {
+            ffmpegPath = getBinaryCache().install(resourceUrl, executableName).getAbsolutePath();
+        }
+        return ffmpegPath;
+    }
 
-            // 提取FFmpeg到临时目录
-            Path ffmpegFile = tempDir.resolve(executableName);
-            Files.copy(resourceStream, ffmpegFile, StandardCopyOption.REPLACE_EXISTING);
+    private static synchronized FFmpegBinaryCache getBinaryCache() {
+        if (binaryCache == null) {
+            binaryCache = new FFmpegBinaryCache();
+        }
+        return binaryCache;
+    }
 
-            // 设置可执行权限（Unix系统）
-            if (!osName.contains("win")) {
-                ffmpegFile.toFile().setExecutable(true);
+    /**
+     * 在后台线程中提前解析FFmpeg路径（安装内嵌的FFmpeg或探测系统FFmpeg），
+     * 程序启动时调用，第一个任务无需等待
+     */
+    public static void prewarm() {
+        Thread thread = new Thread(() -> {
+            try {
+                getFFmpegPath();
+            } catch (IOException e) {
+                // 真正使用时再报告错误
+                System.err.println("警告: 预先准备FFmpeg失败: " + e.getMessage());
             }
-
-            extractedFFmpegPath = ffmpegFile.toFile();
-            extractedFFmpegPath.deleteOnExit();
-
-            return extractedFFmpegPath.getAbsolutePath();
-        }
+        }, "ffmpeg-prewarm");
+        thread.setDaemon(true);
+        thread.start();
     }
 
     /**
      * 尝试获取系统安装的FFmpeg路径
+     * 上次找到的路径仍然可执行时直接使用，否则逐个探测候选路径并记录结果
      *
      * @return 系统FFmpeg路径，如果未找到则抛出异常
      * @throws IOException 如果系统中没有安装FFmpeg
      */
     private static String getSystemFFmpegPath() throws IOException {
+        String rememberedPath = getBinaryCache().getSystemPath();
+        if (rememberedPath != null) {
+            return rememberedPath;
+        }
+
         String osName = System.getProperty("os.name").toLowerCase();
         List<String> possiblePaths = new ArrayList<>();
 
@@ -98,6 +112,11 @@ public class FFmpegUtil {
                 Process process = pb.start();
                 int exitCode = process.waitFor();
                 if (exitCode == 0) {
+                    // 记录绝对路径，下次启动只需检查文件是否仍可执行
+                    File resolved = resolveOnPath(path);
+                    if (resolved != null) {
+                        getBinaryCache().setSystemPath(resolved.getAbsolutePath());
+                    }
                     return path;
                 }
             } catch (Exception e) {
@@ -108,6 +127,66 @@ public class FFmpegUtil {
         throw new IOException("未找到FFmpeg！请确保FFmpeg已安装或将FFmpeg二进制文件放入resources/ffmpeg目录中。");
     }
 
+    /**
+     * 将命令名解析为 PATH 中的绝对路径
+     *
+     * @param command 命令名或路径
+     * @return 可执行文件，无法解析时返回null
+     */
+    private static File resolveOnPath(String command) {
+        File file = new File(command);
+        if (file.isAbsolute()) {
+            return file.canExecute() ? file : null;
+        }
+        String pathEnv = System.getenv("PATH");
+        if (pathEnv == null) {
+            return null;
+        }
+        for (String dir : pathEnv.split(File.pathSeparator)) {
+            File candidate = new File(dir, command);
+            if (candidate.isFile() && candidate.canExecute()) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 获取 FFprobe 可执行文件路径
+     * 优先使用与 FFmpeg 同目录的 ffprobe，其次使用系统中的 ffprobe
+     *
+     * @return FFprobe可执行文件路径
+     * @throws IOException 如果没有找到 ffprobe
+     */
+    public static synchronized String getFFprobePath() throws IOException {
+        if (ffprobePath != null) {
+            return ffprobePath;
+        }
+
+        boolean windows = System.getProperty("os.name").toLowerCase().contains("win");
+        String executableName = windows ? "ffprobe.exe" : "ffprobe";
+        List<String> possiblePaths = new ArrayList<>();
+
+        File ffmpegFile = new File(getFFmpegPath());
+        if (ffmpegFile.getParentFile() != null) {
+            possiblePaths.add(new File(ffmpegFile.getParentFile(), executableName).getPath());
+        }
+        possiblePaths.add(executableName);
+
+        for (String path : possiblePaths) {
+            try {
+                if (ProcessRunner.run(List.of(path, "-version"), null, 10).getExitCode() == 0) {
+                    ffprobePath = path;
+                    return path;
+                }
+            } catch (IOException e) {
+                // 继续尝试下一个路径
+            }
+        }
+
+        throw new IOException("未找到FFprobe");
+    }
+
     /**
      * 构建音频提取命令
      *
@@ -117,15 +196,34 @@ public class FFmpegUtil {
      * @return 命令列表
      */
     public static List<String> buildAudioExtractCommand(String ffmpegPath, File inputFile, File outputFile) {
+        return buildAudioExtractCommand(ffmpegPath, inputFile, outputFile, null);
+    }
+
+    /**
+     * 构建带音频滤镜的音频提取命令
+     *
+     * @param ffmpegPath  FFmpeg可执行文件路径
+     * @param inputFile   输入视频文件
+     * @param outputFile  输出音频文件
+     * @param audioFilter 音频滤镜（如只保留语音区间的滤镜），为null时不使用
+     * @return 命令列表
+     */
+    public static List<String> buildAudioExtractCommand(String ffmpegPath, File inputFile, File outputFile,
+                                                        String audioFilter) {
         List<String> command = new ArrayList<>();
 
         command.add(ffmpegPath);
+        addProgressOptions(command);
         command.add("-i");
         command.add(inputFile.getAbsolutePath());
 
         // 提取音频，转换为ACC格式（语音识别常用格式）
         // 不包含视频流
         command.add("-vn");
+        if (audioFilter != null) {
+            command.add("-af");
+            command.add(audioFilter);
+        }
         // 指定音频编码器为 AAC
         command.add("-acodec");
         command.add("aac");  // 使用 AAC 编码器
@@ -147,20 +245,220 @@ public class FFmpegUtil {
     }
 
     /**
-     * 清理临时文件
+     * 构建音轨复制命令
+     * 不转码，只把第一条音轨复制到新的封装中，输出格式由输出文件的扩展名决定
+     *
+     * @param ffmpegPath FFmpeg可执行文件路径
+     * @param inputFile  输入视频文件
+     * @param outputFile 输出音频文件
+     * @return 命令列表
+     */
+    public static List<String> buildAudioCopyCommand(String ffmpegPath, File inputFile, File outputFile) {
+        List<String> command = new ArrayList<>();
+
+        command.add(ffmpegPath);
+        addProgressOptions(command);
+        command.add("-nostdin");
+        command.add("-i");
+        command.add(inputFile.getAbsolutePath());
+
+        command.add("-vn");
+        command.add("-map");
+        command.add("0:a:0");
+        // 直接复制音频数据
+        command.add("-c:a");
+        command.add("copy");
+        command.add("-y");
+
+        command.add(outputFile.getAbsolutePath());
+
+        return command;
+    }
+
+    /**
+     * 构建流式音频提取命令
+     * 编码参数与 {@link #buildAudioExtractCommand} 相同，输出为可流式读取的 ADTS 格式，
+     * 写入标准输出（pipe:1），由调用方边读取边上传
+     *
+     * @param ffmpegPath FFmpeg可执行文件路径
+     * @param inputFile  输入视频文件
+     * @return 命令列表
+     */
+    public static List<String> buildAudioStreamCommand(String ffmpegPath, File inputFile) {
+        return buildAudioStreamCommand(ffmpegPath, inputFile, null);
+    }
+
+    /**
+     * 构建带音频滤镜的流式音频提取命令
+     *
+     * @param ffmpegPath  FFmpeg可执行文件路径
+     * @param inputFile   输入视频文件
+     * @param audioFilter 音频滤镜（如只保留语音区间的滤镜），为null时不使用
+     * @return 命令列表
+     */
+    public static List<String> buildAudioStreamCommand(String ffmpegPath, File inputFile, String audioFilter) {
+        List<String> command = new ArrayList<>();
+
+        command.add(ffmpegPath);
+        addProgressOptions(command);
+        // 不读取标准输入，避免进程等待输入
+        command.add("-nostdin");
+        command.add("-i");
+        command.add(inputFile.getAbsolutePath());
+
+        command.add("-vn");
+        if (audioFilter != null) {
+            command.add("-af");
+            command.add(audioFilter);
+        }
+        command.add("-acodec");
+        command.add("aac");
+        command.add("-ar");
+        command.add("16000");
+        command.add("-ac");
+        command.add("1");
+        command.add("-b:a");
+        command.add("64k");
+
+        // ADTS 封装的 AAC 无需回写文件头，可以直接写入管道
+        command.add("-f");
+        command.add("adts");
+        command.add("pipe:1");
+
+        return command;
+    }
+
+    /**
+     * 构建静音检测命令
+     * 只解码音频并丢弃输出，silencedetect 的检测结果与输入时长写入错误输出
+     *
+     * @param ffmpegPath         FFmpeg可执行文件路径
+     * @param inputFile          输入视频或音频文件
+     * @param noiseDb            静音判定阈值（dB）
+     * @param minSilenceSeconds  最短静音时长（秒）
+     * @return 命令列表
+     */
+    public static List<String> buildSilenceDetectCommand(String ffmpegPath, File inputFile,
+                                                         double noiseDb, double minSilenceSeconds) {
+        List<String> command = new ArrayList<>();
+
+        command.add(ffmpegPath);
+        addProgressOptions(command);
+        command.add("-nostdin");
+        command.add("-i");
+        command.add(inputFile.getAbsolutePath());
+
+        command.add("-vn");
+        command.add("-af");
+        command.add(String.format(Locale.ROOT, "silencedetect=noise=%.1fdB:d=%.3f", noiseDb, minSilenceSeconds));
+        // 不生成输出文件
+        command.add("-f");
+        command.add("null");
+        command.add("-");
+
+        return command;
+    }
+
+    /**
+     * 构建分段音频提取命令
+     * 编码参数与 {@link #buildAudioExtractCommand} 相同，只提取指定时间段
+     *
+     * @param ffmpegPath FFmpeg可执行文件路径
+     * @param inputFile  输入视频或音频文件
+     * @param outputFile 输出音频文件
+     * @param startMs    起始时间（毫秒）
+     * @param durationMs 时长（毫秒）
+     * @return 命令列表
+     */
+    public static List<String> buildAudioChunkExtractCommand(String ffmpegPath, File inputFile, File outputFile,
+                                                             long startMs, long durationMs) {
+        List<String> command = new ArrayList<>();
+
+        command.add(ffmpegPath);
+        addProgressOptions(command);
+        command.add("-nostdin");
+        // 放在 -i 之前可快速定位；转码时仍精确到采样
+        command.add("-ss");
+        command.add(formatSeconds(startMs));
+        command.add("-t");
+        command.add(formatSeconds(durationMs));
+        command.add("-i");
+        command.add(inputFile.getAbsolutePath());
+
+        command.add("-vn");
+        command.add("-acodec");
+        command.add("aac");
+        command.add("-ar");
+        command.add("16000");
+        command.add("-ac");
+        command.add("1");
+        command.add("-b:a");
+        command.add("64k");
+        command.add("-y");
+
+        command.add(outputFile.getAbsolutePath());
+
+        return command;
+    }
+
+    /**
+     * 执行 FFmpeg 命令并返回错误输出（FFmpeg 的日志写入错误输出）
+     * 输出较多时只返回末尾部分
+     *
+     * @param command        命令列表
+     * @param timeoutSeconds 超时时间（秒）
+     * @return 错误输出内容
+     * @throws IOException 如果命令执行失败或超时
+     */
+    public static String runCommand(List<String> command, long timeoutSeconds) throws IOException {
+        return runCommand(command, timeoutSeconds, null);
+    }
+
+    /**
+     * 执行 FFmpeg 命令，错误输出逐行交给监听器处理
+     *
+     * @param command           命令列表
+     * @param timeoutSeconds    超时时间（秒）
+     * @param errorLineListener 错误输出的逐行监听器，可为null
+     * @return 错误输出内容（末尾部分）
+     * @throws IOException 如果命令执行失败或超时
+     */
+    public static String runCommand(List<String> command, long timeoutSeconds,
+                                    Consumer<String> errorLineListener) throws IOException {
+        ProcessRunner.Result result = ProcessRunner.start(command, null, timeoutSeconds, false, errorLineListener)
+                .waitFor();
+        if (result.getExitCode() != 0) {
+            throw new IOException("FFmpeg 执行失败: " + result.getError());
+        }
+        return result.getError();
+    }
+
+    /**
+     * 添加进度输出参数：进度以 key=value 形式写入错误输出，并关闭默认的统计行
+     * 进度写入错误输出而不是标准输出，流式提取时标准输出用于传输音频
+     */
+    private static void addProgressOptions(List<String> command) {
+        command.add("-progress");
+        command.add("pipe:2");
+        command.add("-nostats");
+    }
+
+    /**
+     * 将毫秒转换为 FFmpeg 时间参数（秒，保留三位小数）
+     */
+    private static String formatSeconds(long milliseconds) {
+        return String.format(Locale.ROOT, "%.3f", milliseconds / 1000.0);
+    }
+
+    /**
+     * 清理本进程未完成安装的临时文件
+     * 缓存中已安装的FFmpeg保留，供下次启动使用
      */
     public static void cleanup() {
-        if (extractedFFmpegPath != null && extractedFFmpegPath.exists()) {
-            try {
-                extractedFFmpegPath.delete();
-                // 尝试删除临时目录
-                File tempDir = extractedFFmpegPath.getParentFile();
-                if (tempDir != null && tempDir.getName().startsWith(TEMP_DIR_PREFIX)) {
-                    tempDir.delete();
-                }
-            } catch (Exception e) {
-                // 忽略清理错误
-            }
+        // 不获取类锁，后台安装进行中也不阻塞退出
+        FFmpegBinaryCache cache = binaryCache;
+        if (cache != null) {
+            cache.cleanup();
         }
     }
-}
\ No newline at end of file
+}
@@ -1,16 +1,38 @@
 package club.lemos.y7converter;
 
-import com.aliyun.oss.ClientBuilderConfiguration;
 import com.aliyun.oss.OSS;
-import com.aliyun.oss.OSSClientBuilder;
+import com.aliyun.oss.OSSException;
+import com.aliyun.oss.model.AbortMultipartUploadRequest;
+import com.aliyun.oss.model.CompleteMultipartUploadRequest;
+import com.aliyun.oss.model.InitiateMultipartUploadRequest;
+import com.aliyun.oss.model.PartETag;
 import com.aliyun.oss.model.PutObjectRequest;
 import com.aliyun.oss.model.PutObjectResult;
+import com.aliyun.oss.model.UploadPartRequest;
 
-import java.io.File;
-import java.io.IOException;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 文件上传服务类
@@ -18,49 +40,34 @@ import java.util.UUID;
  */
 public class FileUploadService {
 
+    // OSS要求除最后一个分片外，每个分片不小于100KB
+    private static final int MIN_PART_SIZE = 100 * 1024;
+    // 流式上传时同时在途的分片数量
+    private static final int STREAM_PARTS_IN_FLIGHT = 2;
+
+    private static final String UPLOAD_CHECKPOINT_DIR_NAME = "y7converter_upload";
+    private static final String UPLOAD_CHECKPOINT_SUFFIX = ".json";
+
+    // 超过该时间未更新的上传检查点视为废弃（上传进程已意外退出），清理时一并取消其分片上传，
+    // 避免未完成的分片长期占用（并计费）OSS存储空间
+    private static final long STALE_UPLOAD_CHECKPOINT_AGE_MS = TimeUnit.DAYS.toMillis(1);
+
+    private static final Gson GSON = new Gson();
+
     private final ConfigLoader config;
-    private OSS ossClient;
+    private final OSS ossClient;
 
     public FileUploadService() {
-        this.config = ConfigLoader.getInstance();
-        // 初始化 OSS 客户端
-        initOssClient();
+        // 使用共享的 OSS 客户端，复用连接池
+        this(OssClientHolder.getClient());
     }
 
     /**
-     * 初始化阿里云OSS客户端
+     * 使用指定的OSS客户端（测试时传入模拟客户端）
      */
-    private void initOssClient() {
-        String accessKeyId = config.getOssAccessKeyId();
-        String accessKeySecret = config.getOssAccessKeySecret();
-        String endpoint = config.getOssEndpoint();
-
-        if (accessKeyId.isEmpty() || accessKeySecret.isEmpty()) {
-            throw new IllegalStateException("OSS Access Key ID 或 Access Key Secret 未配置");
-        }
-
-        if (endpoint.isEmpty()) {
-            throw new IllegalStateException("OSS Endpoint 未配置");
-        }
-
-        // 创建ClientBuilderConfiguration配置类
-        ClientBuilderConfiguration conf = new ClientBuilderConfiguration();
-        conf.setConnectionTimeout(config.getOssConnectionTimeout());
-        conf.setSocketTimeout(config.getOssSocketTimeout());
-        conf.setMaxConnections(config.getOssMaxConnections());
-        conf.setSupportCname(false);
-        conf.setProtocol(config.isOssUseHttps() ?
-                com.aliyun.oss.common.comm.Protocol.HTTPS :
-                com.aliyun.oss.common.comm.Protocol.HTTP);
-
-        // 创建OSSClient实例
-        this.ossClient = new OSSClientBuilder().build(endpoint, accessKeyId, accessKeySecret, conf);
-
-        if (config.isDebugMode()) {
-            System.out.println("OSS 客户端初始化成功");
-            System.out.println("Endpoint: " + endpoint);
-            System.out.println("Bucket: " + config.getOssBucketName());
-        }
+    FileUploadService(OSS ossClient) {
+        this.config = ConfigLoader.getInstance();
+        this.ossClient = ossClient;
     }
 
     /**
@@ -80,8 +87,13 @@ public class FileUploadService {
             throw new IllegalStateException("OSS Bucket 名称未配置");
         }
 
+        // 大文件使用并行分片上传，失败后可从检查点继续
+        if (file.length() >= config.getOssMultipartThresholdMb() * 1024L * 1024L) {
+            return uploadFileMultipart(file, bucketName);
+        }
+
         // 生成对象键名
-        String objectKey = generateObjectKey(file);
+        String objectKey = generateObjectKey(file.getName());
 
         if (config.isDebugMode()) {
             System.out.println("OSS上传文件: " + file.getAbsolutePath());
@@ -123,13 +135,368 @@ public class FileUploadService {
     }
 
 
+    /**
+     * 以并行分片的方式上传文件到阿里云OSS
+     * 各分片在有界线程池中并行上传，每完成一个分片就写入本地检查点，重试时只上传未完成的分片；
+     * 重试用尽或被中断时取消本次分片上传并删除检查点，不在OSS留下未完成的分片。
+     * 只有进程在上传途中意外退出时才保留检查点，下次上传同一文件（路径、大小、修改时间不变）时继续
+     *
+     * @param file       要上传的文件
+     * @param bucketName Bucket 名称
+     * @return 上传结果对象
+     * @throws IOException 如果上传失败
+     */
+    private UploadResult uploadFileMultipart(File file, String bucketName) throws IOException {
+        long partSize = Math.max(MIN_PART_SIZE, config.getOssPartSizeMb() * 1024L * 1024L);
+        int partCount = (int) ((file.length() + partSize - 1) / partSize);
+        int retries = Math.max(0, config.getOssUploadRetries());
+
+        File checkpointFile = getUploadCheckpointFile(file, bucketName, partSize);
+        UploadCheckpoint checkpoint = loadUploadCheckpoint(checkpointFile);
+        if (checkpoint == null) {
+            checkpoint = new UploadCheckpoint();
+            checkpoint.bucketName = bucketName;
+            checkpoint.objectKey = generateObjectKey(file.getName());
+            checkpoint.uploadId = ossClient.initiateMultipartUpload(
+                    new InitiateMultipartUploadRequest(bucketName, checkpoint.objectKey)).getUploadId();
+            saveUploadCheckpoint(checkpointFile, checkpoint);
+        } else {
+            System.out.println("发现上传检查点，已完成 " + checkpoint.parts.size() + "/" + partCount + " 个分片，继续上传");
+        }
+
+        if (config.isDebugMode()) {
+            System.out.println("OSS分片上传文件: " + file.getAbsolutePath());
+            System.out.println("Bucket: " + bucketName);
+            System.out.println("Object Key: " + checkpoint.objectKey);
+            System.out.println("文件大小: " + file.length() + " 字节，分片数: " + partCount);
+        }
+
+        int concurrency = Math.max(1, Math.min(config.getOssUploadConcurrency(), partCount));
+        AtomicInteger threadNumber = new AtomicInteger(1);
+        ExecutorService uploadExecutor = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "oss-part-upload-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        boolean completed = false;
+        try {
+            for (int attempt = 0; ; attempt++) {
+                try {
+                    uploadRemainingParts(file, bucketName, partSize, partCount, checkpoint, checkpointFile, uploadExecutor);
+                    break;
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof OSSException && "NoSuchUpload".equals(((OSSException) cause).getErrorCode())) {
+                        // 分片上传任务已失效（如已过期），检查点不再可用
+                        throw new IOException("OSS分片上传任务已失效，请重新上传", cause);
+                    }
+                    if (attempt >= retries) {
+                        throw new IOException("OSS分片上传失败: " + cause.getMessage(), cause);
+                    }
+                    System.err.printf("分片上传失败: %s，正在从检查点重试（第 %d/%d 次）\n",
+                            cause.getMessage(), attempt + 1, retries);
+                }
+            }
+
+            List<PartETag> partETags = new ArrayList<>();
+            for (Map.Entry<Integer, String> part : new TreeMap<>(checkpoint.parts).entrySet()) {
+                partETags.add(new PartETag(part.getKey(), part.getValue()));
+            }
+            ossClient.completeMultipartUpload(
+                    new CompleteMultipartUploadRequest(bucketName, checkpoint.objectKey, checkpoint.uploadId, partETags));
+            completed = true;
+            checkpointFile.delete();
+
+            if (config.isDebugMode()) {
+                System.out.println("OSS分片上传成功，共 " + partCount + " 个分片");
+            }
+
+            UploadResult uploadResult = new UploadResult();
+            uploadResult.setStatus("success");
+            uploadResult.setMessage("文件上传成功");
+            uploadResult.setFilename(checkpoint.objectKey);
+            uploadResult.setSize(file.length());
+            uploadResult.setOriginalFile(file);
+            uploadResult.setFileUrl(buildOssFileUrl(checkpoint.objectKey));
+
+            return uploadResult;
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("OSS分片上传被中断", e);
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("OSS分片上传失败: " + e.getMessage(), e);
+        } finally {
+            uploadExecutor.shutdownNow();
+            if (!completed) {
+                // 上传的文件通常是随后删除的临时文件，保留检查点也无法再继续，取消分片上传
+                abortMultipartUpload(bucketName, checkpoint.objectKey, checkpoint.uploadId);
+                checkpointFile.delete();
+            }
+        }
+    }
+
+    /**
+     * 并行上传检查点中尚未完成的分片
+     */
+    private void uploadRemainingParts(File file, String bucketName, long partSize, int partCount,
+                                      UploadCheckpoint checkpoint, File checkpointFile,
+                                      ExecutorService uploadExecutor) throws InterruptedException, ExecutionException {
+        List<Future<?>> futures = new ArrayList<>();
+        for (int partNumber = 1; partNumber <= partCount; partNumber++) {
+            if (checkpoint.parts.containsKey(partNumber)) {
+                continue;
+            }
+            int currentPart = partNumber;
+            long offset = (partNumber - 1) * partSize;
+            long currentPartSize = Math.min(partSize, file.length() - offset);
+
+            futures.add(uploadExecutor.submit(() -> {
+                try (InputStream inputStream = new FileInputStream(file)) {
+                    inputStream.skipNBytes(offset);
+                    UploadPartRequest uploadPartRequest = new UploadPartRequest(bucketName, checkpoint.objectKey,
+                            checkpoint.uploadId, currentPart, inputStream, currentPartSize);
+                    String eTag = ossClient.uploadPart(uploadPartRequest).getPartETag().getETag();
+
+                    synchronized (checkpoint) {
+                        checkpoint.parts.put(currentPart, eTag);
+                        saveUploadCheckpoint(checkpointFile, checkpoint);
+                    }
+                }
+                return null;
+            }));
+        }
+
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            // 某个分片失败时取消其余分片，已完成的分片保留在检查点中
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * 获取文件对应的上传检查点文件
+     * 检查点由文件路径、大小、修改时间、Bucket 和分片大小确定
+     */
+    private File getUploadCheckpointFile(File file, String bucketName, long partSize) throws IOException {
+        File checkpointDir = new File(config.getTempDir(), UPLOAD_CHECKPOINT_DIR_NAME);
+        if (!checkpointDir.isDirectory() && !checkpointDir.mkdirs()) {
+            throw new IOException("无法创建上传检查点目录: " + checkpointDir.getAbsolutePath());
+        }
+        deleteStaleUploadCheckpoints(checkpointDir, bucketName);
+
+        String key = HashUtils.sha256Hex(file.getAbsolutePath(), String.valueOf(file.length()),
+                String.valueOf(file.lastModified()), bucketName, String.valueOf(partSize));
+        return new File(checkpointDir, key + UPLOAD_CHECKPOINT_SUFFIX);
+    }
+
+    /**
+     * 删除过期的上传检查点，并取消其对应的分片上传
+     *
+     * @param bucketName 检查点未记录 Bucket 时使用的 Bucket 名称
+     */
+    private void deleteStaleUploadCheckpoints(File checkpointDir, String bucketName) {
+        File[] checkpointFiles = checkpointDir.listFiles((dir, name) -> name.endsWith(UPLOAD_CHECKPOINT_SUFFIX));
+        if (checkpointFiles == null) {
+            return;
+        }
+        long threshold = System.currentTimeMillis() - STALE_UPLOAD_CHECKPOINT_AGE_MS;
+        for (File checkpointFile : checkpointFiles) {
+            if (checkpointFile.lastModified() >= threshold) {
+                continue;
+            }
+            UploadCheckpoint checkpoint = loadUploadCheckpoint(checkpointFile);
+            if (checkpoint != null) {
+                abortMultipartUpload(checkpoint.bucketName != null ? checkpoint.bucketName : bucketName,
+                        checkpoint.objectKey, checkpoint.uploadId);
+            }
+            checkpointFile.delete();
+        }
+    }
+
+    /**
+     * 读取上传检查点
+     *
+     * @return 上传检查点，不存在或无法解析时返回null
+     */
+    private UploadCheckpoint loadUploadCheckpoint(File checkpointFile) {
+        if (!checkpointFile.isFile()) {
+            return null;
+        }
+        try (Reader reader = new InputStreamReader(new FileInputStream(checkpointFile), StandardCharsets.UTF_8)) {
+            UploadCheckpoint checkpoint = GSON.fromJson(reader, UploadCheckpoint.class);
+            if (checkpoint == null || checkpoint.uploadId == null || checkpoint.objectKey == null) {
+                return null;
+            }
+            if (checkpoint.parts == null) {
+                checkpoint.parts = new HashMap<>();
+            }
+            return checkpoint;
+        } catch (IOException | JsonParseException e) {
+            System.err.println("警告: 忽略无法读取的上传检查点: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 保存上传检查点（先写临时文件再原子替换）
+     */
+    private void saveUploadCheckpoint(File checkpointFile, UploadCheckpoint checkpoint) throws IOException {
+        File tempFile = new File(checkpointFile.getParentFile(), checkpointFile.getName() + ".tmp");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(tempFile), StandardCharsets.UTF_8)) {
+            GSON.toJson(checkpoint, writer);
+        }
+        Files.move(tempFile.toPath(), checkpointFile.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 以分片上传的方式将数据流上传到阿里云OSS
+     * 边读取边上传，适用于长度未知的数据流（如FFmpeg的标准输出）；
+     * 读取下一个分片的同时上传前一个分片，上传失败时取消本次分片上传
+     *
+     * @param inputStream 数据流
+     * @param fileName    文件名（用于生成对象键名）
+     * @return 上传结果对象
+     * @throws IOException 如果读取或上传失败
+     */
+    public UploadResult uploadStream(InputStream inputStream, String fileName) throws IOException {
+        String bucketName = config.getOssBucketName();
+        if (bucketName.isEmpty()) {
+            throw new IllegalStateException("OSS Bucket 名称未配置");
+        }
+
+        String objectKey = generateObjectKey(fileName);
+        int partSize = Math.max(MIN_PART_SIZE, config.getOssStreamPartSizeKb() * 1024);
+
+        if (config.isDebugMode()) {
+            System.out.println("OSS流式上传: " + fileName);
+            System.out.println("Bucket: " + bucketName);
+            System.out.println("Object Key: " + objectKey);
+            System.out.println("分片大小: " + partSize + " 字节");
+        }
+
+        String uploadId = null;
+        ExecutorService uploadExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "oss-stream-upload");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            uploadId = ossClient.initiateMultipartUpload(
+                    new InitiateMultipartUploadRequest(bucketName, objectKey)).getUploadId();
+
+            List<PartETag> partETags = new ArrayList<>();
+            Deque<Future<PartETag>> pendingParts = new ArrayDeque<>();
+            long totalSize = 0;
+            int partNumber = 1;
+
+            while (true) {
+                byte[] buffer = new byte[partSize];
+                int length = readFully(inputStream, buffer);
+                if (length == 0 && partNumber > 1) {
+                    break;
+                }
+
+                // 最多保留两个在途分片，限制内存占用
+                while (pendingParts.size() >= STREAM_PARTS_IN_FLIGHT) {
+                    partETags.add(pendingParts.removeFirst().get());
+                }
+
+                UploadPartRequest uploadPartRequest = new UploadPartRequest(bucketName, objectKey, uploadId,
+                        partNumber, new ByteArrayInputStream(buffer, 0, length), length);
+                pendingParts.addLast(uploadExecutor.submit(
+                        () -> ossClient.uploadPart(uploadPartRequest).getPartETag()));
+
+                totalSize += length;
+                partNumber++;
+
+                if (length < partSize) {
+                    break;
+                }
+            }
+            while (!pendingParts.isEmpty()) {
+                partETags.add(pendingParts.removeFirst().get());
+            }
+
+            if (totalSize == 0) {
+                throw new IOException("数据流为空");
+            }
+
+            ossClient.completeMultipartUpload(
+                    new CompleteMultipartUploadRequest(bucketName, objectKey, uploadId, partETags));
+
+            if (config.isDebugMode()) {
+                System.out.println("OSS流式上传成功，共 " + partETags.size() + " 个分片，" + totalSize + " 字节");
+            }
+
+            UploadResult uploadResult = new UploadResult();
+            uploadResult.setStatus("success");
+            uploadResult.setMessage("文件上传成功");
+            uploadResult.setFilename(objectKey);
+            uploadResult.setSize(totalSize);
+            uploadResult.setFileUrl(buildOssFileUrl(objectKey));
+
+            return uploadResult;
+
+        } catch (Exception e) {
+            if (uploadId != null) {
+                abortMultipartUpload(bucketName, objectKey, uploadId);
+            }
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+            throw new IOException("OSS流式上传失败: " + cause.getMessage(), cause);
+        } finally {
+            uploadExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * 从数据流读取数据直到填满缓冲区或流结束
+     *
+     * @return 实际读取的字节数
+     */
+    private static int readFully(InputStream inputStream, byte[] buffer) throws IOException {
+        int total = 0;
+        while (total < buffer.length) {
+            int read = inputStream.read(buffer, total, buffer.length - total);
+            if (read == -1) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    /**
+     * 取消分片上传，清理已上传的分片
+     */
+    private void abortMultipartUpload(String bucketName, String objectKey, String uploadId) {
+        try {
+            ossClient.abortMultipartUpload(new AbortMultipartUploadRequest(bucketName, objectKey, uploadId));
+        } catch (Exception e) {
+            System.err.println("取消OSS分片上传时发生错误: " + e.getMessage());
+        }
+    }
+
     /**
      * 生成OSS对象键名
      *
-     * @param file 文件对象
+     * @param originalFileName 原文件名
      * @return 对象键名
      */
-    private String generateObjectKey(File file) {
+    private String generateObjectKey(String originalFileName) {
         String prefix = config.getOssObjectKeyPrefix();
         if (!prefix.endsWith("/") && !prefix.isEmpty()) {
             prefix += "/";
@@ -140,7 +507,7 @@ public class FileUploadService {
         String datePath = dateFormat.format(new Date());
 
         // 生成唯一文件名：UUID_原文件名
-        String fileName = file.getName();
+        String fileName = originalFileName;
         String fileExtension = "";
         int lastDotIndex = fileName.lastIndexOf('.');
         if (lastDotIndex > 0) {
@@ -171,9 +538,26 @@ public class FileUploadService {
         return String.format("%s://%s.%s/%s", protocol, bucketName, endpointHost, objectKey);
     }
 
+    /**
+     * 为已上传的文件生成预签名访问URL
+     * Bucket 为私有时，识别服务可通过该URL在有效期内读取文件
+     *
+     * @param uploadResult      上传结果对象
+     * @param expirationSeconds 有效期（秒）
+     * @return 预签名URL
+     */
+    public String generatePresignedUrl(UploadResult uploadResult, int expirationSeconds) {
+        if (uploadResult == null || !uploadResult.isSuccess()) {
+            throw new IllegalArgumentException("上传结果无效，无法生成预签名URL");
+        }
+        Date expiration = new Date(System.currentTimeMillis() + Math.max(60, expirationSeconds) * 1000L);
+        return ossClient.generatePresignedUrl(config.getOssBucketName(), uploadResult.getFilename(), expiration)
+                .toString();
+    }
+
     /**
      * 从OSS删除已上传的文件
-     * 
+     *
      * @param objectKey OSS对象键名
      * @return 是否删除成功
      */
@@ -231,20 +615,13 @@ public class FileUploadService {
     }
 
     /**
-     * 关闭文件上传服务，释放资源
-     * 主要用于关闭OSS客户端连接
+     * 分片上传检查点
      */
-    public void close() {
-        if (ossClient != null) {
-            try {
-                ossClient.shutdown();
-                if (config.isDebugMode()) {
-                    System.out.println("OSS 客户端已关闭");
-                }
-            } catch (Exception e) {
-                System.err.println("关闭OSS客户端时发生错误: " + e.getMessage());
-            }
-        }
+    private static class UploadCheckpoint {
+        String bucketName;
+        String objectKey;
+        String uploadId;
+        Map<Integer, String> parts = new HashMap<>();
     }
 
     /**
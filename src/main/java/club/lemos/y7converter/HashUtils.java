@@ -0,0 +1,106 @@
+package club.lemos.y7converter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * 哈希工具类
+ * 用于生成缓存、检查点等文件的键名
+ */
+public class HashUtils {
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    // 超过该大小的文件采用抽样哈希
+    private static final long FULL_HASH_LIMIT = 64L * 1024 * 1024;
+    // 抽样哈希的样本数量与每个样本的大小
+    private static final int SAMPLE_COUNT = 16;
+    private static final int SAMPLE_SIZE = 1024 * 1024;
+
+    /**
+     * 计算多个字符串拼接后的 SHA-256 值
+     * 各部分之间使用不可见分隔符，避免 ("ab", "c") 与 ("a", "bc") 产生相同结果
+     *
+     * @param parts 参与计算的字符串
+     * @return 十六进制 SHA-256 字符串
+     */
+    public static String sha256Hex(String... parts) {
+        MessageDigest digest = newSha256();
+        for (String part : parts) {
+            digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        return toHex(digest.digest());
+    }
+
+    /**
+     * 计算文件内容的哈希值
+     * 小文件对全部内容做流式哈希；大文件（数GB的视频）在头、尾及中间均匀抽取若干样本，
+     * 连同文件大小一起计算哈希，只需读取少量数据
+     *
+     * @param file 文件
+     * @return 十六进制 SHA-256 字符串
+     * @throws IOException 如果读取文件失败
+     */
+    public static String fileContentHash(File file) throws IOException {
+        MessageDigest digest = newSha256();
+        long length = file.length();
+        digest.update(String.valueOf(length).getBytes(StandardCharsets.UTF_8));
+
+        if (length <= FULL_HASH_LIMIT) {
+            byte[] buffer = new byte[64 * 1024];
+            try (InputStream inputStream = Files.newInputStream(file.toPath())) {
+                int read;
+                while ((read = inputStream.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                }
+            }
+        } else {
+            byte[] sample = new byte[SAMPLE_SIZE];
+            long step = (length - SAMPLE_SIZE) / (SAMPLE_COUNT - 1);
+            try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+                for (int i = 0; i < SAMPLE_COUNT; i++) {
+                    randomAccessFile.seek(i * step);
+                    randomAccessFile.readFully(sample);
+                    digest.update(sample);
+                }
+            }
+        }
+
+        return toHex(digest.digest());
+    }
+
+    /**
+     * 创建 SHA-256 摘要实例
+     *
+     * @return 摘要实例
+     */
+    public static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("当前运行环境不支持 SHA-256", e);
+        }
+    }
+
+    /**
+     * 将字节数组转换为十六进制字符串
+     *
+     * @param bytes 字节数组
+     * @return 十六进制字符串
+     */
+    public static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,792 @@
+package club.lemos.y7converter;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 批量任务调度器
+ * 接收多个文件或文件夹，每个文件作为一个任务排队处理；同时处理的文件数量有上限，
+ * 各处理阶段再由 {@link StageLimiter} 分别限制并发，不同文件的不同阶段可以同时进行。
+ * 输出先写入临时文件，成功后再移动到输出位置，失败或取消的任务不会留下不完整的字幕。
+ */
+public class JobScheduler {
+
+    private static final String PARTIAL_SUFFIX = ".part";
+
+    /**
+     * 任务状态
+     */
+    public enum JobStatus {
+        QUEUED("排队中"),
+        RUNNING("处理中"),
+        SUCCEEDED("已完成"),
+        SKIPPED("已跳过"),
+        FAILED("失败"),
+        CANCELLED("已取消");
+
+        private final String description;
+
+        JobStatus(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        /**
+         * 是否已结束
+         */
+        public boolean isFinished() {
+            return this != QUEUED && this != RUNNING;
+        }
+    }
+
+    /**
+     * 任务的执行方式，与 {@link CommandExecutor#execute(int, File, File, File, ProgressListener)} 相同
+     */
+    @FunctionalInterface
+    interface CommandRunner {
+        CommandResult execute(int action, File sourceFile, File destFile, File translatedFile,
+                              ProgressListener progressListener);
+    }
+
+    /**
+     * 任务状态变化监听器
+     */
+    @FunctionalInterface
+    public interface JobListener {
+        /**
+         * 任务状态或进度变化时调用（在处理线程中回调）
+         *
+         * @param job 任务
+         */
+        void onJobUpdate(Job job);
+    }
+
+    private final ExecutorService executor;
+    private final CommandRunner commandRunner;
+    private final File outputDir;
+    private final boolean skipExisting;
+    private final JobListener listener;
+    private final List<Job> jobs = new CopyOnWriteArrayList<>();
+    private final Map<Long, Job> jobsById = new ConcurrentHashMap<>();
+    // 已分配的默认输出位置（输出文件 -> 源文件），未移除的任务一直占用
+    private final Map<String, String> claimedOutputs = new HashMap<>();
+    private final AtomicLong nextJobId = new AtomicLong(1);
+
+    /**
+     * 按配置文件创建调度器
+     *
+     * @param listener 任务状态变化监听器，可为null
+     */
+    public JobScheduler(JobListener listener) {
+        this(ConfigLoader.getInstance().getBatchWorkers(), getConfiguredOutputDir(),
+                ConfigLoader.getInstance().isBatchSkipExisting(), listener);
+    }
+
+    /**
+     * 创建调度器
+     *
+     * @param workers      同时处理的文件数量
+     * @param outputDir    输出目录，为null时输出到源文件所在目录
+     * @param skipExisting 已有输出文件时是否跳过
+     * @param listener     任务状态变化监听器，可为null
+     */
+    public JobScheduler(int workers, File outputDir, boolean skipExisting, JobListener listener) {
+        this(workers, outputDir, skipExisting, listener, CommandExecutor::execute);
+    }
+
+    /**
+     * 创建调度器，任务由指定的执行方式处理（测试时使用模拟实现）
+     */
+    JobScheduler(int workers, File outputDir, boolean skipExisting, JobListener listener,
+                 CommandRunner commandRunner) {
+        this.commandRunner = commandRunner;
+        AtomicInteger threadNumber = new AtomicInteger(1);
+        this.executor = Executors.newFixedThreadPool(Math.max(1, workers), r -> {
+            Thread thread = new Thread(r, "batch-job-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.outputDir = outputDir;
+        this.skipExisting = skipExisting;
+        this.listener = listener;
+    }
+
+    /**
+     * 展开文件与文件夹，得到操作适用的全部文件
+     * 文件夹递归查找，忽略隐藏文件；结果按路径排序
+     *
+     * @param action       操作类型
+     * @param filesOrDirs  文件或文件夹
+     * @return 适用的文件
+     */
+    public static List<File> collectFiles(int action, List<File> filesOrDirs) {
+        List<File> result = new ArrayList<>();
+        for (File file : filesOrDirs) {
+            if (file.isDirectory()) {
+                List<File> found = new ArrayList<>();
+                collectFromDirectory(action, file, found);
+                found.sort(Comparator.comparing(File::getAbsolutePath));
+                result.addAll(found);
+            } else if (file.isFile()) {
+                // 明确选择的文件不按类型过滤
+                result.add(file);
+            }
+        }
+        return result;
+    }
+
+    private static void collectFromDirectory(int action, File dir, List<File> found) {
+        File[] children = dir.listFiles();
+        if (children == null) {
+            return;
+        }
+        for (File child : children) {
+            if (child.isHidden()) {
+                continue;
+            }
+            if (child.isDirectory()) {
+                collectFromDirectory(action, child, found);
+            } else if (isApplicable(action, child)) {
+                found.add(child);
+            }
+        }
+    }
+
+    /**
+     * 获取命令行与HTTP接口中使用的操作名称
+     *
+     * @param action 操作类型
+     * @return 操作名称（generate、translate 或 generate_translate）
+     */
+    public static String getActionName(int action) {
+        switch (action) {
+            case CommandActions.TRANSLATE_SUBTITLE:
+                return "translate";
+            case CommandActions.GENERATE_AND_TRANSLATE:
+                return "generate_translate";
+            default:
+                return "generate";
+        }
+    }
+
+    /**
+     * 根据操作名称获取操作类型
+     *
+     * @param name 操作名称（generate、translate 或 generate_translate）
+     * @return 操作类型，名称无效时返回-1
+     */
+    public static int parseActionName(String name) {
+        for (int action : new int[]{CommandActions.GENERATE_SUBTITLE, CommandActions.TRANSLATE_SUBTITLE,
+                CommandActions.GENERATE_AND_TRANSLATE}) {
+            if (getActionName(action).equals(name)) {
+                return action;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 文件是否适用于操作
+     */
+    public static boolean isApplicable(int action, File file) {
+        if (action == CommandActions.TRANSLATE_SUBTITLE) {
+            // 文件夹中已翻译的字幕（如 a.en.srt）不再翻译
+            return FileNameUtils.isSubtitleFile(file) && !isTranslatedOutput(file);
+        }
+        return FileNameUtils.isVideoFile(file) || FileNameUtils.isAudioFile(file);
+    }
+
+    private static boolean isTranslatedOutput(File file) {
+        String baseName = FileNameUtils.getBaseName(file);
+        String langCode = FileNameUtils.getLanguageCode(ConfigLoader.getInstance().getDefaultTargetLanguage());
+        return baseName.endsWith("_translated") || (langCode != null && baseName.endsWith("." + langCode));
+    }
+
+    /**
+     * 提交文件与文件夹中的全部适用文件
+     *
+     * @param action      操作类型
+     * @param filesOrDirs 文件或文件夹
+     * @return 提交的任务
+     */
+    public List<Job> submitAll(int action, List<File> filesOrDirs) {
+        List<Job> submitted = new ArrayList<>();
+        for (File file : collectFiles(action, filesOrDirs)) {
+            submitted.add(submit(action, file));
+        }
+        return submitted;
+    }
+
+    /**
+     * 提交一个文件，输出到默认位置
+     *
+     * @param action     操作类型
+     * @param sourceFile 源文件
+     * @return 任务
+     */
+    public Job submit(int action, File sourceFile) {
+        return submit(action, sourceFile, false);
+    }
+
+    /**
+     * 提交一个文件，输出到默认位置
+     * 同一源文件再次提交时使用同一个输出位置
+     *
+     * @param action          操作类型
+     * @param sourceFile      源文件
+     * @param replaceExisting 是否替换已有的输出（如源文件内容有变化时），为false时按配置跳过已有输出的文件
+     * @return 任务
+     */
+    public Job submit(int action, File sourceFile, boolean replaceExisting) {
+        return submit(action, sourceFile, getDefaultOutputFile(action, sourceFile), replaceExisting);
+    }
+
+    /**
+     * 提交一个文件
+     *
+     * @param action     操作类型
+     * @param sourceFile 源文件
+     * @param destFile   输出文件
+     * @return 任务
+     */
+    public Job submit(int action, File sourceFile, File destFile) {
+        return submit(action, sourceFile, destFile, false);
+    }
+
+    private Job submit(int action, File sourceFile, File destFile, boolean replaceExisting) {
+        File translatedFile = action == CommandActions.GENERATE_AND_TRANSLATE
+                ? CommandExecutor.getDefaultTranslatedFile(destFile) : null;
+        Job job = new Job(this, nextJobId.getAndIncrement(), action, sourceFile, destFile, translatedFile);
+        jobs.add(job);
+        jobsById.put(job.id, job);
+        notifyListener(job);
+
+        if (skipExisting && !replaceExisting && destFile.exists() && (translatedFile == null || translatedFile.exists())) {
+            job.finish(JobStatus.SKIPPED, null, "输出文件已存在: " + destFile.getAbsolutePath());
+            notifyListener(job);
+            job.signalDone();
+            return job;
+        }
+
+        job.future = executor.submit(() -> runJob(job));
+        return job;
+    }
+
+    /**
+     * 获取任务
+     *
+     * @param id 任务编号
+     * @return 任务，不存在时返回null
+     */
+    public Job getJob(long id) {
+        return jobsById.get(id);
+    }
+
+    /**
+     * 获取全部任务（按提交顺序）
+     */
+    public List<Job> getJobs() {
+        return List.copyOf(jobs);
+    }
+
+    /**
+     * 获取尚未结束（排队或处理中）的任务数量
+     */
+    public int getPendingCount() {
+        int count = 0;
+        for (Job job : jobs) {
+            if (!job.getStatus().isFinished()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 移除已结束的任务，不再保留其状态与结果
+     *
+     * @param id 任务编号
+     * @return 是否已移除；任务不存在或尚未结束时返回false
+     */
+    public boolean removeJob(long id) {
+        Job job = jobsById.get(id);
+        if (job == null || !job.getStatus().isFinished()) {
+            return false;
+        }
+        jobs.remove(job);
+        jobsById.remove(id);
+        synchronized (claimedOutputs) {
+            // 同一源文件的其他任务仍使用该输出位置时保留
+            if (jobs.stream().noneMatch(other -> other.destFile.equals(job.destFile))) {
+                claimedOutputs.remove(job.destFile.getAbsolutePath());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 只保留最近结束的若干个任务，较早结束的任务依次移除
+     * 长时间运行的服务用于限制保留的任务数量
+     *
+     * @param maxFinished 保留的已结束任务数量
+     */
+    public void pruneFinished(int maxFinished) {
+        List<Job> finished = new ArrayList<>();
+        for (Job job : jobs) {
+            if (job.getStatus().isFinished()) {
+                finished.add(job);
+            }
+        }
+        for (int i = 0; i < finished.size() - maxFinished; i++) {
+            removeJob(finished.get(i).id);
+        }
+    }
+
+    /**
+     * 等待当前提交的全部任务结束
+     *
+     * @throws InterruptedException 如果等待被中断
+     */
+    public void awaitAll() throws InterruptedException {
+        for (Job job : jobs) {
+            job.await();
+        }
+    }
+
+    /**
+     * 取消全部未结束的任务
+     * 排队中的任务不再执行，处理中的任务被中断，其 FFmpeg 进程随之结束
+     */
+    public void cancelAll() {
+        for (Job job : jobs) {
+            job.cancel();
+        }
+    }
+
+    /**
+     * 停止接收任务并结束处理线程
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 获取各状态的任务数量汇总，如"共 10 个：已完成 8，失败 1，已跳过 1"
+     */
+    public String getSummary() {
+        int[] counts = new int[JobStatus.values().length];
+        for (Job job : jobs) {
+            counts[job.getStatus().ordinal()]++;
+        }
+        StringBuilder summary = new StringBuilder("共 " + jobs.size() + " 个");
+        String separator = "：";
+        for (JobStatus status : JobStatus.values()) {
+            if (counts[status.ordinal()] > 0) {
+                summary.append(separator).append(status.getDescription()).append(' ').append(counts[status.ordinal()]);
+                separator = "，";
+            }
+        }
+        return summary.toString();
+    }
+
+    /**
+     * 获取每个任务一行的处理报告（状态、排队时间、处理时间与各阶段耗时）
+     */
+    public String getReport() {
+        StringBuilder report = new StringBuilder();
+        for (Job job : jobs) {
+            report.append(job.getTimingSummary()).append('\n');
+        }
+        return report.append(getSummary()).toString();
+    }
+
+    private void runJob(Job job) {
+        if (!job.start()) {
+            return;
+        }
+        notifyListener(job);
+
+        File partialFile = getPartialFile(job.destFile);
+        File partialTranslatedFile = job.translatedFile != null ? getPartialFile(job.translatedFile) : null;
+        JobStatus finalStatus;
+        CommandResult result = null;
+        String error = null;
+        try {
+            File parent = job.destFile.getParentFile();
+            if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+                throw new RuntimeException("无法创建输出目录: " + parent.getAbsolutePath());
+            }
+
+            result = commandRunner.execute(job.action, job.sourceFile, partialFile,
+                    partialTranslatedFile, progress -> {
+                        job.progress = progress;
+                        notifyListener(job);
+                    });
+            Files.move(partialFile.toPath(), job.destFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            if (partialTranslatedFile != null) {
+                Files.move(partialTranslatedFile.toPath(), job.translatedFile.toPath(),
+                        StandardCopyOption.REPLACE_EXISTING);
+            }
+            finalStatus = JobStatus.SUCCEEDED;
+        } catch (CancellationException e) {
+            finalStatus = JobStatus.CANCELLED;
+            error = e.getMessage();
+        } catch (Exception e) {
+            // 取消时中断可能以其他异常的形式出现
+            boolean cancelled = job.cancelRequested || Thread.currentThread().isInterrupted();
+            finalStatus = cancelled ? JobStatus.CANCELLED : JobStatus.FAILED;
+            error = e.getMessage();
+        } finally {
+            job.detachThread();
+            partialFile.delete();
+            if (partialTranslatedFile != null) {
+                partialTranslatedFile.delete();
+            }
+        }
+
+        // 临时文件清理完、监听器收到最终状态后才唤醒等待的线程，等待方随即退出进程时不会遗漏
+        if (job.finish(finalStatus, finalStatus == JobStatus.SUCCEEDED ? result : null, error)) {
+            System.out.println(job.getTimingSummary());
+            notifyListener(job);
+        }
+        job.signalDone();
+    }
+
+    private static File getPartialFile(File file) {
+        return new File(file.getParentFile(), file.getName() + PARTIAL_SUFFIX);
+    }
+
+    private void notifyListener(Job job) {
+        if (listener == null) {
+            return;
+        }
+        try {
+            listener.onJobUpdate(job);
+        } catch (RuntimeException e) {
+            System.err.println("警告: 任务状态监听器执行失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 获取默认输出文件；不同源文件的输出重名时依次加上序号，同一源文件始终使用同一个输出文件
+     */
+    private File getDefaultOutputFile(int action, File sourceFile) {
+        String fileName = action == CommandActions.TRANSLATE_SUBTITLE
+                ? FileNameUtils.generateDefaultTranslatedFileName(sourceFile)
+                : FileNameUtils.generateSubtitleFileName(sourceFile);
+        File dir = outputDir != null ? outputDir : sourceFile.getAbsoluteFile().getParentFile();
+
+        String sourcePath = sourceFile.getAbsolutePath();
+        synchronized (claimedOutputs) {
+            File destFile = new File(dir, fileName);
+            String baseName = FileNameUtils.getBaseName(sourceFile);
+            String suffix = fileName.startsWith(baseName) ? fileName.substring(baseName.length()) : "";
+            baseName = fileName.substring(0, fileName.length() - suffix.length());
+            for (int i = 2; ; i++) {
+                String claimedBy = claimedOutputs.putIfAbsent(destFile.getAbsolutePath(), sourcePath);
+                if (claimedBy == null || claimedBy.equals(sourcePath)) {
+                    return destFile;
+                }
+                destFile = new File(dir, baseName + "_" + i + suffix);
+            }
+        }
+    }
+
+    /**
+     * 获取输出目录，为null时输出到源文件所在目录
+     */
+    public File getOutputDir() {
+        return outputDir;
+    }
+
+    private static File getConfiguredOutputDir() {
+        String outputDir = ConfigLoader.getInstance().getBatchOutputDir();
+        return outputDir == null || outputDir.trim().isEmpty() ? null : new File(outputDir.trim());
+    }
+
+    /**
+     * 批量任务
+     */
+    public static class Job {
+        private final long id;
+        private final int action;
+        private final File sourceFile;
+        private final File destFile;
+        private final File translatedFile;
+        private final JobScheduler scheduler;
+        private final long queuedAt = System.currentTimeMillis();
+
+        private volatile JobStatus status = JobStatus.QUEUED;
+        private volatile ProgressInfo progress;
+        private volatile CommandResult result;
+        private volatile String errorMessage;
+        private volatile long startedAt;
+        private volatile long finishedAt;
+        private volatile boolean cancelRequested;
+        private volatile Future<?> future;
+        // 执行任务的线程，任务结束后为null
+        private Thread thread;
+        private boolean done;
+
+        private Job(JobScheduler scheduler, long id, int action, File sourceFile, File destFile, File translatedFile) {
+            this.scheduler = scheduler;
+            this.id = id;
+            this.action = action;
+            this.sourceFile = sourceFile;
+            this.destFile = destFile;
+            this.translatedFile = translatedFile;
+        }
+
+        private synchronized boolean start() {
+            if (status != JobStatus.QUEUED) {
+                return false;
+            }
+            status = JobStatus.RUNNING;
+            startedAt = System.currentTimeMillis();
+            thread = Thread.currentThread();
+            return true;
+        }
+
+        /**
+         * 任务执行结束，此后执行线程可能用于其他任务，取消本任务时不再结束该线程的进程
+         */
+        private synchronized void detachThread() {
+            thread = null;
+        }
+
+        /**
+         * 设置最终状态
+         *
+         * @return 是否由本次调用结束任务
+         */
+        private synchronized boolean finish(JobStatus finalStatus, CommandResult commandResult, String error) {
+            if (status.isFinished()) {
+                return false;
+            }
+            status = finalStatus;
+            result = commandResult;
+            errorMessage = error;
+            finishedAt = System.currentTimeMillis();
+            return true;
+        }
+
+        /**
+         * 唤醒等待任务结束的线程
+         */
+        private synchronized void signalDone() {
+            done = true;
+            notifyAll();
+        }
+
+        /**
+         * 取消任务
+         */
+        public void cancel() {
+            cancelRequested = true;
+            boolean queued;
+            synchronized (this) {
+                queued = status == JobStatus.QUEUED;
+            }
+            Future<?> jobFuture = future;
+            if (jobFuture != null) {
+                jobFuture.cancel(true);
+            }
+            synchronized (this) {
+                // 只结束本任务启动的进程（包括分段识别等其他线程中的进程），其他任务不受影响
+                if (thread != null) {
+                    CommandExecutor.cancelRunningProcesses(thread);
+                }
+            }
+            if (queued && finish(JobStatus.CANCELLED, null, "操作已取消")) {
+                scheduler.notifyListener(this);
+                signalDone();
+            }
+        }
+
+        /**
+         * 等待任务结束
+         *
+         * @throws InterruptedException 如果等待被中断
+         */
+        public synchronized void await() throws InterruptedException {
+            while (!done) {
+                wait();
+            }
+        }
+
+        /**
+         * 在指定时间内等待任务结束
+         *
+         * @return 任务是否已结束
+         * @throws InterruptedException 如果等待被中断
+         */
+        public synchronized boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            while (!done) {
+                long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remainingMs <= 0) {
+                    return false;
+                }
+                wait(remainingMs);
+            }
+            return true;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public int getAction() {
+            return action;
+        }
+
+        public File getSourceFile() {
+            return sourceFile;
+        }
+
+        public File getDestFile() {
+            return destFile;
+        }
+
+        /**
+         * 获取译文字幕文件，仅生成并翻译字幕的任务有，其他任务返回null
+         */
+        public File getTranslatedFile() {
+            return translatedFile;
+        }
+
+        public JobStatus getStatus() {
+            return status;
+        }
+
+        /**
+         * 获取最近一次的处理进度，尚无进度时返回null
+         */
+        public ProgressInfo getProgress() {
+            return progress;
+        }
+
+        /**
+         * 获取执行结果，任务未成功时返回null
+         */
+        public CommandResult getResult() {
+            return result;
+        }
+
+        /**
+         * 获取失败、取消或跳过的原因
+         */
+        public String getErrorMessage() {
+            return errorMessage;
+        }
+
+        /**
+         * 获取排队等待时间（毫秒）
+         */
+        public long getQueueWaitMs() {
+            long start = startedAt > 0 ? startedAt : (finishedAt > 0 ? finishedAt : System.currentTimeMillis());
+            return start - queuedAt;
+        }
+
+        /**
+         * 获取处理时间（毫秒），未开始时为0
+         */
+        public long getRunTimeMs() {
+            if (startedAt == 0) {
+                return 0;
+            }
+            return (finishedAt > 0 ? finishedAt : System.currentTimeMillis()) - startedAt;
+        }
+
+        /**
+         * 获取一行处理报告，如"[3] a.mp4 已完成，排队 1.2 秒，处理 35.4 秒（音频提取 3.1 秒，语音识别 28.0 秒）"
+         */
+        public String getTimingSummary() {
+            StringBuilder summary = new StringBuilder();
+            summary.append('[').append(id).append("] ").append(sourceFile.getName()).append(' ')
+                    .append(status.getDescription());
+            if (status == JobStatus.SKIPPED || status == JobStatus.QUEUED) {
+                return summary.toString();
+            }
+            summary.append(String.format("，排队 %.1f 秒，处理 %.1f 秒", getQueueWaitMs() / 1000.0, getRunTimeMs() / 1000.0));
+
+            CommandResult commandResult = result;
+            if (commandResult != null) {
+                List<String> stages = new ArrayList<>();
+                Map<String, Long> stats = commandResult.getStats();
+                for (StageLimiter.Stage stage : StageLimiter.Stage.values()) {
+                    Long stageMs = stats.get("stage_" + stage.getKey() + "_ms");
+                    if (stageMs != null) {
+                        stages.add(String.format("%s %.1f 秒", stage.getDescription(), stageMs / 1000.0));
+                    }
+                }
+                if (!stages.isEmpty()) {
+                    summary.append("（").append(String.join("，", stages)).append("）");
+                }
+            } else if (errorMessage != null && status == JobStatus.FAILED) {
+                summary.append("：").append(errorMessage.lines().findFirst().orElse(""));
+            }
+            return summary.toString();
+        }
+
+        /**
+         * 获取任务信息（状态、进度、耗时与统计数据），用于输出JSON
+         */
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("id", id);
+            map.put("action", getActionName(action));
+            map.put("source", sourceFile.getAbsolutePath());
+            map.put("output", destFile.getAbsolutePath());
+            if (translatedFile != null) {
+                map.put("translated_output", translatedFile.getAbsolutePath());
+            }
+            map.put("status", status.name().toLowerCase());
+            map.put("queue_ms", getQueueWaitMs());
+            map.put("run_ms", getRunTimeMs());
+
+            ProgressInfo currentProgress = progress;
+            if (status == JobStatus.RUNNING && currentProgress != null) {
+                Map<String, Object> progressMap = new LinkedHashMap<>();
+                progressMap.put("stage", currentProgress.getStage());
+                progressMap.put("percent", currentProgress.getPercent());
+                progressMap.put("eta_ms", currentProgress.getEtaMs());
+                progressMap.put("speed", currentProgress.getSpeed());
+                map.put("progress", progressMap);
+            }
+            CommandResult commandResult = result;
+            if (commandResult != null) {
+                map.put("processing_ms", commandResult.getProcessingTimeMs());
+                map.put("stats", commandResult.getStats());
+            }
+            if (errorMessage != null) {
+                map.put("error", errorMessage);
+            }
+            return map;
+        }
+
+        @Override
+        public String toString() {
+            return getTimingSummary();
+        }
+    }
+}
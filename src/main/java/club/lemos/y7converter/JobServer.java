@@ -0,0 +1,398 @@
+package club.lemos.y7converter;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 任务HTTP接口
+ * 其他程序通过HTTP提交字幕生成与翻译任务，无需为每个文件启动一个进程。
+ * 任务交给 {@link JobScheduler} 排队处理，提交后立即返回任务编号，再查询状态、进度并获取生成的字幕。
+ * 接口按路径读写本机文件，默认只监听本机地址；带有其他网站 Origin 的请求（浏览器中的网页发起）一律拒绝，
+ * 提交任务必须使用 application/json，配置了令牌时每个请求都需要携带，指定的输出路径必须位于配置的输出目录之内。
+ *
+ * <pre>
+ * POST   /jobs                 提交任务，请求体 {"action": "generate|translate|generate_translate", "source": "源文件路径", "output": "输出路径（可选，位于输出目录之内）"}
+ * GET    /jobs                 全部任务
+ * GET    /jobs/{id}?wait=秒    任务状态与进度，指定 wait 时等待任务结束（最长60秒）
+ * GET    /jobs/{id}/result     生成的字幕内容
+ * GET    /jobs/{id}/translated 译文字幕内容（生成并翻译字幕的任务）
+ * DELETE /jobs/{id}            取消未结束的任务，或移除已结束的任务
+ * </pre>
+ */
+public class JobServer {
+
+    private static final String CONTEXT_PATH = "/jobs";
+    private static final int MAX_REQUEST_BYTES = 64 * 1024;
+    private static final long MAX_WAIT_SECONDS = 60;
+
+    private static final Gson GSON = new Gson();
+
+    private final JobScheduler scheduler;
+    private final String token;
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private volatile boolean loopbackOnly;
+
+    /**
+     * 创建任务HTTP接口
+     *
+     * @param scheduler 处理任务的调度器
+     */
+    public JobServer(JobScheduler scheduler) {
+        this.scheduler = scheduler;
+        this.token = ConfigLoader.getInstance().getJobServerToken();
+    }
+
+    /**
+     * 按配置文件的地址与端口启动
+     *
+     * @throws IOException 如果端口无法监听
+     */
+    public void start() throws IOException {
+        ConfigLoader config = ConfigLoader.getInstance();
+        start(config.getJobServerBindAddress(), config.getJobServerPort());
+    }
+
+    /**
+     * 在指定地址与端口启动，已启动时不做任何操作
+     *
+     * @param bindAddress 监听地址
+     * @param port        监听端口，0 表示随机端口
+     * @throws IOException 如果端口无法监听
+     */
+    public synchronized void start(String bindAddress, int port) throws IOException {
+        if (server != null) {
+            return;
+        }
+        server = HttpServer.create(new InetSocketAddress(bindAddress, port), 0);
+        loopbackOnly = server.getAddress().getAddress().isLoopbackAddress();
+        AtomicInteger threadNumber = new AtomicInteger(1);
+        serverExecutor = Executors.newFixedThreadPool(Math.max(1, ConfigLoader.getInstance().getJobServerThreads()), r -> {
+            Thread thread = new Thread(r, "job-http-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(serverExecutor);
+        server.createContext(CONTEXT_PATH, this::handle);
+        server.start();
+        System.out.println("任务HTTP接口已启动: http://" + server.getAddress().getHostString() + ":" + getPort() + CONTEXT_PATH);
+    }
+
+    /**
+     * 获取实际监听的端口，未启动时返回-1
+     */
+    public synchronized int getPort() {
+        return server != null ? server.getAddress().getPort() : -1;
+    }
+
+    /**
+     * 停止接收请求，已提交的任务不受影响
+     */
+    public synchronized void stop() {
+        if (server == null) {
+            return;
+        }
+        server.stop(0);
+        serverExecutor.shutdownNow();
+        server = null;
+        serverExecutor = null;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            // 路径格式：/jobs、/jobs/<编号>、/jobs/<编号>/result、/jobs/<编号>/translated
+            String path = exchange.getRequestURI().getPath().substring(CONTEXT_PATH.length());
+            String[] segments = path.replaceAll("^/+|/+$", "").split("/+");
+            String method = exchange.getRequestMethod().toUpperCase();
+
+            String rejection = checkAccess(exchange);
+            if (rejection != null) {
+                sendError(exchange, 403, rejection);
+                return;
+            }
+
+            if (segments[0].isEmpty()) {
+                if ("POST".equals(method)) {
+                    handleSubmit(exchange);
+                } else if ("GET".equals(method)) {
+                    handleList(exchange);
+                } else {
+                    sendError(exchange, 405, "不支持的请求方法: " + method);
+                }
+                return;
+            }
+
+            JobScheduler.Job job = findJob(segments[0]);
+            boolean translated = segments.length == 2 && "translated".equals(segments[1]);
+            if (job == null || segments.length > 2
+                    || (segments.length == 2 && !"result".equals(segments[1]) && !translated)
+                    || (translated && job.getTranslatedFile() == null)) {
+                sendError(exchange, 404, "任务不存在: " + String.join("/", segments));
+            } else if (segments.length == 2) {
+                if ("GET".equals(method)) {
+                    handleResult(exchange, job, translated ? job.getTranslatedFile() : job.getDestFile());
+                } else {
+                    sendError(exchange, 405, "不支持的请求方法: " + method);
+                }
+            } else if ("GET".equals(method)) {
+                handleStatus(exchange, job);
+            } else if ("DELETE".equals(method)) {
+                handleDelete(exchange, job);
+            } else {
+                sendError(exchange, 405, "不支持的请求方法: " + method);
+            }
+        } catch (RuntimeException e) {
+            System.err.println("任务HTTP接口处理请求失败: " + e.getMessage());
+            sendError(exchange, 500, e.getMessage());
+        }
+    }
+
+    /**
+     * 检查请求来源与令牌
+     *
+     * @return 拒绝原因，允许访问时返回null
+     */
+    private String checkAccess(HttpExchange exchange) {
+        // 浏览器中的网页跨站请求会带上 Origin，无需预检的简单请求也不例外；本接口只供本机程序调用
+        String host = exchange.getRequestHeaders().getFirst("Host");
+        String origin = exchange.getRequestHeaders().getFirst("Origin");
+        if (origin != null && (host == null || !origin.equalsIgnoreCase("http://" + host))) {
+            return "不接受来自其他网站的请求: " + origin;
+        }
+        // 只监听本机地址时拒绝其他主机名，防止通过 DNS 重绑定以本机地址访问
+        if (loopbackOnly && !isLoopbackHost(host)) {
+            return "不接受的主机名: " + host;
+        }
+        if (!token.isEmpty()) {
+            String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+            String expected = "Bearer " + token;
+            if (authorization == null || !MessageDigest.isEqual(authorization.trim().getBytes(StandardCharsets.UTF_8),
+                    expected.getBytes(StandardCharsets.UTF_8))) {
+                return "缺少或错误的访问令牌";
+            }
+        }
+        return null;
+    }
+
+    private static boolean isLoopbackHost(String host) {
+        if (host == null) {
+            return false;
+        }
+        String name = host.trim().toLowerCase();
+        int portIndex = name.lastIndexOf(':');
+        if (portIndex > name.lastIndexOf(']')) {
+            name = name.substring(0, portIndex);
+        }
+        return "localhost".equals(name) || name.startsWith("127.") || "[::1]".equals(name);
+    }
+
+    private void handleSubmit(HttpExchange exchange) throws IOException {
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        if (contentType == null || !contentType.trim().toLowerCase().startsWith("application/json")) {
+            sendError(exchange, 415, "请求内容类型需要为 application/json");
+            return;
+        }
+
+        JobRequest request;
+        try {
+            request = GSON.fromJson(readBody(exchange), JobRequest.class);
+        } catch (JsonParseException e) {
+            sendError(exchange, 400, "请求内容不是有效的JSON: " + e.getMessage());
+            return;
+        }
+        if (request == null || request.source == null || request.source.trim().isEmpty()) {
+            sendError(exchange, 400, "缺少源文件路径 source");
+            return;
+        }
+
+        int action = request.action == null ? CommandActions.GENERATE_SUBTITLE
+                : JobScheduler.parseActionName(request.action);
+        if (action < 0) {
+            sendError(exchange, 400, "不支持的操作类型: " + request.action);
+            return;
+        }
+
+        File sourceFile = new File(request.source.trim());
+        if (!sourceFile.isFile()) {
+            sendError(exchange, 400, "源文件不存在: " + sourceFile.getAbsolutePath());
+            return;
+        }
+
+        File destFile = null;
+        if (request.output != null && !request.output.trim().isEmpty()) {
+            destFile = resolveOutput(request.output.trim());
+            if (destFile == null) {
+                sendError(exchange, 400, scheduler.getOutputDir() == null
+                        ? "未配置输出目录 batch.output_dir，不能指定输出路径 output"
+                        : "输出路径 output 必须位于输出目录之内: " + scheduler.getOutputDir().getAbsolutePath());
+                return;
+            }
+        }
+
+        ConfigLoader config = ConfigLoader.getInstance();
+        JobScheduler.Job job;
+        // 检查与提交放在同一个锁内，避免并发请求同时通过数量检查
+        synchronized (scheduler) {
+            if (scheduler.getPendingCount() >= config.getJobServerMaxPendingJobs()) {
+                exchange.getResponseHeaders().set("Retry-After", "10");
+                sendError(exchange, 503, "未完成的任务过多，请稍后再试");
+                return;
+            }
+            job = destFile == null
+                    ? scheduler.submit(action, sourceFile)
+                    : scheduler.submit(action, sourceFile, destFile);
+            scheduler.pruneFinished(config.getJobServerMaxFinishedJobs());
+        }
+
+        exchange.getResponseHeaders().set("Location", CONTEXT_PATH + "/" + job.getId());
+        sendJson(exchange, 202, job.toMap());
+    }
+
+    private void handleList(HttpExchange exchange) throws IOException {
+        List<Map<String, Object>> jobs = new ArrayList<>();
+        for (JobScheduler.Job job : scheduler.getJobs()) {
+            jobs.add(job.toMap());
+        }
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("pending", scheduler.getPendingCount());
+        response.put("jobs", jobs);
+        sendJson(exchange, 200, response);
+    }
+
+    private void handleStatus(HttpExchange exchange, JobScheduler.Job job) throws IOException {
+        String wait = getQueryParameter(exchange.getRequestURI(), "wait");
+        if (wait != null) {
+            try {
+                long waitSeconds = Math.min(MAX_WAIT_SECONDS, Math.max(0, Long.parseLong(wait)));
+                job.await(waitSeconds, TimeUnit.SECONDS);
+            } catch (NumberFormatException e) {
+                sendError(exchange, 400, "wait 参数需要整数秒: " + wait);
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        sendJson(exchange, 200, job.toMap());
+    }
+
+    private void handleResult(HttpExchange exchange, JobScheduler.Job job, File destFile) throws IOException {
+        JobScheduler.JobStatus status = job.getStatus();
+        boolean available = status == JobScheduler.JobStatus.SUCCEEDED
+                || (status == JobScheduler.JobStatus.SKIPPED && destFile.isFile());
+        if (!available) {
+            sendError(exchange, 409, "任务" + status.getDescription() + "，没有可用的字幕");
+            return;
+        }
+        if (!destFile.isFile()) {
+            sendError(exchange, 410, "字幕文件已不存在: " + destFile.getAbsolutePath());
+            return;
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", "application/x-subrip; charset=utf-8");
+        exchange.sendResponseHeaders(200, destFile.length());
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            Files.copy(destFile.toPath(), outputStream);
+        }
+    }
+
+    private void handleDelete(HttpExchange exchange, JobScheduler.Job job) throws IOException {
+        if (!job.getStatus().isFinished()) {
+            job.cancel();
+            sendJson(exchange, 202, job.toMap());
+        } else if (scheduler.removeJob(job.getId())) {
+            exchange.sendResponseHeaders(204, -1);
+        } else {
+            sendError(exchange, 404, "任务不存在: " + job.getId());
+        }
+    }
+
+    /**
+     * 将请求的输出路径解析到输出目录之内，相对路径相对于输出目录
+     *
+     * @return 输出文件；未配置输出目录或路径在输出目录之外时返回null
+     */
+    private File resolveOutput(String output) {
+        File outputDir = scheduler.getOutputDir();
+        if (outputDir == null) {
+            return null;
+        }
+        Path dir = outputDir.toPath().toAbsolutePath().normalize();
+        Path path = dir.resolve(output).normalize();
+        return path.startsWith(dir) && !path.equals(dir) ? path.toFile() : null;
+    }
+
+    private JobScheduler.Job findJob(String id) {
+        try {
+            return scheduler.getJob(Long.parseLong(id));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream inputStream = exchange.getRequestBody()) {
+            byte[] body = inputStream.readNBytes(MAX_REQUEST_BYTES + 1);
+            if (body.length > MAX_REQUEST_BYTES) {
+                throw new JsonParseException("请求内容过大");
+            }
+            return new String(body, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static String getQueryParameter(URI uri, String name) {
+        String query = uri.getQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String pair : query.split("&")) {
+            int equalsIndex = pair.indexOf('=');
+            if (equalsIndex > 0 && pair.substring(0, equalsIndex).equals(name)) {
+                return pair.substring(equalsIndex + 1);
+            }
+        }
+        return null;
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        sendJson(exchange, status, Map.of("error", message != null ? message : "未知错误"));
+    }
+
+    private static void sendJson(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = GSON.toJson(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(bytes);
+        }
+    }
+
+    /**
+     * 提交任务的请求内容
+     */
+    private static class JobRequest {
+        String action;
+        String source;
+        String output;
+    }
+}
@@ -0,0 +1,206 @@
+package club.lemos.y7converter;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 本机HTTP服务音频接入方式
+ * 在本机启动一个只读HTTP服务，识别服务直接从本机读取音频，省去上传OSS与删除的往返。
+ * 每个音频使用随机令牌路径发布，识别结束后立即撤销；没有识别任务时关闭HTTP服务。
+ * 识别服务必须能访问 public_base_url（或本机地址）对应的端口；默认只监听本机回环地址，识别服务在其他主机时需配置监听地址。
+ */
+class LocalHttpAudioSource implements AudioSource {
+
+    private static final String CONTEXT_PATH = "/audio/";
+    private static final int SERVER_THREADS = 4;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final Pattern RANGE_PATTERN = Pattern.compile("bytes=(\\d*)-(\\d*)");
+
+    // 令牌到已发布音频文件的映射
+    private static final Map<String, File> servedFiles = new ConcurrentHashMap<>();
+
+    private static HttpServer server;
+    private static ExecutorService serverExecutor;
+    private static int activeTranscriptions;
+
+    @Override
+    public String getName() {
+        return "本机HTTP服务";
+    }
+
+    @Override
+    public int transcribe(File audioFile, SrtWriter writer) throws Exception {
+        String baseUrl = acquireServer();
+        String token = UUID.randomUUID().toString();
+        servedFiles.put(token, audioFile);
+        try {
+            String fileUrl = baseUrl + CONTEXT_PATH + token + "/" +
+                    URLEncoder.encode(audioFile.getName(), StandardCharsets.UTF_8).replace("+", "%20");
+            System.out.println("音频文件已发布，URL: " + fileUrl);
+
+            System.out.println("正在进行语音识别...");
+            return StageLimiter.run(StageLimiter.Stage.RECOGNITION,
+                    () -> SpeechRecognitionService.transcribeAudioFromUrl(fileUrl, writer));
+        } finally {
+            servedFiles.remove(token);
+            releaseServer();
+        }
+    }
+
+    /**
+     * 启动HTTP服务（已启动时复用），返回识别服务访问本机时使用的地址
+     */
+    private static synchronized String acquireServer() throws IOException {
+        ConfigLoader config = ConfigLoader.getInstance();
+        if (server == null) {
+            server = HttpServer.create(new InetSocketAddress(config.getLocalHttpBindAddress(), config.getLocalHttpPort()), 0);
+            AtomicInteger threadNumber = new AtomicInteger(1);
+            serverExecutor = Executors.newFixedThreadPool(SERVER_THREADS, r -> {
+                Thread thread = new Thread(r, "audio-http-" + threadNumber.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+            server.setExecutor(serverExecutor);
+            server.createContext(CONTEXT_PATH, LocalHttpAudioSource::handle);
+            server.start();
+            System.out.println("本机音频HTTP服务已启动，端口: " + server.getAddress().getPort());
+        }
+        String baseUrl = config.getLocalHttpPublicBaseUrl();
+        if (baseUrl == null || baseUrl.trim().isEmpty()) {
+            String host;
+            try {
+                host = server.getAddress().getAddress().isAnyLocalAddress()
+                        ? InetAddress.getLocalHost().getHostAddress()
+                        : server.getAddress().getHostString();
+            } catch (IOException e) {
+                // 没有其他进行中的识别时关闭刚启动的服务
+                if (activeTranscriptions == 0) {
+                    stopServer();
+                }
+                throw e;
+            }
+            baseUrl = "http://" + host + ":" + server.getAddress().getPort();
+        }
+        baseUrl = baseUrl.trim();
+        activeTranscriptions++;
+        return baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+    }
+
+    /**
+     * 识别结束后释放HTTP服务，没有进行中的识别时关闭
+     */
+    private static synchronized void releaseServer() {
+        if (--activeTranscriptions > 0 || server == null) {
+            return;
+        }
+        stopServer();
+    }
+
+    private static void stopServer() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+        server = null;
+        serverExecutor = null;
+        if (ConfigLoader.getInstance().isDebugMode()) {
+            System.out.println("本机音频HTTP服务已关闭");
+        }
+    }
+
+    /**
+     * 处理音频请求，支持 GET、HEAD 和单段 Range 请求
+     */
+    private static void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String method = exchange.getRequestMethod();
+            boolean head = "HEAD".equalsIgnoreCase(method);
+            if (!head && !"GET".equalsIgnoreCase(method)) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            // 路径格式：/audio/<令牌>/<文件名>
+            String path = exchange.getRequestURI().getPath().substring(CONTEXT_PATH.length());
+            int slashIndex = path.indexOf('/');
+            File file = servedFiles.get(slashIndex >= 0 ? path.substring(0, slashIndex) : path);
+            if (file == null || !file.isFile()) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+
+            long length = file.length();
+            long start = 0;
+            long end = length - 1;
+            int status = 200;
+
+            String range = exchange.getRequestHeaders().getFirst("Range");
+            if (range != null) {
+                Matcher matcher = RANGE_PATTERN.matcher(range.trim());
+                if (matcher.matches() && !(matcher.group(1).isEmpty() && matcher.group(2).isEmpty())) {
+                    if (matcher.group(1).isEmpty()) {
+                        // bytes=-N 表示最后N个字节
+                        start = Math.max(0, length - Long.parseLong(matcher.group(2)));
+                    } else {
+                        start = Long.parseLong(matcher.group(1));
+                        if (!matcher.group(2).isEmpty()) {
+                            end = Math.min(end, Long.parseLong(matcher.group(2)));
+                        }
+                    }
+                    if (start > end) {
+                        exchange.getResponseHeaders().set("Content-Range", "bytes */" + length);
+                        exchange.sendResponseHeaders(416, -1);
+                        return;
+                    }
+                    status = 206;
+                    exchange.getResponseHeaders().set("Content-Range", "bytes " + start + "-" + end + "/" + length);
+                }
+            }
+
+            long contentLength = end - start + 1;
+            exchange.getResponseHeaders().set("Accept-Ranges", "bytes");
+            exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+            if (head || contentLength <= 0) {
+                exchange.getResponseHeaders().set("Content-Length", String.valueOf(Math.max(0, contentLength)));
+                exchange.sendResponseHeaders(status, -1);
+                return;
+            }
+
+            exchange.sendResponseHeaders(status, contentLength);
+            try (RandomAccessFile input = new RandomAccessFile(file, "r");
+                 OutputStream output = exchange.getResponseBody()) {
+                input.seek(start);
+                byte[] buffer = new byte[BUFFER_SIZE];
+                long remaining = contentLength;
+                while (remaining > 0) {
+                    int read = input.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                    if (read < 0) {
+                        break;
+                    }
+                    output.write(buffer, 0, read);
+                    remaining -= read;
+                }
+            }
+
+            if (ConfigLoader.getInstance().isDebugMode()) {
+                System.out.println("已向 " + exchange.getRemoteAddress() + " 发送音频 " + contentLength + " 字节");
+            }
+        }
+    }
+}
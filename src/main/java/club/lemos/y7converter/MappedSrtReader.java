@@ -0,0 +1,359 @@
+package club.lemos.y7converter;
+
+import sun.misc.Unsafe;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * 基于内存映射的SRT字幕读取器
+ * 直接在UTF-8字节上按行扫描序号行、时间轴行与空行，不逐行创建字符串，也不使用正则表达式；
+ * 每条字幕以 {@link Cue} 视图返回，文本只记录在文件中的位置，读取时才解码。
+ * 较小的文件一次读入内存，省去建立映射的开销；超过2GB、无法整体映射的文件改用 {@link SrtReader} 逐行读取。
+ * 关闭时立即解除映射（Windows 上映射期间无法删除或移动该文件），关闭后不能再读取字幕文本。
+ */
+final class MappedSrtReader implements Iterator<MappedSrtReader.Cue>, Closeable {
+
+    // 小于该大小的文件直接读入内存
+    private static final long MAP_THRESHOLD_BYTES = 256 * 1024;
+
+    private final FileChannel channel;
+    // 关闭后为null
+    private ByteBuffer buffer;
+    private final int limit;
+    private final ByteLine line;
+    // 超过2GB的文件逐行读取，为null时读取映射
+    private final SrtReader fallbackReader;
+    // 时间轴行的解析结果
+    private final SubtitleBlock timing = new SubtitleBlock();
+
+    private int position;
+    private Cue nextCue;
+
+    /**
+     * 打开SRT字幕文件
+     *
+     * @param srtFile SRT字幕文件
+     * @throws IOException 如果文件无法打开
+     */
+    MappedSrtReader(File srtFile) throws IOException {
+        channel = FileChannel.open(srtFile.toPath(), StandardOpenOption.READ);
+        SrtReader largeFileReader = null;
+        try {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                // 单个映射最大2GB，超过时逐行读取
+                largeFileReader = new SrtReader(new InputStreamReader(Channels.newInputStream(channel),
+                        StandardCharsets.UTF_8));
+                buffer = ByteBuffer.allocate(0);
+            } else if (size < MAP_THRESHOLD_BYTES) {
+                buffer = ByteBuffer.allocate((int) size);
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                    // 读满为止
+                }
+                buffer.flip();
+            } else {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        fallbackReader = largeFileReader;
+        limit = buffer.limit();
+        line = new ByteLine(buffer);
+
+        // 跳过UTF-8 BOM
+        if (limit >= 3 && buffer.get(0) == (byte) 0xEF && buffer.get(1) == (byte) 0xBB && buffer.get(2) == (byte) 0xBF) {
+            position = 3;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (nextCue == null) {
+            if (buffer == null) {
+                throw new IllegalStateException("字幕读取器已关闭");
+            }
+            if (fallbackReader != null) {
+                nextCue = fallbackReader.hasNext() ? new Cue(fallbackReader.next()) : null;
+            } else {
+                nextCue = readCue();
+            }
+        }
+        return nextCue != null;
+    }
+
+    @Override
+    public Cue next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Cue cue = nextCue;
+        nextCue = null;
+        return cue;
+    }
+
+    /**
+     * 扫描下一条完整的字幕
+     * 规则与 {@link SrtReader} 相同：序号行开始新字幕，其后的时间轴行设置起止时间，其余非空行为文本，
+     * 有文本时遇到空行或文件末尾即结束一条字幕；序号行之前不属于任何字幕的文本直接忽略
+     *
+     * @return 字幕视图，读到文件末尾时返回null
+     */
+    private Cue readCue() {
+        boolean inCue = false;
+        int number = 0;
+        long startMs = 0;
+        long endMs = 0;
+        int textStart = -1;
+        int textEnd = -1;
+        // 文本各行之间只隔一个换行符且没有需要去除的空白时，解码后无需再整理
+        boolean plainText = true;
+
+        while (position < limit) {
+            int lineStart = position;
+            int lineEnd = lineStart;
+            while (lineEnd < limit && buffer.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            position = lineEnd < limit ? lineEnd + 1 : limit;
+
+            // 去除首尾空白（与 String.trim 一致，去除不大于空格的字节）
+            int start = lineStart;
+            int end = lineEnd;
+            while (start < end && (buffer.get(start) & 0xFF) <= ' ') {
+                start++;
+            }
+            while (end > start && (buffer.get(end - 1) & 0xFF) <= ' ') {
+                end--;
+            }
+
+            if (start == end) {
+                // 空行表示一条字幕结束
+                if (inCue && textStart >= 0) {
+                    return new Cue(this, number, startMs, endMs, textStart, textEnd, plainText);
+                }
+            } else if (isNumber(start, end)) {
+                // 序号行
+                inCue = true;
+                number = parseNumber(start, end);
+                startMs = 0;
+                endMs = 0;
+                textStart = -1;
+                plainText = true;
+            } else if (textStart < 0 && isDigit(buffer.get(start)) && SrtTime.parseRange(line.set(start, end), timing)) {
+                // 时间轴行（以数字开头才尝试解析，文本行不必再扫描一遍）
+                startMs = timing.startMs;
+                endMs = timing.endMs;
+            } else {
+                // 文本行
+                if (textStart < 0) {
+                    textStart = start;
+                } else if (textEnd + 1 != lineStart || lineStart != start) {
+                    plainText = false;
+                }
+                textEnd = end;
+            }
+        }
+
+        // 处理最后一条字幕
+        if (inCue && textStart >= 0) {
+            return new Cue(this, number, startMs, endMs, textStart, textEnd, plainText);
+        }
+        return null;
+    }
+
+    private boolean isNumber(int start, int end) {
+        if (end - start > 9) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (!isDigit(buffer.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private int parseNumber(int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            value = value * 10 + (buffer.get(i) - '0');
+        }
+        return value;
+    }
+
+    /**
+     * 关闭文件并立即解除映射，不等待映射被回收
+     */
+    @Override
+    public void close() throws IOException {
+        ByteBuffer mapped = buffer;
+        buffer = null;
+        try {
+            if (mapped instanceof MappedByteBuffer) {
+                unmap((MappedByteBuffer) mapped);
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * 释放映射；运行环境不支持时仍由GC回收
+     */
+    private static void unmap(MappedByteBuffer mapped) {
+        try {
+            Field field = Unsafe.class.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            ((Unsafe) field.get(null)).invokeCleaner(mapped);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // 无法立即释放，映射在回收时解除
+        }
+    }
+
+    /**
+     * 一条字幕的视图
+     * 序号与起止时间在扫描时已解析，文本在调用 {@link #getText()} 时才从文件内容解码，读取器关闭后不能再解码
+     */
+    static final class Cue {
+        final int number;
+        final long startMs;
+        final long endMs;
+
+        private final MappedSrtReader reader;
+        private final int textStart;
+        private final int textEnd;
+        private final boolean plainText;
+        // 逐行读取时已解码的文本
+        private final String decodedText;
+
+        private Cue(MappedSrtReader reader, int number, long startMs, long endMs, int textStart, int textEnd,
+                    boolean plainText) {
+            this.reader = reader;
+            this.number = number;
+            this.startMs = startMs;
+            this.endMs = endMs;
+            this.textStart = textStart;
+            this.textEnd = textEnd;
+            this.plainText = plainText;
+            this.decodedText = null;
+        }
+
+        private Cue(SubtitleBlock block) {
+            this.reader = null;
+            this.number = block.number;
+            this.startMs = block.startMs;
+            this.endMs = block.endMs;
+            this.textStart = 0;
+            this.textEnd = 0;
+            this.plainText = true;
+            this.decodedText = block.text;
+        }
+
+        /**
+         * 解码字幕文本，多行文本以换行符连接，每行已去除首尾空白
+         *
+         * @throws IllegalStateException 如果读取器已关闭
+         */
+        String getText() {
+            if (decodedText != null) {
+                return decodedText;
+            }
+            ByteBuffer buffer = reader.buffer;
+            if (buffer == null) {
+                throw new IllegalStateException("字幕读取器已关闭，无法读取字幕文本");
+            }
+            String text;
+            if (buffer.hasArray()) {
+                // 读入内存的小文件直接从数组解码
+                text = new String(buffer.array(), buffer.arrayOffset() + textStart, textEnd - textStart,
+                        StandardCharsets.UTF_8);
+            } else {
+                byte[] bytes = new byte[textEnd - textStart];
+                buffer.get(textStart, bytes);
+                text = new String(bytes, StandardCharsets.UTF_8);
+            }
+            if (plainText) {
+                return text;
+            }
+
+            // 含有 \r\n 换行或行首尾空白时逐行整理
+            StringBuilder builder = new StringBuilder(text.length());
+            for (String textLine : text.split("\n")) {
+                String trimmed = textLine.trim();
+                if (!trimmed.isEmpty()) {
+                    if (builder.length() > 0) {
+                        builder.append('\n');
+                    }
+                    builder.append(trimmed);
+                }
+            }
+            return builder.toString();
+        }
+
+        /**
+         * 转换为字幕块（解码文本）
+         */
+        SubtitleBlock toBlock() {
+            return new SubtitleBlock(number, startMs, endMs, getText());
+        }
+    }
+
+    /**
+     * 以字符序列的形式访问一行ASCII字节，用于复用 {@link SrtTime} 的时间轴解析，逐行复用同一个对象
+     */
+    private static final class ByteLine implements CharSequence {
+        private final ByteBuffer buffer;
+        private int start;
+        private int length;
+
+        ByteLine(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        ByteLine set(int start, int end) {
+            this.start = start;
+            this.length = end - start;
+            return this;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (buffer.get(start + index) & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new ByteLine(buffer).set(this.start + start, this.start + end);
+        }
+
+        @Override
+        public String toString() {
+            byte[] bytes = new byte[length];
+            buffer.get(start, bytes);
+            return new String(bytes, StandardCharsets.ISO_8859_1);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package club.lemos.y7converter;
+
+import java.io.File;
+
+/**
+ * 经由OSS中转的音频接入方式
+ * 先将音频上传到OSS，识别服务通过公开URL或预签名URL读取音频，识别完成后删除OSS中的音频。
+ */
+class OssAudioSource implements AudioSource {
+
+    private final boolean presigned;
+
+    /**
+     * @param presigned 是否使用预签名URL（Bucket可为私有）
+     */
+    OssAudioSource(boolean presigned) {
+        this.presigned = presigned;
+    }
+
+    @Override
+    public String getName() {
+        return presigned ? "OSS预签名URL" : "OSS公开URL";
+    }
+
+    @Override
+    public int transcribe(File audioFile, SrtWriter writer) throws Exception {
+        return transcribeUploaded(uploadService -> uploadService.uploadFile(audioFile), writer);
+    }
+
+    @Override
+    public boolean supportsStreaming() {
+        return ConfigLoader.getInstance().isOssStreamingUpload();
+    }
+
+    /**
+     * FFmpeg 输出的音频边提取边分片上传，输出结束后再进行识别
+     */
+    @Override
+    public int transcribeStream(AudioStream audioStream, SrtWriter writer) throws Exception {
+        return transcribeUploaded(uploadService -> {
+            FileUploadService.UploadResult uploadResult =
+                    uploadService.uploadStream(audioStream.getInputStream(), audioStream.getFileName());
+            try {
+                audioStream.awaitCompletion();
+            } catch (Exception e) {
+                uploadService.deleteUploadedFile(uploadResult);
+                throw e;
+            }
+            return uploadResult;
+        }, writer);
+    }
+
+    /**
+     * 上传音频并执行语音识别，识别结束后删除云存储中的音频
+     */
+    private int transcribeUploaded(AudioUploader uploader, SrtWriter writer) throws Exception {
+        // 第一步：将音频文件上传到网络
+        System.out.println("正在上传音频文件到云存储...");
+        FileUploadService uploadService = new FileUploadService();
+        FileUploadService.UploadResult uploadResult = StageLimiter.run(StageLimiter.Stage.UPLOAD,
+                () -> uploader.upload(uploadService));
+
+        if (!uploadResult.isSuccess()) {
+            throw new RuntimeException("音频文件上传失败: " + uploadResult.getMessage());
+        }
+
+        try {
+            String fileUrl = presigned
+                    ? uploadService.generatePresignedUrl(uploadResult,
+                            ConfigLoader.getInstance().getSpeechPresignedUrlExpiration())
+                    : uploadResult.getFileUrl();
+            if (fileUrl == null || fileUrl.trim().isEmpty()) {
+                throw new RuntimeException("上传成功但未获取到文件URL。上传结果: " + uploadResult.toString());
+            }
+
+            System.out.println("音频文件上传成功，URL: " + fileUrl);
+
+            // 第二步：执行语音识别
+            System.out.println("正在进行语音识别...");
+            return StageLimiter.run(StageLimiter.Stage.RECOGNITION,
+                    () -> SpeechRecognitionService.transcribeAudioFromUrl(fileUrl, writer));
+        } finally {
+            // 第三步：从OSS删除已上传的音频文件
+            System.out.println("正在从云存储删除音频文件...");
+            if (uploadService.deleteUploadedFile(uploadResult)) {
+                System.out.println("云存储中的音频文件删除成功");
+            } else {
+                System.err.println("云存储中的音频文件删除失败，请手动清理");
+            }
+        }
+    }
+
+    /**
+     * 音频上传方式
+     */
+    @FunctionalInterface
+    private interface AudioUploader {
+        FileUploadService.UploadResult upload(FileUploadService uploadService) throws Exception;
+    }
+}
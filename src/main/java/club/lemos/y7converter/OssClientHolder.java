@@ -0,0 +1,172 @@
+package club.lemos.y7converter;
+
+import com.aliyun.oss.ClientBuilderConfiguration;
+import com.aliyun.oss.OSS;
+import com.aliyun.oss.OSSClientBuilder;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 共享的阿里云OSS客户端
+ * 整个程序只创建一个OSS客户端，所有任务与线程复用其连接池，避免每次上传重新建立连接和TLS握手；
+ * 客户端在首次使用时创建，程序退出时由关闭钩子统一关闭。
+ */
+public class OssClientHolder {
+
+    private static OSS client;
+    private static boolean shutdownHookRegistered;
+
+    // 统计计数
+    private static final AtomicLong clientCreations = new AtomicLong();
+    private static final AtomicLong requestCount = new AtomicLong();
+    private static final AtomicLong totalRequestNanos = new AtomicLong();
+    private static final AtomicLong firstRequestNanos = new AtomicLong(-1);
+
+    /**
+     * 获取共享的OSS客户端
+     *
+     * @return OSS客户端
+     */
+    public static synchronized OSS getClient() {
+        if (client == null) {
+            client = instrument(createClient());
+            clientCreations.incrementAndGet();
+            firstRequestNanos.set(-1);
+
+            if (!shutdownHookRegistered) {
+                Runtime.getRuntime().addShutdownHook(new Thread(OssClientHolder::shutdown, "oss-client-shutdown"));
+                shutdownHookRegistered = true;
+            }
+        }
+        return client;
+    }
+
+    /**
+     * 根据配置创建OSS客户端
+     */
+    private static OSS createClient() {
+        ConfigLoader config = ConfigLoader.getInstance();
+        String accessKeyId = config.getOssAccessKeyId();
+        String accessKeySecret = config.getOssAccessKeySecret();
+        String endpoint = config.getOssEndpoint();
+
+        if (accessKeyId.isEmpty() || accessKeySecret.isEmpty()) {
+            throw new IllegalStateException("OSS Access Key ID 或 Access Key Secret 未配置");
+        }
+
+        if (endpoint.isEmpty()) {
+            throw new IllegalStateException("OSS Endpoint 未配置");
+        }
+
+        // 创建ClientBuilderConfiguration配置类
+        ClientBuilderConfiguration conf = new ClientBuilderConfiguration();
+        conf.setConnectionTimeout(config.getOssConnectionTimeout());
+        conf.setSocketTimeout(config.getOssSocketTimeout());
+        conf.setMaxConnections(config.getOssMaxConnections());
+        // 空闲连接在该时间内保持存活，供后续任务复用
+        conf.setIdleConnectionTime(config.getOssIdleConnectionTime());
+        conf.setSupportCname(false);
+        conf.setProtocol(config.isOssUseHttps() ?
+                com.aliyun.oss.common.comm.Protocol.HTTPS :
+                com.aliyun.oss.common.comm.Protocol.HTTP);
+
+        // 创建OSSClient实例
+        OSS ossClient = new OSSClientBuilder().build(endpoint, accessKeyId, accessKeySecret, conf);
+
+        if (config.isDebugMode()) {
+            System.out.println("OSS 客户端初始化成功");
+            System.out.println("Endpoint: " + endpoint);
+            System.out.println("Bucket: " + config.getOssBucketName());
+        }
+
+        return ossClient;
+    }
+
+    /**
+     * 为客户端添加请求统计
+     */
+    private static OSS instrument(OSS ossClient) {
+        return (OSS) Proxy.newProxyInstance(OSS.class.getClassLoader(), new Class<?>[]{OSS.class},
+                (proxy, method, args) -> {
+                    if (method.getDeclaringClass() == Object.class || "shutdown".equals(method.getName())) {
+                        return invoke(ossClient, method, args);
+                    }
+                    long start = System.nanoTime();
+                    try {
+                        return invoke(ossClient, method, args);
+                    } finally {
+                        long elapsed = System.nanoTime() - start;
+                        firstRequestNanos.compareAndSet(-1, elapsed);
+                        requestCount.incrementAndGet();
+                        totalRequestNanos.addAndGet(elapsed);
+                    }
+                });
+    }
+
+    private static Object invoke(OSS ossClient, java.lang.reflect.Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(ossClient, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * 关闭共享的OSS客户端，释放连接池
+     */
+    public static synchronized void shutdown() {
+        if (client != null) {
+            try {
+                client.shutdown();
+                if (ConfigLoader.getInstance().isDebugMode()) {
+                    System.out.println("OSS 客户端已关闭，" + getStatsSummary());
+                }
+            } catch (Exception e) {
+                System.err.println("关闭OSS客户端时发生错误: " + e.getMessage());
+            }
+            client = null;
+        }
+    }
+
+    /**
+     * 获取OSS客户端的创建次数
+     */
+    public static long getClientCreations() {
+        return clientCreations.get();
+    }
+
+    /**
+     * 获取通过共享客户端发出的请求数
+     */
+    public static long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * 获取客户端创建后首个请求的耗时（毫秒），包含建立连接与TLS握手
+     */
+    public static long getFirstRequestMs() {
+        long nanos = firstRequestNanos.get();
+        return nanos < 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    /**
+     * 获取平均请求耗时（毫秒）
+     */
+    public static long getAverageRequestMs() {
+        long count = requestCount.get();
+        return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalRequestNanos.get() / count);
+    }
+
+    /**
+     * 获取连接复用统计描述
+     * 客户端创建次数远小于请求数，且平均耗时明显低于首个请求时，说明连接得到了复用
+     */
+    public static String getStatsSummary() {
+        return String.format("客户端创建 %d 次，请求 %d 次，首个请求 %d 毫秒，平均请求 %d 毫秒",
+                getClientCreations(), getRequestCount(), getFirstRequestMs(), getAverageRequestMs());
+    }
+}
@@ -0,0 +1,279 @@
+package club.lemos.y7converter;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 外部进程执行器
+ * 标准输出与错误输出由后台线程同时读取，避免任一管道写满导致进程阻塞；
+ * 输出只保留末尾一段（环形缓冲），长时间运行的进程不会占用过多内存。
+ * 超时由看门狗在进程运行期间强制执行；进程登记在启动它的任务中，取消任务时只结束该任务的进程。
+ */
+class ProcessRunner {
+
+    // 每个输出流保留的最大字符数
+    private static final int MAX_OUTPUT_CHARS = 64 * 1024;
+
+    // 读取线程在进程结束后的最长等待时间
+    private static final long DRAIN_TIMEOUT_MS = 5000;
+
+    private static final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "process-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Process process;
+    // 启动进程的任务，不在任务中启动时为null
+    private final StageLimiter.Timings owner;
+    private final long timeoutSeconds;
+    private final OutputTail output;
+    private final OutputTail error;
+    private final Thread outputReader;
+    private final Thread errorReader;
+    private final ScheduledFuture<?> timeoutTask;
+
+    private volatile boolean timedOut;
+    private volatile boolean cancelled;
+
+    private ProcessRunner(Process process, StageLimiter.Timings owner, long timeoutSeconds, boolean pipeOutput,
+                          Consumer<String> errorLineListener) {
+        this.process = process;
+        this.owner = owner;
+        this.timeoutSeconds = timeoutSeconds;
+        this.output = new OutputTail();
+        this.error = new OutputTail();
+
+        this.outputReader = pipeOutput ? null : startReader(process.getInputStream(), output, null, "process-stdout-reader");
+        this.errorReader = startReader(process.getErrorStream(), error, errorLineListener, "process-stderr-reader");
+
+        this.timeoutTask = timeoutSeconds > 0
+                ? watchdog.schedule(() -> {
+                    timedOut = true;
+                    process.destroyForcibly();
+                }, timeoutSeconds, TimeUnit.SECONDS)
+                : null;
+    }
+
+    /**
+     * 启动进程
+     * 进程登记在当前线程所属的任务中（见 {@link StageLimiter#currentRecording()}），随任务一起取消
+     *
+     * @param command           命令列表
+     * @param directory         工作目录，为null时使用当前目录
+     * @param timeoutSeconds    超时时间（秒），超时后强制结束进程；0 表示不限制
+     * @param pipeOutput        是否由调用方读取标准输出（为false时后台读取并保留末尾内容）
+     * @param errorLineListener 错误输出的逐行监听器，可为null
+     * @return 进程执行器
+     * @throws IOException 如果进程无法启动
+     * @throws CancellationException 如果所属任务已取消
+     */
+    static ProcessRunner start(List<String> command, File directory, long timeoutSeconds,
+                               boolean pipeOutput, Consumer<String> errorLineListener) throws IOException {
+        StageLimiter.Timings owner = StageLimiter.currentRecording();
+        if (owner != null && owner.isCancelled()) {
+            throw new CancellationException("操作已取消");
+        }
+        ProcessBuilder processBuilder = new ProcessBuilder(command);
+        processBuilder.directory(directory);
+        ProcessRunner runner = new ProcessRunner(processBuilder.start(), owner, timeoutSeconds, pipeOutput,
+                errorLineListener);
+        if (owner != null && !owner.addProcess(runner)) {
+            // 启动期间任务被取消
+            runner.cancel();
+        }
+        return runner;
+    }
+
+    /**
+     * 执行进程并等待结束
+     *
+     * @param command        命令列表
+     * @param directory      工作目录，为null时使用当前目录
+     * @param timeoutSeconds 超时时间（秒）
+     * @return 执行结果
+     * @throws IOException 如果进程无法启动或执行超时
+     */
+    static Result run(List<String> command, File directory, long timeoutSeconds) throws IOException {
+        return start(command, directory, timeoutSeconds, false, null).waitFor();
+    }
+
+    /**
+     * 取消进程，等待该进程的线程随即收到 {@link CancellationException}
+     *
+     * @return 进程是否仍在运行（被本次取消结束）
+     */
+    boolean cancel() {
+        if (!process.isAlive()) {
+            return false;
+        }
+        cancelled = true;
+        process.destroyForcibly();
+        return true;
+    }
+
+    /**
+     * 获取进程的标准输出（仅在 pipeOutput 为true时由调用方读取）
+     */
+    InputStream getInputStream() {
+        return process.getInputStream();
+    }
+
+    /**
+     * 等待进程结束并收集输出
+     * 进程以非零退出码结束不视为异常，由调用方根据退出码处理
+     *
+     * @return 执行结果
+     * @throws IOException 如果执行超时
+     * @throws CancellationException 如果进程被取消或等待线程被中断
+     */
+    Result waitFor() throws IOException {
+        try {
+            process.waitFor();
+            joinReader(outputReader);
+            joinReader(errorReader);
+        } catch (InterruptedException e) {
+            cancelled = true;
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        } finally {
+            finish();
+        }
+
+        if (cancelled) {
+            throw new CancellationException("操作已取消");
+        }
+        if (timedOut) {
+            throw new IOException("命令执行超时（" + timeoutSeconds + " 秒）");
+        }
+        return new Result(process.exitValue(), output.toString(), error.toString());
+    }
+
+    /**
+     * 结束仍在运行的进程
+     */
+    void destroy() {
+        if (process.isAlive()) {
+            process.destroyForcibly();
+        }
+        finish();
+    }
+
+    /**
+     * 进程是否因超时或取消而被强制结束
+     */
+    boolean isTerminated() {
+        return timedOut || cancelled;
+    }
+
+    /**
+     * 获取已读取的错误输出（末尾部分）
+     */
+    String getError() {
+        return error.toString();
+    }
+
+    private void finish() {
+        if (owner != null) {
+            owner.removeProcess(this);
+        }
+        if (timeoutTask != null) {
+            timeoutTask.cancel(false);
+        }
+    }
+
+    private static void joinReader(Thread reader) throws InterruptedException {
+        if (reader != null) {
+            // 子进程可能继承管道导致读取不结束，等待时间有上限
+            reader.join(DRAIN_TIMEOUT_MS);
+        }
+    }
+
+    private static Thread startReader(InputStream inputStream, OutputTail tail, Consumer<String> lineListener,
+                                      String name) {
+        Thread reader = new Thread(() -> {
+            try (BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(inputStream))) {
+                String line;
+                while ((line = bufferedReader.readLine()) != null) {
+                    tail.append(line);
+                    if (lineListener != null) {
+                        lineListener.accept(line);
+                    }
+                }
+            } catch (IOException e) {
+                // 进程被强制结束时管道会关闭，忽略读取错误
+            }
+        }, name);
+        reader.setDaemon(true);
+        reader.start();
+        return reader;
+    }
+
+    /**
+     * 只保留末尾内容的输出缓冲
+     */
+    private static class OutputTail {
+        private final StringBuilder buffer = new StringBuilder();
+        private boolean truncated;
+
+        synchronized void append(String line) {
+            buffer.append(line).append('\n');
+            // 超出上限一倍时再整体裁剪，避免每行都移动数据
+            if (buffer.length() > MAX_OUTPUT_CHARS * 2) {
+                buffer.delete(0, buffer.length() - MAX_OUTPUT_CHARS);
+                truncated = true;
+            }
+        }
+
+        @Override
+        public synchronized String toString() {
+            if (buffer.length() <= MAX_OUTPUT_CHARS && !truncated) {
+                return buffer.toString();
+            }
+            return "...\n" + buffer.substring(Math.max(0, buffer.length() - MAX_OUTPUT_CHARS));
+        }
+    }
+
+    /**
+     * 进程执行结果
+     */
+    static class Result {
+        private final int exitCode;
+        private final String output;
+        private final String error;
+
+        Result(int exitCode, String output, String error) {
+            this.exitCode = exitCode;
+            this.output = output;
+            this.error = error;
+        }
+
+        int getExitCode() {
+            return exitCode;
+        }
+
+        /**
+         * 获取标准输出（末尾部分）
+         */
+        String getOutput() {
+            return output;
+        }
+
+        /**
+         * 获取错误输出（末尾部分）
+         */
+        String getError() {
+            return error;
+        }
+    }
+}
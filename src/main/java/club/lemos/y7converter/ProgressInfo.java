@@ -0,0 +1,153 @@
+package club.lemos.y7converter;
+
+/**
+ * 处理进度信息
+ * FFmpeg 阶段包含已处理的媒体时长、处理速度和输出大小；其他阶段只有阶段名称
+ */
+public class ProgressInfo {
+
+    private final String stage;
+    private final String inputName;
+    private final long processedMs;
+    private final long totalMs;
+    private final double speed;
+    private final long totalSize;
+    private final long elapsedMs;
+    private final boolean finished;
+
+    public ProgressInfo(String stage, String inputName, long processedMs, long totalMs, double speed,
+                        long totalSize, long elapsedMs, boolean finished) {
+        this.stage = stage;
+        this.inputName = inputName;
+        this.processedMs = processedMs;
+        this.totalMs = totalMs;
+        this.speed = speed;
+        this.totalSize = totalSize;
+        this.elapsedMs = elapsedMs;
+        this.finished = finished;
+    }
+
+    /**
+     * 创建只有阶段名称的进度
+     *
+     * @param stage     阶段名称
+     * @param inputName 输入文件名
+     * @return 进度信息
+     */
+    public static ProgressInfo stage(String stage, String inputName) {
+        return new ProgressInfo(stage, inputName, -1, -1, 0, -1, 0, false);
+    }
+
+    /**
+     * 获取阶段名称，如"音频提取"
+     */
+    public String getStage() {
+        return stage;
+    }
+
+    /**
+     * 获取输入文件名
+     */
+    public String getInputName() {
+        return inputName;
+    }
+
+    /**
+     * 获取已处理的媒体时长（毫秒），未知时为-1
+     */
+    public long getProcessedMs() {
+        return processedMs;
+    }
+
+    /**
+     * 获取媒体总时长（毫秒），未知时为-1
+     */
+    public long getTotalMs() {
+        return totalMs;
+    }
+
+    /**
+     * 获取处理速度（相对实时的倍数），未知时为0
+     */
+    public double getSpeed() {
+        return speed;
+    }
+
+    /**
+     * 获取已输出的字节数，未知时为-1
+     */
+    public long getTotalSize() {
+        return totalSize;
+    }
+
+    /**
+     * 获取本阶段已耗时（毫秒）
+     */
+    public long getElapsedMs() {
+        return elapsedMs;
+    }
+
+    /**
+     * 本阶段是否已完成
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * 获取完成百分比（0-100），未知时为-1
+     */
+    public int getPercent() {
+        if (finished) {
+            return 100;
+        }
+        if (processedMs < 0 || totalMs <= 0) {
+            return -1;
+        }
+        return (int) Math.min(99, processedMs * 100 / totalMs);
+    }
+
+    /**
+     * 获取预计剩余时间（毫秒），未知时为-1
+     * 优先按当前处理速度估算，没有速度信息时按已耗时的平均速率估算
+     */
+    public long getEtaMs() {
+        if (finished) {
+            return 0;
+        }
+        if (processedMs <= 0 || totalMs <= 0) {
+            return -1;
+        }
+        long remainingMs = Math.max(0, totalMs - processedMs);
+        if (speed > 0) {
+            return (long) (remainingMs / speed);
+        }
+        return elapsedMs > 0 ? remainingMs * elapsedMs / processedMs : -1;
+    }
+
+    /**
+     * 获取适合显示的进度描述
+     */
+    public String getDescription() {
+        StringBuilder description = new StringBuilder(stage);
+        int percent = getPercent();
+        if (percent >= 0) {
+            description.append(' ').append(percent).append('%');
+        }
+        if (speed > 0) {
+            description.append(String.format("（%.1fx", speed));
+            long etaMs = getEtaMs();
+            if (etaMs >= 0 && !finished) {
+                long etaSeconds = (etaMs + 999) / 1000;
+                description.append(String.format("，剩余 %d:%02d", etaSeconds / 60, etaSeconds % 60));
+            }
+            description.append('）');
+        }
+        return description.toString();
+    }
+
+    @Override
+    public String toString() {
+        return getDescription();
+    }
+}
@@ -0,0 +1,16 @@
+package club.lemos.y7converter;
+
+/**
+ * 处理进度监听器
+ * 进度在后台线程中回调，界面更新需自行切换到事件分发线程
+ */
+@FunctionalInterface
+public interface ProgressListener {
+
+    /**
+     * 进度更新
+     *
+     * @param progress 当前进度
+     */
+    void onProgress(ProgressInfo progress);
+}
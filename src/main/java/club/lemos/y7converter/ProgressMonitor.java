@@ -0,0 +1,68 @@
+package club.lemos.y7converter;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 进度广播
+ * 除了单次操作传入的监听器外，统计、日志等全局监听器可在此订阅所有操作的进度
+ */
+public class ProgressMonitor {
+
+    private static final List<ProgressListener> globalListeners = new CopyOnWriteArrayList<>();
+
+    static {
+        // 调试模式下记录每个输入的 FFmpeg 处理速度，便于发现处理缓慢的编码格式
+        if (ConfigLoader.getInstance().isDebugMode()) {
+            addListener(progress -> {
+                if (progress.isFinished() && progress.getTotalSize() >= 0) {
+                    System.out.printf("%s完成: %s，媒体时长 %.1f 秒，耗时 %.1f 秒，速度 %.1fx，输出 %d KB\n",
+                            progress.getStage(), progress.getInputName(), progress.getProcessedMs() / 1000.0,
+                            progress.getElapsedMs() / 1000.0, progress.getSpeed(), progress.getTotalSize() / 1024);
+                }
+            });
+        }
+    }
+
+    /**
+     * 订阅所有操作的进度
+     *
+     * @param listener 进度监听器
+     */
+    public static void addListener(ProgressListener listener) {
+        globalListeners.add(listener);
+    }
+
+    /**
+     * 取消订阅
+     *
+     * @param listener 进度监听器
+     */
+    public static void removeListener(ProgressListener listener) {
+        globalListeners.remove(listener);
+    }
+
+    /**
+     * 向单次操作的监听器和全局监听器发布进度
+     * 监听器抛出的异常不影响处理流程
+     *
+     * @param listener 单次操作的监听器，可为null
+     * @param progress 进度信息
+     */
+    static void publish(ProgressListener listener, ProgressInfo progress) {
+        if (listener != null) {
+            notify(listener, progress);
+        }
+        for (ProgressListener globalListener : globalListeners) {
+            notify(globalListener, progress);
+        }
+    }
+
+    private static void notify(ProgressListener listener, ProgressInfo progress) {
+        try {
+            listener.onProgress(progress);
+        } catch (RuntimeException e) {
+            System.err.println("进度监听器执行出错: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package club.lemos.y7converter;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.Set;
+
+/**
+ * 实时识别音频接入方式
+ * 通过实时识别接口直接发送音频帧，不需要上传音频或提供可访问的URL；
+ * 配合 FFmpeg 输出流使用时，音频提取与识别同时进行，识别出的句子即时写入字幕。
+ */
+class RealtimeAudioSource implements AudioSource {
+
+    // 实时识别接口支持的音频格式
+    private static final Set<String> SUPPORTED_FORMATS = Set.of("pcm", "wav", "mp3", "opus", "speex", "aac", "amr");
+
+    // FFmpeg 输出流的格式（ADTS 封装的 AAC）
+    private static final String STREAM_FORMAT = "aac";
+
+    @Override
+    public String getName() {
+        return "实时识别";
+    }
+
+    @Override
+    public int transcribe(File audioFile, SrtWriter writer) throws Exception {
+        String format = FileNameUtils.getFileExtension(audioFile).replace(".", "").toLowerCase();
+        if (!SUPPORTED_FORMATS.contains(format)) {
+            throw new IllegalArgumentException("实时识别不支持该音频格式: " + audioFile.getName());
+        }
+
+        System.out.println("正在进行实时语音识别...");
+        try (InputStream inputStream = new BufferedInputStream(new FileInputStream(audioFile))) {
+            return StageLimiter.run(StageLimiter.Stage.RECOGNITION,
+                    () -> SpeechRecognitionService.transcribeAudioStream(inputStream, format, writer));
+        }
+    }
+
+    /**
+     * 实时识别需要声明音频格式与采样率，只接收按配置转码后的音频
+     */
+    @Override
+    public boolean supportsPassthrough() {
+        return false;
+    }
+
+    @Override
+    public boolean supportsStreaming() {
+        return true;
+    }
+
+    /**
+     * FFmpeg 输出的音频直接作为音频帧发送
+     */
+    @Override
+    public int transcribeStream(AudioStream audioStream, SrtWriter writer) throws Exception {
+        System.out.println("正在进行实时语音识别...");
+        int subtitleCount = StageLimiter.run(StageLimiter.Stage.RECOGNITION,
+                () -> SpeechRecognitionService.transcribeAudioStream(audioStream.getInputStream(), STREAM_FORMAT, writer));
+        audioStream.awaitCompletion();
+        return subtitleCount;
+    }
+}
@@ -0,0 +1,158 @@
+package club.lemos.y7converter;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 静音检测工具类
+ * 使用 FFmpeg silencedetect 滤镜找出音频中的静音区间，同时读取输入时长。
+ */
+class SilenceDetector {
+
+    // 静音检测需要解码整个音轨，超时时间按长音频设置
+    private static final long DETECT_TIMEOUT_SECONDS = 1800;
+
+    private static final Pattern DURATION_PATTERN =
+            Pattern.compile("Duration: (\\d+):(\\d{2}):(\\d{2}(?:\\.\\d+)?)");
+    private static final Pattern SILENCE_START_PATTERN =
+            Pattern.compile("silence_start: (-?\\d+(?:\\.\\d+)?)");
+    private static final Pattern SILENCE_END_PATTERN =
+            Pattern.compile("silence_end: (-?\\d+(?:\\.\\d+)?)");
+
+    /**
+     * 检测源文件中的静音区间
+     *
+     * @param sourceFile 源视频或音频文件
+     * @return 检测结果
+     * @throws IOException 如果 FFmpeg 执行失败
+     */
+    static Result detect(File sourceFile) throws IOException {
+        return detect(sourceFile, ConfigLoader.getInstance().getSilenceMinDuration());
+    }
+
+    /**
+     * 检测源文件中不短于指定时长的静音区间
+     *
+     * @param sourceFile        源视频或音频文件
+     * @param minSilenceSeconds 最短静音时长（秒）
+     * @return 检测结果
+     * @throws IOException 如果 FFmpeg 执行失败
+     */
+    static Result detect(File sourceFile, double minSilenceSeconds) throws IOException {
+        ConfigLoader config = ConfigLoader.getInstance();
+        List<String> command = FFmpegUtil.buildSilenceDetectCommand(FFmpegUtil.getFFmpegPath(), sourceFile,
+                config.getSilenceNoiseDb(), minSilenceSeconds);
+
+        // 长音频的检测输出很多，逐行解析而不是解析保留的末尾输出
+        OutputParser parser = new OutputParser();
+        FFmpegUtil.runCommand(command, DETECT_TIMEOUT_SECONDS, parser::accept);
+        Result result = parser.getResult();
+        if (result.getDurationMs() <= 0) {
+            throw new IOException("无法获取音频时长: " + sourceFile.getAbsolutePath());
+        }
+
+        if (config.isDebugMode()) {
+            System.out.println("静音检测完成，音频时长 " + result.getDurationMs() + " 毫秒，静音区间 " +
+                    result.getSilences().size() + " 个");
+        }
+        return result;
+    }
+
+    private static long secondsToMillis(String seconds) {
+        return Math.round(Double.parseDouble(seconds) * 1000);
+    }
+
+    /**
+     * 逐行解析静音检测输出
+     */
+    private static class OutputParser {
+        private long durationMs;
+        private final List<Interval> silences = new ArrayList<>();
+        private long silenceStartMs = -1;
+
+        void accept(String line) {
+            Matcher durationMatcher = DURATION_PATTERN.matcher(line);
+            if (durationMs == 0 && durationMatcher.find()) {
+                durationMs = Long.parseLong(durationMatcher.group(1)) * 3600000 +
+                        Long.parseLong(durationMatcher.group(2)) * 60000 +
+                        secondsToMillis(durationMatcher.group(3));
+                return;
+            }
+
+            Matcher startMatcher = SILENCE_START_PATTERN.matcher(line);
+            if (startMatcher.find()) {
+                silenceStartMs = Math.max(0, secondsToMillis(startMatcher.group(1)));
+                return;
+            }
+
+            Matcher endMatcher = SILENCE_END_PATTERN.matcher(line);
+            if (endMatcher.find() && silenceStartMs >= 0) {
+                silences.add(new Interval(silenceStartMs, secondsToMillis(endMatcher.group(1))));
+                silenceStartMs = -1;
+            }
+        }
+
+        Result getResult() {
+            List<Interval> result = new ArrayList<>(silences);
+            // 音频以静音结尾时没有 silence_end，静音持续到结尾
+            if (silenceStartMs >= 0 && durationMs > silenceStartMs) {
+                result.add(new Interval(silenceStartMs, durationMs));
+            }
+            return new Result(durationMs, result);
+        }
+    }
+
+    /**
+     * 时间区间（毫秒）
+     */
+    static class Interval {
+        final long startMs;
+        final long endMs;
+
+        Interval(long startMs, long endMs) {
+            this.startMs = startMs;
+            this.endMs = endMs;
+        }
+
+        long getDurationMs() {
+            return endMs - startMs;
+        }
+
+        @Override
+        public String toString() {
+            return startMs + "-" + endMs;
+        }
+    }
+
+    /**
+     * 静音检测结果
+     */
+    static class Result {
+        private final long durationMs;
+        private final List<Interval> silences;
+
+        Result(long durationMs, List<Interval> silences) {
+            this.durationMs = durationMs;
+            this.silences = Collections.unmodifiableList(silences);
+        }
+
+        /**
+         * 获取音频时长（毫秒）
+         */
+        long getDurationMs() {
+            return durationMs;
+        }
+
+        /**
+         * 获取按时间顺序排列的静音区间
+         */
+        List<Interval> getSilences() {
+            return silences;
+        }
+    }
+}
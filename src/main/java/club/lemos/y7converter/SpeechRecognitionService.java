@@ -1,19 +1,41 @@
 package club.lemos.y7converter;
 
+import com.alibaba.dashscope.api.AsynchronousApi;
+import com.alibaba.dashscope.audio.asr.recognition.Recognition;
+import com.alibaba.dashscope.audio.asr.recognition.RecognitionParam;
+import com.alibaba.dashscope.audio.asr.recognition.RecognitionResult;
+import com.alibaba.dashscope.audio.asr.recognition.timestamp.Sentence;
 import com.alibaba.dashscope.audio.asr.transcription.*;
+import com.alibaba.dashscope.common.Function;
+import com.alibaba.dashscope.common.ResultCallback;
+import com.alibaba.dashscope.common.Task;
+import com.alibaba.dashscope.common.TaskGroup;
 import com.alibaba.dashscope.common.TaskStatus;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
-
-import java.io.BufferedReader;
+import com.alibaba.dashscope.protocol.ApiServiceOption;
+import com.alibaba.dashscope.protocol.HttpMethod;
+import com.alibaba.dashscope.protocol.Protocol;
+import com.alibaba.dashscope.protocol.StreamingMode;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.reflect.Field;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * 语音识别服务类
@@ -23,14 +45,18 @@ public class SpeechRecognitionService {
 
     private static final ConfigLoader config = ConfigLoader.getInstance();
 
+    // 实时识别每次发送的音频帧大小
+    private static final int AUDIO_FRAME_SIZE = 3200;
+
     /**
      * 使用网络URL进行语音识别
      *
      * @param audioUrl 音频文件的网络URL
-     * @return 识别结果字符串
+     * @param writer   字幕写入器，识别出的句子逐条写入
+     * @return 写入的字幕条数
      * @throws Exception 如果识别失败
      */
-    public static String transcribeAudioFromUrl(String audioUrl) throws Exception {
+    static int transcribeAudioFromUrl(String audioUrl, SrtWriter writer) throws Exception {
         // 获取API Key，优先使用配置文件，否则使用环境变量
         String apiKey = config.getDashScopeApiKey();
         if (apiKey == null || apiKey.trim().isEmpty()) {
@@ -47,19 +73,24 @@ public class SpeechRecognitionService {
                 .build();
 
         try {
-            Transcription transcription = new Transcription();
+            // 地址随本次请求的服务选项传入，不修改SDK的全局默认地址
+            String baseUrl = getConfiguredUrl(config.getSpeechBaseUrl());
+            AsynchronousApi<TranscriptionParam> transcriptionApi = new AsynchronousApi<>();
+            ApiServiceOption serviceOption = createTranscriptionServiceOption(baseUrl);
 
             // 提交转写请求
-            TranscriptionResult result = transcription.asyncCall(param);
+            TranscriptionResult result = TranscriptionResult.fromDashScopeResult(DashScopeRateLimiter.getInstance()
+                    .execute(0, () -> transcriptionApi.asyncCall(param, serviceOption)));
             System.out.println("语音识别请求已提交，RequestId: " + result.getRequestId());
 
             // 阻塞等待任务完成并获取结果
             TranscriptionQueryParam queryParam = TranscriptionQueryParam.FromTranscriptionParam(param, result.getTaskId());
-            result = transcription.wait(queryParam);
+            result = TranscriptionResult.fromDashScopeResult(transcriptionApi.wait(
+                    queryParam.getTaskId(), queryParam.getApiKey(), baseUrl, queryParam.getCustomHeaders()));
 
             if (result.getTaskStatus() == TaskStatus.SUCCEEDED) {
                 // 任务完成，解析结果
-                return parseTranscriptionResult(result);
+                return parseTranscriptionResult(result, writer);
             } else {
                 throw new RuntimeException("语音识别失败：未返回有效结果");
             }
@@ -70,40 +101,189 @@ public class SpeechRecognitionService {
     }
 
     /**
-     * 解析语音识别结果，转换为字幕格式
+     * 使用实时识别接口识别音频流
+     * 音频按帧直接发送，识别出的完整句子即时写入字幕
      *
-     * @param result 识别结果
-     * @return 格式化的字幕文本
+     * @param audioStream 音频数据流
+     * @param format      音频格式（如 aac、mp3、wav、pcm）
+     * @param writer      字幕写入器
+     * @return 写入的字幕条数
+     * @throws Exception 如果识别失败
      */
-    private static String parseTranscriptionResult(TranscriptionResult result) {
+    static int transcribeAudioStream(InputStream audioStream, String format, SrtWriter writer) throws Exception {
+        String apiKey = config.getDashScopeApiKey();
+        if (apiKey == null || apiKey.trim().isEmpty()) {
+            throw new Exception("DashScope API Key未配置。请在配置文件中设置 speech_recognition.dashscope.api_key 或设置环境变量 DASHSCOPE_API_KEY");
+        }
+
+        RecognitionParam param = RecognitionParam.builder()
+                .apiKey(apiKey)
+                .model(config.getRealtimeSpeechModel())
+                .format(format)
+                .sampleRate(config.getRealtimeSampleRate())
+                .parameter("language_hints", config.getLanguageHints().toArray(new String[0]))
+                .build();
+
+        CountDownLatch completed = new CountDownLatch(1);
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        // 最近一次收到识别结果的时间，用于判断连接是否已中断
+        AtomicLong lastEventNanos = new AtomicLong(System.nanoTime());
+        // 方法返回后调用方会关闭写入器，此后到达的回调不再写入
+        AtomicBoolean finished = new AtomicBoolean();
+
+        // 识别结果在 SDK 的回调线程中写入，主线程只负责发送音频帧
+        ResultCallback<RecognitionResult> callback = new ResultCallback<RecognitionResult>() {
+            @Override
+            public void onEvent(RecognitionResult result) {
+                lastEventNanos.set(System.nanoTime());
+                if (!result.isSentenceEnd() || result.getSentence() == null) {
+                    return;
+                }
+                Sentence sentence = result.getSentence();
+                String text = sentence.getText() != null ? sentence.getText().trim() : "";
+                if (text.isEmpty()) {
+                    return;
+                }
+                long beginTime = sentence.getBeginTime() != null ? sentence.getBeginTime() : 0;
+                long endTime = sentence.getEndTime() != null ? sentence.getEndTime() : beginTime + 5000;
+                synchronized (finished) {
+                    if (finished.get()) {
+                        return;
+                    }
+                    try {
+                        writer.write(new SubtitleBlock(writer.getCount() + 1, beginTime, endTime, text));
+                        writer.flush();
+                    } catch (IOException e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }
+            }
+
+            @Override
+            public void onComplete() {
+                completed.countDown();
+            }
+
+            @Override
+            public void onError(Exception e) {
+                failure.compareAndSet(null, e);
+                completed.countDown();
+            }
+        };
+
+        Recognition recognizer = null;
+        Thread stopThread = null;
+        boolean ended = false;
         try {
-            StringBuilder subtitleText = new StringBuilder();
+            recognizer = createRecognition();
+            Recognition startedRecognizer = recognizer;
+            DashScopeRateLimiter.getInstance().execute(0, () -> {
+                startedRecognizer.call(param, callback);
+                return null;
+            });
+            System.out.println("实时语音识别已开始");
+
+            byte[] frame = new byte[AUDIO_FRAME_SIZE];
+            int read;
+            while (failure.get() == null && (read = audioStream.read(frame)) > 0) {
+                recognizer.sendAudioFrame(ByteBuffer.wrap(Arrays.copyOf(frame, read)));
+            }
+
+            // 通知服务端音频已发送完毕，并等待剩余结果返回；
+            // SDK 的 stop() 会无限期等待识别结束，因此在单独的线程中调用，由本线程限时等待
+            Recognition stoppingRecognizer = recognizer;
+            stopThread = new Thread(() -> {
+                try {
+                    stoppingRecognizer.stop();
+                } catch (RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                    completed.countDown();
+                }
+            }, "realtime-recognition-stop");
+            stopThread.setDaemon(true);
+            lastEventNanos.set(System.nanoTime());
+            stopThread.start();
+
+            long timeoutSeconds = Math.max(1, config.getRealtimeResultTimeoutSeconds());
+            if (!awaitCompletion(completed, lastEventNanos, TimeUnit.SECONDS.toNanos(timeoutSeconds))) {
+                throw new TimeoutException("超过 " + timeoutSeconds + " 秒未收到识别结果，连接可能已中断");
+            }
+            ended = true;
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            // 回调中已记录的错误通常才是根本原因
+            failure.compareAndSet(null, e);
+        } finally {
+            // 读取或发送音频失败、或等待结果超时时没有正常结束识别，关闭连接，SDK不再回调
+            if (recognizer != null && !ended) {
+                try {
+                    recognizer.getDuplexApi().close(1000, "bye");
+                } catch (RuntimeException e) {
+                    // 连接未建立或已关闭
+                }
+                if (stopThread != null) {
+                    // 结束仍在等待识别完成的 stop()
+                    stopThread.interrupt();
+                }
+            }
+            synchronized (finished) {
+                finished.set(true);
+            }
+        }
+
+        Exception error = failure.get();
+        if (error != null) {
+            throw new Exception("语音识别失败: " + error.getMessage(), error);
+        }
+
+        return writer.getCount();
+    }
+
+    /**
+     * 等待识别结束，每收到一次识别结果就重新计时，长音频持续返回结果时不会超时
+     *
+     * @param completed      识别结束（完成或出错）时计数归零
+     * @param lastEventNanos 最近一次收到识别结果的时间
+     * @param timeoutNanos   没有收到识别结果的最长时间
+     * @return 是否已结束，超时返回false
+     */
+    static boolean awaitCompletion(CountDownLatch completed, AtomicLong lastEventNanos, long timeoutNanos)
+            throws InterruptedException {
+        while (true) {
+            long remaining = timeoutNanos - (System.nanoTime() - lastEventNanos.get());
+            if (remaining <= 0) {
+                return completed.getCount() == 0;
+            }
+            if (completed.await(remaining, TimeUnit.NANOSECONDS)) {
+                return true;
+            }
+        }
+    }
 
+    /**
+     * 解析语音识别结果，转换为字幕格式并写入
+     *
+     * @param result 识别结果
+     * @param writer 字幕写入器
+     * @return 写入的字幕条数
+     */
+    private static int parseTranscriptionResult(TranscriptionResult result, SrtWriter writer) {
+        try {
             List<TranscriptionTaskResult> results = result.getResults();
 
             for (TranscriptionTaskResult transcriptionTaskResult : results) {
                 String transcriptionUrl = transcriptionTaskResult.getTranscriptionUrl();
 
                 if (transcriptionUrl != null && !transcriptionUrl.isEmpty()) {
-                    // 获取transcriptionUrl的内容
-                    String transcriptionContent = fetchTranscriptionContent(transcriptionUrl);
-
-                    // 解析JSON内容
-                    JsonObject transcriptionJson = JsonParser.parseString(transcriptionContent).getAsJsonObject();
-
-                    // 解析转写结果
-                    String srtContent = parseTranscriptionJson(transcriptionJson);
-                    subtitleText.append(srtContent);
+                    // 边下载边解析转写结果
+                    fetchTranscription(transcriptionUrl, writer);
+                    writer.flush();
                 }
             }
 
-            if (subtitleText.isEmpty()) {
-                subtitleText.append("1\n");
-                subtitleText.append("00:00:00,000 --> 00:00:05,000\n");
-                subtitleText.append("未能识别到语音内容\n");
-            }
-
-            return subtitleText.toString().trim();
+            return writer.getCount();
 
         } catch (Exception e) {
             throw new RuntimeException("解析识别结果失败: " + e.getMessage(), e);
@@ -111,12 +291,23 @@ public class SpeechRecognitionService {
     }
 
     /**
-     * 获取transcriptionUrl的内容
+     * 未识别到任何语音时写入一条提示字幕
+     * 由调用方在整个识别结束后调用，分段识别时单个分段为空不写入提示
+     */
+    static void writePlaceholderIfEmpty(SrtWriter writer) throws IOException {
+        if (writer.getCount() == 0) {
+            writer.write(new SubtitleBlock(1, 0, 5000, "未能识别到语音内容"));
+        }
+    }
+
+    /**
+     * 下载转写结果并逐句写入字幕
+     * 响应内容不整体读入内存，按流解析，边读取边写出字幕
      *
      * @param transcriptionUrl 转写结果URL
-     * @return URL内容的JSON字符串
+     * @param writer           字幕写入器，字幕编号接续已写入的条数
      */
-    private static String fetchTranscriptionContent(String transcriptionUrl) throws Exception {
+    static void fetchTranscription(String transcriptionUrl, SrtWriter writer) throws Exception {
         URL url = new URL(transcriptionUrl);
         HttpURLConnection connection = (HttpURLConnection) url.openConnection();
         connection.setRequestMethod("GET");
@@ -128,79 +319,122 @@ public class SpeechRecognitionService {
             throw new Exception("获取转写结果失败，HTTP状态码: " + responseCode);
         }
 
-        StringBuilder content = new StringBuilder();
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                content.append(line);
-            }
+        try (Reader reader = new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8)) {
+            parseTranscription(reader, writer);
         }
-
-        return content.toString();
     }
 
     /**
-     * 解析转写JSON结果，生成SRT格式字幕
+     * 按流解析转写JSON结果，生成SRT格式字幕并写入
+     * 只读取 transcripts[].sentences[] 中每句的 text、begin_time、end_time，词级结果等其他内容直接跳过，
+     * 内存占用与结果大小无关
      *
-     * @param transcriptionJson 转写结果JSON对象
-     * @return SRT格式字幕文本
+     * @param reader 转写结果JSON
+     * @param writer 字幕写入器，字幕编号接续已写入的条数
+     * @throws IOException 如果读取失败或JSON格式不正确
      */
-    private static String parseTranscriptionJson(JsonObject transcriptionJson) {
-        StringBuilder srtContent = new StringBuilder();
-
-        if (!transcriptionJson.has("transcripts")) {
-            return "";
+    static void parseTranscription(Reader reader, SrtWriter writer) throws IOException {
+        JsonReader jsonReader = new JsonReader(reader);
+        jsonReader.beginObject();
+        while (jsonReader.hasNext()) {
+            if ("transcripts".equals(jsonReader.nextName()) && jsonReader.peek() == JsonToken.BEGIN_ARRAY) {
+                jsonReader.beginArray();
+                while (jsonReader.hasNext()) {
+                    parseTranscript(jsonReader, writer);
+                }
+                jsonReader.endArray();
+            } else {
+                jsonReader.skipValue();
+            }
         }
+        jsonReader.endObject();
+    }
 
-        JsonArray transcripts = transcriptionJson.getAsJsonArray("transcripts");
-        int sentenceNumber = 1; // 全局句子编号
-
-        for (JsonElement transcriptElement : transcripts) {
-            JsonObject transcript = transcriptElement.getAsJsonObject();
-
-            if (transcript.has("sentences")) {
-                JsonArray sentences = transcript.getAsJsonArray("sentences");
-
-                for (JsonElement sentenceElement : sentences) {
-                    JsonObject sentence = sentenceElement.getAsJsonObject();
-
-                    // 获取句子信息
-                    String text = sentence.has("text") ? sentence.get("text").getAsString().trim() : "";
-                    long beginTime = sentence.has("begin_time") ? sentence.get("begin_time").getAsLong() : 0;
-                    long endTime = sentence.has("end_time") ? sentence.get("end_time").getAsLong() : beginTime + 5000;
-
-                    if (!text.isEmpty()) {
-                        // 生成SRT条目
-                        srtContent.append(sentenceNumber++).append("\n");
-                        srtContent.append(formatTimestamp(beginTime))
-                                .append(" --> ")
-                                .append(formatTimestamp(endTime))
-                                .append("\n");
-                        srtContent.append(text).append("\n\n");
-                    }
+    private static void parseTranscript(JsonReader jsonReader, SrtWriter writer) throws IOException {
+        jsonReader.beginObject();
+        while (jsonReader.hasNext()) {
+            if ("sentences".equals(jsonReader.nextName()) && jsonReader.peek() == JsonToken.BEGIN_ARRAY) {
+                jsonReader.beginArray();
+                while (jsonReader.hasNext()) {
+                    parseSentence(jsonReader, writer);
                 }
+                jsonReader.endArray();
+            } else {
+                jsonReader.skipValue();
+            }
+        }
+        jsonReader.endObject();
+    }
+
+    private static void parseSentence(JsonReader jsonReader, SrtWriter writer) throws IOException {
+        // 获取句子信息
+        String text = "";
+        long beginTime = 0;
+        long endTime = -1;
+
+        jsonReader.beginObject();
+        while (jsonReader.hasNext()) {
+            String name = jsonReader.nextName();
+            if (jsonReader.peek() == JsonToken.NULL) {
+                jsonReader.nextNull();
+            } else if ("text".equals(name)) {
+                text = jsonReader.nextString().trim();
+            } else if ("begin_time".equals(name)) {
+                beginTime = jsonReader.nextLong();
+            } else if ("end_time".equals(name)) {
+                endTime = jsonReader.nextLong();
+            } else {
+                jsonReader.skipValue();
             }
         }
+        jsonReader.endObject();
 
-        return srtContent.toString();
+        if (!text.isEmpty()) {
+            // 生成SRT条目
+            writer.write(writer.getCount() + 1, beginTime, endTime >= 0 ? endTime : beginTime + 5000, text);
+        }
     }
 
     /**
-     * 将毫秒时间戳格式化为SRT时间格式
+     * 创建录音文件识别的服务选项（与SDK的 Transcription 相同）
      *
-     * @param milliseconds 毫秒时间戳
-     * @return SRT格式时间字符串 (HH:MM:SS,mmm)
+     * @param baseUrl HTTP API地址，为null时使用SDK默认地址
      */
-    private static String formatTimestamp(long milliseconds) {
-        long hours = milliseconds / 3600000;
-        long minutes = (milliseconds % 3600000) / 60000;
-        long seconds = (milliseconds % 60000) / 1000;
-        long millis = milliseconds % 1000;
+    private static ApiServiceOption createTranscriptionServiceOption(String baseUrl) {
+        return ApiServiceOption.builder()
+                .protocol(Protocol.HTTP)
+                .httpMethod(HttpMethod.POST)
+                .streamingMode(StreamingMode.NONE)
+                .taskGroup(TaskGroup.AUDIO.getValue())
+                .task(Task.ASR.getValue())
+                .function(Function.TRANSCRIPTION.getValue())
+                .isAsyncTask(true)
+                .baseHttpUrl(baseUrl)
+                .build();
+    }
 
-        return String.format("%02d:%02d:%02d,%03d", hours, minutes, seconds, millis);
+    /**
+     * 创建实时识别客户端，配置了WebSocket地址时（例如指向本地的模拟服务）只对该客户端生效
+     * SDK 没有提供指定地址的构造方法，因此修改该客户端自己的服务选项，不影响翻译等其他调用
+     */
+    private static Recognition createRecognition() throws Exception {
+        Recognition recognizer = new Recognition();
+        String websocketUrl = getConfiguredUrl(config.getSpeechWebsocketUrl());
+        if (websocketUrl != null) {
+            try {
+                Field serviceOption = Recognition.class.getDeclaredField("serviceOption");
+                serviceOption.setAccessible(true);
+                ((ApiServiceOption) serviceOption.get(recognizer)).setBaseWebSocketUrl(websocketUrl);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                throw new Exception("当前SDK版本不支持指定实时识别地址: " + e.getMessage(), e);
+            }
+        }
+        return recognizer;
     }
 
+    private static String getConfiguredUrl(String url) {
+        return url != null && !url.trim().isEmpty() ? url.trim() : null;
+    }
 
     /**
      * 验证API Key是否已配置
@@ -0,0 +1,137 @@
+package club.lemos.y7converter;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * SRT字幕流式读取器
+ * 逐条解析字幕块，内存占用与文件大小无关
+ */
+class SrtReader implements Iterator<SubtitleBlock>, Closeable {
+
+    private final BufferedReader reader;
+    private final StringBuilder textBuilder = new StringBuilder();
+    private SubtitleBlock currentBlock;
+    private SubtitleBlock nextBlock;
+    private boolean eof;
+    private boolean firstLine = true;
+
+    /**
+     * 打开SRT字幕文件
+     *
+     * @param srtFile SRT字幕文件
+     * @throws IOException 如果文件无法打开
+     */
+    SrtReader(File srtFile) throws IOException {
+        this(new InputStreamReader(new FileInputStream(srtFile), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 从字符流读取SRT字幕
+     *
+     * @param reader 字符流
+     */
+    SrtReader(Reader reader) {
+        this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (nextBlock == null && !eof) {
+            try {
+                nextBlock = readBlock();
+            } catch (IOException e) {
+                throw new UncheckedIOException("读取字幕文件失败: " + e.getMessage(), e);
+            }
+        }
+        return nextBlock != null;
+    }
+
+    @Override
+    public SubtitleBlock next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        SubtitleBlock block = nextBlock;
+        nextBlock = null;
+        return block;
+    }
+
+    /**
+     * 读取下一个完整的字幕块
+     *
+     * @return 字幕块，读到文件末尾时返回null
+     */
+    private SubtitleBlock readBlock() throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (firstLine) {
+                // 跳过UTF-8 BOM
+                firstLine = false;
+                if (line.startsWith("\uFEFF")) {
+                    line = line.substring(1);
+                }
+            }
+            line = line.trim();
+
+            if (line.isEmpty()) {
+                // 空行表示一个字幕块结束
+                if (currentBlock != null && !textBuilder.isEmpty()) {
+                    return completeBlock();
+                }
+            } else if (isNumber(line)) {
+                // 序号行
+                currentBlock = new SubtitleBlock();
+                currentBlock.number = Integer.parseInt(line);
+            } else if (SrtTime.parseRange(line, currentBlock)) {
+                // 时间戳行，起止时间已写入当前字幕块
+            } else {
+                // 文本行
+                if (!textBuilder.isEmpty()) {
+                    textBuilder.append("\n");
+                }
+                textBuilder.append(line);
+            }
+        }
+
+        eof = true;
+
+        // 处理最后一个字幕块
+        if (currentBlock != null && !textBuilder.isEmpty()) {
+            return completeBlock();
+        }
+        return null;
+    }
+
+    /**
+     * 是否为序号行（不超过9位的纯数字）
+     */
+    private static boolean isNumber(String line) {
+        int length = line.length();
+        if (length > 9) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = line.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private SubtitleBlock completeBlock() {
+        SubtitleBlock block = currentBlock;
+        block.text = textBuilder.toString().trim();
+        currentBlock = null;
+        textBuilder.setLength(0);
+        return block;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
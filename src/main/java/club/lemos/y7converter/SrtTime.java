@@ -0,0 +1,212 @@
+package club.lemos.y7converter;
+
+/**
+ * SRT时间格式的格式化与解析
+ * 直接读写字符，不经过 String.format、正则表达式或字符串拆分，处理大量字幕时不产生中间对象。
+ *
+ * <pre>
+ * 时间戳   HH:MM:SS,mmm（小时至少两位，解析时也接受 . 作为毫秒分隔符）
+ * 时间轴行 HH:MM:SS,mmm --> HH:MM:SS,mmm
+ * </pre>
+ */
+final class SrtTime {
+
+    private static final String ARROW = " --> ";
+
+    /**
+     * 时间轴行的最大长度，{@link #formatRange(long, long, char[])} 的缓冲区不应小于该长度
+     */
+    static final int MAX_RANGE_LENGTH = 64;
+
+    private SrtTime() {
+    }
+
+    /**
+     * 将毫秒时间格式化为SRT时间戳
+     *
+     * @param milliseconds 毫秒时间，负数按0处理
+     * @return SRT格式时间字符串 (HH:MM:SS,mmm)
+     */
+    static String format(long milliseconds) {
+        char[] buffer = new char[MAX_RANGE_LENGTH / 2];
+        int length = format(milliseconds, buffer, 0);
+        return new String(buffer, 0, length);
+    }
+
+    /**
+     * 将起止时间格式化为SRT时间轴行
+     *
+     * @param startMs 开始时间（毫秒）
+     * @param endMs   结束时间（毫秒）
+     * @return SRT时间轴行 (HH:MM:SS,mmm --> HH:MM:SS,mmm)
+     */
+    static String formatRange(long startMs, long endMs) {
+        char[] buffer = new char[MAX_RANGE_LENGTH];
+        int length = formatRange(startMs, endMs, buffer);
+        return new String(buffer, 0, length);
+    }
+
+    /**
+     * 将起止时间格式化为SRT时间轴行，写入调用方提供的缓冲区
+     *
+     * @param startMs 开始时间（毫秒）
+     * @param endMs   结束时间（毫秒）
+     * @param buffer  缓冲区，长度不小于 {@link #MAX_RANGE_LENGTH}
+     * @return 写入的字符数
+     */
+    static int formatRange(long startMs, long endMs, char[] buffer) {
+        int position = format(startMs, buffer, 0);
+        ARROW.getChars(0, ARROW.length(), buffer, position);
+        return format(endMs, buffer, position + ARROW.length());
+    }
+
+    /**
+     * 将毫秒时间格式化为SRT时间戳，写入缓冲区的指定位置
+     *
+     * @return 写入后的位置
+     */
+    static int format(long milliseconds, char[] buffer, int offset) {
+        long value = Math.max(0, milliseconds);
+        long hours = value / 3_600_000;
+        int rest = (int) (value % 3_600_000);
+
+        int position = offset;
+        if (hours < 100) {
+            position = twoDigits((int) hours, buffer, position);
+        } else {
+            // 超过99小时时按实际位数输出
+            String digits = Long.toString(hours);
+            digits.getChars(0, digits.length(), buffer, position);
+            position += digits.length();
+        }
+        buffer[position++] = ':';
+        position = twoDigits(rest / 60_000, buffer, position);
+        buffer[position++] = ':';
+        position = twoDigits(rest / 1000 % 60, buffer, position);
+        buffer[position++] = ',';
+        int millis = rest % 1000;
+        buffer[position++] = (char) ('0' + millis / 100);
+        return twoDigits(millis % 100, buffer, position);
+    }
+
+    /**
+     * 解析SRT时间戳
+     *
+     * @param timestamp SRT格式时间字符串 (HH:MM:SS,mmm)，忽略首尾空白
+     * @return 毫秒时间
+     * @throws IllegalArgumentException 如果格式不正确
+     */
+    static long parse(CharSequence timestamp) {
+        int start = skipWhitespace(timestamp, 0, timestamp.length());
+        int end = trimEnd(timestamp, start, timestamp.length());
+        long milliseconds = parse(timestamp, start, end);
+        if (milliseconds < 0) {
+            throw new IllegalArgumentException("时间戳格式不正确: " + timestamp);
+        }
+        return milliseconds;
+    }
+
+    /**
+     * 解析字符序列中指定区间的SRT时间戳
+     *
+     * @return 毫秒时间，格式不正确时返回-1
+     */
+    static long parse(CharSequence text, int start, int end) {
+        // 小时至少一位，其后固定为 :MM:SS,mmm 共10个字符
+        int hoursEnd = end - 10;
+        if (hoursEnd <= start || hoursEnd - start > 9) {
+            return -1;
+        }
+        long hours = 0;
+        for (int i = start; i < hoursEnd; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            hours = hours * 10 + digit;
+        }
+
+        char millisSeparator = text.charAt(hoursEnd + 6);
+        if (text.charAt(hoursEnd) != ':' || text.charAt(hoursEnd + 3) != ':'
+                || (millisSeparator != ',' && millisSeparator != '.')) {
+            return -1;
+        }
+        int minutes = digits(text, hoursEnd + 1, 2);
+        int seconds = digits(text, hoursEnd + 4, 2);
+        int millis = digits(text, hoursEnd + 7, 3);
+        if (minutes < 0 || seconds < 0 || millis < 0) {
+            return -1;
+        }
+        return hours * 3_600_000 + minutes * 60_000L + seconds * 1000L + millis;
+    }
+
+    /**
+     * 解析SRT时间轴行
+     *
+     * @param line   时间轴行 (HH:MM:SS,mmm --> HH:MM:SS,mmm)，箭头两侧的空白数量不限
+     * @param target 接收起止时间的字幕块，为null时只检查格式
+     * @return 是否为有效的时间轴行
+     */
+    static boolean parseRange(CharSequence line, SubtitleBlock target) {
+        int length = line.length();
+        int arrow = indexOfArrow(line, length);
+        if (arrow < 0) {
+            return false;
+        }
+
+        int start = skipWhitespace(line, 0, arrow);
+        long startMs = parse(line, start, trimEnd(line, start, arrow));
+        int endStart = skipWhitespace(line, arrow + 3, length);
+        long endMs = parse(line, endStart, trimEnd(line, endStart, length));
+        if (startMs < 0 || endMs < 0) {
+            return false;
+        }
+
+        if (target != null) {
+            target.startMs = startMs;
+            target.endMs = endMs;
+        }
+        return true;
+    }
+
+    private static int twoDigits(int value, char[] buffer, int position) {
+        buffer[position] = (char) ('0' + value / 10);
+        buffer[position + 1] = (char) ('0' + value % 10);
+        return position + 2;
+    }
+
+    private static int digits(CharSequence text, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static int indexOfArrow(CharSequence line, int length) {
+        for (int i = 0; i + 2 < length; i++) {
+            if (line.charAt(i) == '-' && line.charAt(i + 1) == '-' && line.charAt(i + 2) == '>') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int skipWhitespace(CharSequence text, int start, int end) {
+        while (start < end && Character.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+        return start;
+    }
+
+    private static int trimEnd(CharSequence text, int start, int end) {
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        return end;
+    }
+}
@@ -0,0 +1,137 @@
+package club.lemos.y7converter;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * SRT字幕增量写入器
+ * 字幕块逐条写入，调用 {@link #flush()} 后已写内容即落盘
+ */
+class SrtWriter implements Closeable, Flushable {
+
+    private final BufferedWriter writer;
+    // 时间轴行的格式化缓冲区，逐条复用
+    private final char[] timestampBuffer = new char[SrtTime.MAX_RANGE_LENGTH];
+    private int count;
+    private TimeOffsetMap timeOffsetMap;
+    private BlockListener blockListener;
+
+    /**
+     * 创建写入指定文件的SRT写入器（覆盖已有内容）
+     *
+     * @param outputFile 输出文件
+     * @throws IOException 如果文件无法创建
+     */
+    SrtWriter(File outputFile) throws IOException {
+        this(new OutputStreamWriter(new FileOutputStream(outputFile), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 创建写入字符流的SRT写入器
+     *
+     * @param writer 字符流
+     */
+    SrtWriter(Writer writer) {
+        this.writer = writer instanceof BufferedWriter ? (BufferedWriter) writer : new BufferedWriter(writer);
+    }
+
+    /**
+     * 设置时间映射，写入时将时间轴从裁剪后的音频换算回原始音频
+     *
+     * @param timeOffsetMap 时间映射，为null时不换算
+     */
+    void setTimeOffsetMap(TimeOffsetMap timeOffsetMap) {
+        this.timeOffsetMap = timeOffsetMap;
+    }
+
+    /**
+     * 设置字幕块监听器，每写入一个字幕块（时间轴已换算）即通知，用于边识别边翻译
+     *
+     * @param blockListener 字幕块监听器，为null时不通知
+     */
+    void setBlockListener(BlockListener blockListener) {
+        this.blockListener = blockListener;
+    }
+
+    /**
+     * 写入一个字幕块
+     */
+    void write(SubtitleBlock block) throws IOException {
+        write(block.number, block.startMs, block.endMs, block.text, block);
+    }
+
+    /**
+     * 写入一条字幕，不需要先构造字幕块（设置了监听器时才为监听器创建）
+     */
+    void write(int number, long startMs, long endMs, String text) throws IOException {
+        write(number, startMs, endMs, text, null);
+    }
+
+    private void write(int number, long startMs, long endMs, String text, SubtitleBlock block) throws IOException {
+        // 添加空行分隔（除了第一个块）
+        if (count > 0) {
+            writer.newLine();
+        }
+
+        long writtenStartMs = startMs;
+        long writtenEndMs = endMs;
+        if (timeOffsetMap != null) {
+            writtenStartMs = timeOffsetMap.toOriginal(startMs);
+            writtenEndMs = Math.max(writtenStartMs, timeOffsetMap.toOriginal(endMs));
+        }
+        writer.write(Integer.toString(number));
+        writer.newLine();
+        writer.write(timestampBuffer, 0, SrtTime.formatRange(writtenStartMs, writtenEndMs, timestampBuffer));
+        writer.newLine();
+        writer.write(text);
+        writer.newLine();
+
+        count++;
+
+        if (blockListener != null) {
+            blockListener.onBlock(block != null && writtenStartMs == startMs && writtenEndMs == endMs ? block
+                    : new SubtitleBlock(number, writtenStartMs, writtenEndMs, text));
+        }
+    }
+
+    /**
+     * 写入一批字幕块
+     */
+    void writeAll(List<SubtitleBlock> blocks) throws IOException {
+        for (SubtitleBlock block : blocks) {
+            write(block);
+        }
+    }
+
+    /**
+     * 获取已写入的字幕块数量
+     */
+    int getCount() {
+        return count;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    /**
+     * 字幕块监听器
+     */
+    @FunctionalInterface
+    interface BlockListener {
+        /**
+         * 字幕块写入后调用（在写入线程中回调）
+         *
+         * @param block 写入的字幕块
+         * @throws IOException 如果处理失败，写入随之失败
+         */
+        void onBlock(SubtitleBlock block) throws IOException;
+    }
+}
@@ -0,0 +1,221 @@
+package club.lemos.y7converter;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * 处理阶段并发限制
+ * 资源消耗不同的阶段分别限制同时进行的数量：音频提取占用CPU，上传占用网络带宽，识别与翻译受API配额限制。
+ * 多个文件同时处理时，各阶段互不占用名额，下一个文件可以在上一个文件识别期间提取音频。
+ * 同时按线程记录各阶段的等待与执行时间，写入命令执行结果的统计数据；
+ * 该记录也登记任务启动的外部进程，取消任务时只结束这些进程，不影响同时进行的其他任务。
+ */
+public class StageLimiter {
+
+    /**
+     * 处理阶段
+     */
+    public enum Stage {
+        EXTRACT("音频提取", "extract"),
+        UPLOAD("上传", "upload"),
+        RECOGNITION("语音识别", "recognition"),
+        TRANSLATION("字幕翻译", "translation");
+
+        private final String description;
+        private final String key;
+
+        Stage(String description, String key) {
+            this.description = description;
+            this.key = key;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        /**
+         * 获取配置与统计数据中使用的名称
+         */
+        public String getKey() {
+            return key;
+        }
+    }
+
+    private static final Map<Stage, Semaphore> semaphores = new EnumMap<>(Stage.class);
+
+    // 当前线程所属任务的阶段耗时记录
+    private static final ThreadLocal<Timings> currentTimings = new ThreadLocal<>();
+
+    /**
+     * 在阶段名额内执行任务，名额已满时等待
+     *
+     * @param stage 处理阶段
+     * @param task  任务
+     * @return 任务结果
+     * @throws Exception 任务抛出的异常
+     * @throws CancellationException 如果等待名额时线程被中断
+     */
+    static <T> T run(Stage stage, StageTask<T> task) throws Exception {
+        Semaphore semaphore = getSemaphore(stage);
+        long waitStart = System.nanoTime();
+        try {
+            semaphore.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("操作已取消");
+        }
+
+        long runStart = System.nanoTime();
+        try {
+            return task.call();
+        } finally {
+            semaphore.release();
+            Timings timings = currentTimings.get();
+            if (timings != null) {
+                timings.record(stage, runStart - waitStart, System.nanoTime() - runStart);
+            }
+        }
+    }
+
+    /**
+     * 开始记录当前线程的阶段耗时
+     *
+     * @return 新的耗时记录；当前线程已在记录时返回null（由外层负责结束记录）
+     */
+    static Timings startRecording() {
+        if (currentTimings.get() != null) {
+            return null;
+        }
+        Timings timings = new Timings();
+        currentTimings.set(timings);
+        return timings;
+    }
+
+    /**
+     * 获取当前线程的耗时记录，用于交给同一任务的其他线程
+     *
+     * @return 耗时记录，没有时返回null
+     */
+    static Timings currentRecording() {
+        return currentTimings.get();
+    }
+
+    /**
+     * 在其他线程中执行同一任务的工作，阶段耗时计入指定的记录
+     *
+     * @param timings 耗时记录，可为null
+     * @param task    任务
+     * @return 任务结果
+     * @throws Exception 任务抛出的异常
+     */
+    static <T> T runRecording(Timings timings, StageTask<T> task) throws Exception {
+        Timings previous = currentTimings.get();
+        currentTimings.set(timings);
+        try {
+            return task.call();
+        } finally {
+            if (previous != null) {
+                currentTimings.set(previous);
+            } else {
+                currentTimings.remove();
+            }
+        }
+    }
+
+    /**
+     * 结束记录当前线程的阶段耗时
+     */
+    static void stopRecording() {
+        currentTimings.remove();
+    }
+
+    private static synchronized Semaphore getSemaphore(Stage stage) {
+        return semaphores.computeIfAbsent(stage,
+                s -> new Semaphore(Math.max(1, ConfigLoader.getInstance().getStageLimit(s.getKey())), true));
+    }
+
+    /**
+     * 阶段任务
+     */
+    @FunctionalInterface
+    interface StageTask<T> {
+        T call() throws Exception;
+    }
+
+    /**
+     * 一个任务各阶段的等待与执行时间，以及任务启动的外部进程
+     * 分段并行识别时多个线程同时记录，执行时间为各线程之和
+     */
+    static class Timings {
+        private final long[] waitNanos = new long[Stage.values().length];
+        private final long[] runNanos = new long[Stage.values().length];
+        private final boolean[] used = new boolean[Stage.values().length];
+        private final Set<ProcessRunner> processes = new HashSet<>();
+        private boolean cancelled;
+
+        synchronized void record(Stage stage, long waited, long ran) {
+            waitNanos[stage.ordinal()] += waited;
+            runNanos[stage.ordinal()] += ran;
+            used[stage.ordinal()] = true;
+        }
+
+        /**
+         * 将各阶段耗时写入统计数据（stage_<阶段>_ms 与 stage_<阶段>_wait_ms）
+         */
+        synchronized void addTo(CommandResult commandResult) {
+            for (Stage stage : Stage.values()) {
+                if (used[stage.ordinal()]) {
+                    commandResult.addStat("stage_" + stage.getKey() + "_ms", runNanos[stage.ordinal()] / 1_000_000);
+                    commandResult.addStat("stage_" + stage.getKey() + "_wait_ms", waitNanos[stage.ordinal()] / 1_000_000);
+                }
+            }
+        }
+
+        /**
+         * 登记任务启动的进程
+         *
+         * @return 是否已登记；任务已取消时返回false，由调用方结束该进程
+         */
+        synchronized boolean addProcess(ProcessRunner runner) {
+            if (cancelled) {
+                return false;
+            }
+            processes.add(runner);
+            return true;
+        }
+
+        synchronized void removeProcess(ProcessRunner runner) {
+            processes.remove(runner);
+        }
+
+        synchronized boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * 取消任务：结束任务中运行的进程，此后任务不能再启动新的进程
+         *
+         * @return 被结束的进程数量
+         */
+        int cancelProcesses() {
+            List<ProcessRunner> running;
+            synchronized (this) {
+                cancelled = true;
+                running = new ArrayList<>(processes);
+            }
+            int count = 0;
+            for (ProcessRunner runner : running) {
+                if (runner.cancel()) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+}
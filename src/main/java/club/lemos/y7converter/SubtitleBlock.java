@@ -0,0 +1,22 @@
+package club.lemos.y7converter;
+
+/**
+ * 字幕块数据结构
+ * 起止时间以毫秒保存，读写SRT时由 {@link SrtTime} 转换
+ */
+class SubtitleBlock {
+    int number;       // 序号
+    long startMs;     // 开始时间（毫秒）
+    long endMs;       // 结束时间（毫秒）
+    String text;      // 文本内容
+
+    SubtitleBlock() {
+    }
+
+    SubtitleBlock(int number, long startMs, long endMs, String text) {
+        this.number = number;
+        this.startMs = startMs;
+        this.endMs = endMs;
+        this.text = text;
+    }
+}
@@ -0,0 +1,183 @@
+package club.lemos.y7converter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * 字幕结果缓存
+ * 以源文件内容哈希、语音识别模型、语言提示以及影响识别结果的处理设置（分段、语音活动检测、音轨直通等）为键，缓存已生成的SRT字幕。
+ * 未识别到语音的结果不缓存。
+ * 同一文件再次生成字幕时直接返回缓存结果，跳过音频提取、上传与识别。
+ * 缓存总大小超过上限时，按最近使用时间删除最旧的字幕。
+ */
+public class SubtitleCache {
+
+    private static final String CACHE_DIR_NAME = "y7converter_cache";
+    private static final String SUBTITLE_DIR_NAME = "subtitles";
+    private static final String SUBTITLE_SUFFIX = ".srt";
+
+    private static SubtitleCache instance;
+
+    private final ConfigLoader config;
+    private final File cacheDir;
+
+    private SubtitleCache() {
+        this.config = ConfigLoader.getInstance();
+        this.cacheDir = new File(new File(config.getTempDir(), CACHE_DIR_NAME), SUBTITLE_DIR_NAME);
+    }
+
+    /**
+     * 获取字幕结果缓存实例（单例模式）
+     *
+     * @return 字幕结果缓存实例
+     */
+    public static synchronized SubtitleCache getInstance() {
+        if (instance == null) {
+            instance = new SubtitleCache();
+        }
+        return instance;
+    }
+
+    /**
+     * 是否启用字幕结果缓存
+     */
+    public boolean isEnabled() {
+        return config.isSubtitleCacheEnabled();
+    }
+
+    /**
+     * 计算源文件对应的缓存键
+     *
+     * @param sourceFile 源视频或音频文件
+     * @return 缓存键
+     * @throws IOException 如果读取文件失败
+     */
+    public String computeKey(File sourceFile) throws IOException {
+        return HashUtils.sha256Hex(HashUtils.fileContentHash(sourceFile),
+                config.getSpeechModel(), String.join(",", config.getLanguageHints()), describeRecognitionSettings());
+    }
+
+    /**
+     * 描述影响识别结果的处理设置，未启用的处理不计入
+     */
+    private String describeRecognitionSettings() {
+        StringBuilder settings = new StringBuilder();
+        if ("realtime".equalsIgnoreCase(config.getSpeechAudioSource().trim())) {
+            settings.append("realtime=").append(config.getRealtimeSpeechModel())
+                    .append(',').append(config.getRealtimeSampleRate()).append(';');
+        }
+        if (config.isChunkedTranscriptionEnabled()) {
+            settings.append("chunking=").append(config.getChunkDurationSeconds()).append(';');
+        }
+        if (config.isVadEnabled()) {
+            settings.append("vad=").append(config.getVadMinSilenceSeconds())
+                    .append(',').append(config.getVadPaddingMs()).append(';');
+        }
+        if (config.isChunkedTranscriptionEnabled() || config.isVadEnabled()) {
+            settings.append("silence=").append(config.getSilenceNoiseDb())
+                    .append(',').append(config.getSilenceMinDuration()).append(';');
+        }
+        if (config.isPassthroughEnabled()) {
+            settings.append("passthrough=").append(String.join(",", config.getPassthroughCodecs()))
+                    .append(',').append(config.getPassthroughMaxChannels())
+                    .append(',').append(config.getPassthroughMaxBitRateKbps()).append(';');
+        }
+        return settings.toString();
+    }
+
+    /**
+     * 查找缓存的字幕
+     *
+     * @param key 缓存键
+     * @return 缓存的字幕文件，未命中时返回null
+     */
+    public synchronized File lookup(String key) {
+        File cachedFile = getCacheFile(key);
+        if (!cachedFile.isFile()) {
+            return null;
+        }
+        // 更新最近使用时间，供淘汰时参考
+        cachedFile.setLastModified(System.currentTimeMillis());
+        return cachedFile;
+    }
+
+    /**
+     * 将生成的字幕存入缓存，并按容量上限淘汰旧字幕
+     *
+     * @param key          缓存键
+     * @param subtitleFile 生成的字幕文件
+     */
+    public synchronized void store(String key, File subtitleFile) {
+        try {
+            if (!cacheDir.isDirectory() && !cacheDir.mkdirs()) {
+                throw new IOException("无法创建缓存目录: " + cacheDir.getAbsolutePath());
+            }
+
+            // 先复制到临时文件再原子替换，避免其他读取方看到不完整的字幕
+            File tempFile = new File(cacheDir, key + SUBTITLE_SUFFIX + ".tmp");
+            Files.copy(subtitleFile.toPath(), tempFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            Files.move(tempFile.toPath(), getCacheFile(key).toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            evict();
+        } catch (IOException e) {
+            System.err.println("警告: 保存字幕缓存失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 删除指定源文件的缓存字幕
+     *
+     * @param sourceFile 源视频或音频文件
+     * @return 是否删除了缓存
+     * @throws IOException 如果读取源文件失败
+     */
+    public synchronized boolean invalidate(File sourceFile) throws IOException {
+        return getCacheFile(computeKey(sourceFile)).delete();
+    }
+
+    /**
+     * 清空全部缓存字幕
+     */
+    public synchronized void clear() {
+        for (File cachedFile : listCachedFiles()) {
+            cachedFile.delete();
+        }
+    }
+
+    /**
+     * 缓存总大小超过上限时，删除最久未使用的字幕
+     */
+    private void evict() {
+        long maxBytes = Math.max(0, config.getSubtitleCacheMaxSizeMb()) * 1024L * 1024L;
+        File[] cachedFiles = listCachedFiles();
+        long totalBytes = Arrays.stream(cachedFiles).mapToLong(File::length).sum();
+        if (totalBytes <= maxBytes) {
+            return;
+        }
+
+        Arrays.sort(cachedFiles, Comparator.comparingLong(File::lastModified));
+        for (File cachedFile : cachedFiles) {
+            if (totalBytes <= maxBytes) {
+                break;
+            }
+            long length = cachedFile.length();
+            if (cachedFile.delete()) {
+                totalBytes -= length;
+            }
+        }
+    }
+
+    private File[] listCachedFiles() {
+        File[] cachedFiles = cacheDir.listFiles((dir, name) -> name.endsWith(SUBTITLE_SUFFIX));
+        return cachedFiles != null ? cachedFiles : new File[0];
+    }
+
+    private File getCacheFile(String key) {
+        return new File(cacheDir, key + SUBTITLE_SUFFIX);
+    }
+}
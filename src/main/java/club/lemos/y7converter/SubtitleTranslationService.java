@@ -3,18 +3,26 @@ package club.lemos.y7converter;
 import com.alibaba.dashscope.aigc.generation.Generation;
 import com.alibaba.dashscope.aigc.generation.GenerationParam;
 import com.alibaba.dashscope.aigc.generation.GenerationResult;
+import com.alibaba.dashscope.aigc.generation.GenerationUsage;
 import com.alibaba.dashscope.aigc.generation.TranslationOptions;
 import com.alibaba.dashscope.common.Role;
 import com.alibaba.dashscope.common.Message;
 import com.alibaba.dashscope.exception.ApiException;
 import com.alibaba.dashscope.exception.InputRequiredException;
 import com.alibaba.dashscope.exception.NoApiKeyException;
+import com.alibaba.dashscope.protocol.Protocol;
 
-import java.io.*;
-import java.nio.charset.StandardCharsets;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -25,14 +33,6 @@ import java.util.regex.Pattern;
 public class SubtitleTranslationService {
 
     private static final ConfigLoader config = ConfigLoader.getInstance();
-    
-    // SRT字幕时间戳的正则表达式
-    private static final Pattern SRT_TIMESTAMP_PATTERN = Pattern.compile(
-        "^(\\d{2}:\\d{2}:\\d{2},\\d{3}) --> (\\d{2}:\\d{2}:\\d{2},\\d{3})$"
-    );
-    
-    // SRT字幕序号的正则表达式
-    private static final Pattern SRT_NUMBER_PATTERN = Pattern.compile("^\\d+$");
 
     /**
      * 翻译字幕文件
@@ -41,136 +41,168 @@ public class SubtitleTranslationService {
      * @param outputFile 输出的翻译后字幕文件
      * @param sourceLang 源语言
      * @param targetLang 目标语言
-     * @return 翻译结果信息
+     * @return 翻译结果
      * @throws Exception 如果翻译失败
      */
-    public static String translateSubtitleFile(File inputFile, File outputFile, String sourceLang, String targetLang) throws Exception {
+    public static TranslationResult translateSubtitleFile(File inputFile, File outputFile, String sourceLang, String targetLang) throws Exception {
         // 验证API Key
         String apiKey = config.getTranslationApiKey();
         if (apiKey == null || apiKey.trim().isEmpty()) {
             throw new Exception("通义千问翻译API Key未配置。请在配置文件中设置 translation.dashscope.api_key 或设置环境变量 DASHSCOPE_API_KEY");
         }
 
-        // 读取并解析SRT字幕文件
-        List<SubtitleBlock> subtitleBlocks = parseSrtFile(inputFile);
+        // 打开检查点日志，上次失败时已完成的批次将直接复用
+        int batchSize = config.getTranslationBatchSize();
+        TranslationJournal journal = TranslationJournal.open(
+                inputFile, sourceLang, targetLang, config.getTranslationModel(), batchSize);
+        if (journal.getCompletedBatchCount() > 0) {
+            System.out.println("发现翻译检查点，已完成 " + journal.getCompletedBatchCount() + " 批，将从未完成的批次继续");
+        }
         
-        if (subtitleBlocks.isEmpty()) {
+        // 逐条扫描字幕（内存映射，不逐行创建字符串），按批翻译并逐批写入输出文件；每批先查翻译记忆，只发送未命中的字幕
+        TranslationResult translationResult = new TranslationResult();
+        TranslationMemory memory = TranslationMemory.getInstance();
+        try (journal;
+             MappedSrtReader reader = new MappedSrtReader(inputFile);
+             SrtWriter writer = new SrtWriter(outputFile);
+             TranslationPipeline pipeline = new TranslationPipeline(
+                     batch -> translateWithMemory(batch, memory, translationResult, apiKey, sourceLang, targetLang),
+                     writer, journal, batchSize, config.getTranslationConcurrency())) {
+            
+            while (reader.hasNext()) {
+                pipeline.accept(reader.next().toBlock());
+            }
+            translationResult.translatedCount = pipeline.finish();
+            translationResult.resumedBatches = pipeline.getResumedBatches();
+        }
+        
+        if (translationResult.translatedCount == 0) {
             throw new Exception("字幕文件为空或格式不正确");
         }
-
-        // 翻译字幕内容
-        List<SubtitleBlock> translatedBlocks = translateSubtitleBlocks(subtitleBlocks, apiKey, sourceLang, targetLang);
         
-        // 保存翻译后的字幕文件
-        saveSrtFile(translatedBlocks, outputFile);
+        // 全部完成后删除检查点
+        journal.delete();
         
-        return String.format("字幕翻译完成！共翻译了 %d 条字幕\n从 %s 翻译到 %s", 
-                           translatedBlocks.size(), sourceLang, targetLang);
+        if (config.isDebugMode()) {
+            System.out.println("限流统计: " + DashScopeRateLimiter.getInstance().getStatsSummary());
+        }
+        
+        translationResult.message = buildResultMessage(translationResult, memory, sourceLang, targetLang);
+        return translationResult;
     }
 
     /**
-     * 解析SRT字幕文件
+     * 开始边识别边翻译
+     * 识别出的字幕块逐条送入，凑满一批即开始翻译，译文按顺序写入输出文件，不必等待识别结束再读取字幕文件。
+     * 字幕块来自识别过程而非文件，因此不使用检查点。
      *
-     * @param srtFile SRT字幕文件
-     * @return 字幕块列表
+     * @param outputFile 输出的翻译后字幕文件
+     * @param sourceLang 源语言
+     * @param targetLang 目标语言
+     * @return 翻译流水线，字幕块送入结束后调用 {@link StreamingTranslation#finish()}
+     * @throws Exception 如果API Key未配置或输出文件无法创建
      */
-    private static List<SubtitleBlock> parseSrtFile(File srtFile) throws IOException {
-        List<SubtitleBlock> blocks = new ArrayList<>();
-        
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(new FileInputStream(srtFile), StandardCharsets.UTF_8))) {
-            
-            String line;
-            SubtitleBlock currentBlock = null;
-            StringBuilder textBuilder = new StringBuilder();
-            
-            while ((line = reader.readLine()) != null) {
-                line = line.trim();
-                
-                if (line.isEmpty()) {
-                    // 空行表示一个字幕块结束
-                    if (currentBlock != null && textBuilder.length() > 0) {
-                        currentBlock.text = textBuilder.toString().trim();
-                        blocks.add(currentBlock);
-                        currentBlock = null;
-                        textBuilder.setLength(0);
-                    }
-                } else if (SRT_NUMBER_PATTERN.matcher(line).matches()) {
-                    // 序号行
-                    currentBlock = new SubtitleBlock();
-                    currentBlock.number = Integer.parseInt(line);
-                } else if (SRT_TIMESTAMP_PATTERN.matcher(line).matches()) {
-                    // 时间戳行
-                    if (currentBlock != null) {
-                        currentBlock.timestamp = line;
-                    }
-                } else {
-                    // 文本行
-                    if (!textBuilder.isEmpty()) {
-                        textBuilder.append("\n");
-                    }
-                    textBuilder.append(line);
-                }
-            }
-            
-            // 处理最后一个字幕块
-            if (currentBlock != null && !textBuilder.isEmpty()) {
-                currentBlock.text = textBuilder.toString().trim();
-                blocks.add(currentBlock);
-            }
+    static StreamingTranslation startStreamingTranslation(File outputFile, String sourceLang, String targetLang) throws Exception {
+        String apiKey = config.getTranslationApiKey();
+        if (apiKey == null || apiKey.trim().isEmpty()) {
+            throw new Exception("通义千问翻译API Key未配置。请在配置文件中设置 translation.dashscope.api_key 或设置环境变量 DASHSCOPE_API_KEY");
         }
-        
-        return blocks;
+        return new StreamingTranslation(outputFile, apiKey, sourceLang, targetLang);
     }
 
     /**
-     * 翻译字幕块列表
-     *
-     * @param subtitleBlocks 原始字幕块
-     * @param apiKey         API密钥
-     * @param sourceLang     源语言
-     * @param targetLang     目标语言
-     * @return 翻译后的字幕块
+     * 生成翻译结果描述
+     */
+    private static String buildResultMessage(TranslationResult translationResult, TranslationMemory memory,
+                                             String sourceLang, String targetLang) {
+        String message = String.format("字幕翻译完成！共翻译了 %d 条字幕\n从 %s 翻译到 %s", 
+                                       translationResult.translatedCount, sourceLang, targetLang);
+        if (translationResult.resumedBatches > 0) {
+            message += String.format("\n其中 %d 批从检查点恢复", translationResult.resumedBatches);
+        }
+        if (memory.isEnabled()) {
+            message += String.format("\n翻译记忆命中 %d 条，未命中 %d 条",
+                                     translationResult.getCacheHits(), translationResult.getCacheMisses());
+        }
+        return message;
+    }
+
+    /**
+     * 借助翻译记忆翻译一批字幕块
+     * 命中翻译记忆的字幕直接使用缓存译文，其余字幕调用翻译API后写回翻译记忆
      */
-    private static List<SubtitleBlock> translateSubtitleBlocks(List<SubtitleBlock> subtitleBlocks, 
-                                                              String apiKey, String sourceLang, String targetLang) throws Exception {
+    private static TranslatedBatch translateWithMemory(List<SubtitleBlock> batch, TranslationMemory memory,
+                                                           TranslationResult translationResult, String apiKey,
+                                                           String sourceLang, String targetLang) throws Exception {
+        if (!memory.isEnabled()) {
+            return translateBatch(batch, apiKey, sourceLang, targetLang);
+        }
         
-        List<SubtitleBlock> translatedBlocks = new ArrayList<>();
+        String model = config.getTranslationModel();
+        String[] keys = new String[batch.size()];
+        String[] cachedTexts = new String[batch.size()];
+        List<SubtitleBlock> misses = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            keys[i] = TranslationMemory.key(batch.get(i).text, sourceLang, targetLang, model);
+            cachedTexts[i] = memory.get(keys[i]);
+            if (cachedTexts[i] == null) {
+                misses.add(batch.get(i));
+            }
+        }
+        translationResult.cacheHits.addAndGet(batch.size() - misses.size());
+        translationResult.cacheMisses.addAndGet(misses.size());
         
-        // 根据配置获取批处理大小，避免一次翻译太多内容
-        int batchSize = config.getTranslationBatchSize();
+        if (misses.isEmpty()) {
+            List<SubtitleBlock> translatedBlocks = new ArrayList<>(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                SubtitleBlock originalBlock = batch.get(i);
+                translatedBlocks.add(new SubtitleBlock(originalBlock.number, originalBlock.startMs, originalBlock.endMs,
+                        cachedTexts[i]));
+            }
+            return new TranslatedBatch(translatedBlocks, true);
+        }
         
-        for (int i = 0; i < subtitleBlocks.size(); i += batchSize) {
-            int endIndex = Math.min(i + batchSize, subtitleBlocks.size());
-            List<SubtitleBlock> batch = subtitleBlocks.subList(i, endIndex);
-            
-            // 批量翻译
-            List<SubtitleBlock> translatedBatch = translateBatch(batch, apiKey, sourceLang, targetLang);
-            translatedBlocks.addAll(translatedBatch);
-            
-            System.out.printf("翻译进度: %d/%d (%.1f%%)\n", 
-                            endIndex, subtitleBlocks.size(), 
-                            (double) endIndex / subtitleBlocks.size() * 100);
-            
-            // 避免频繁调用API，添加短暂延迟
-            if (endIndex < subtitleBlocks.size()) {
-                try {
-                    Thread.sleep(config.getTranslationApiDelay());
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    throw new Exception("翻译过程被中断", e);
+        TranslatedBatch translatedMisses = translateBatch(misses, apiKey, sourceLang, targetLang);
+        // 译文完整解析时才写回翻译记忆，避免缓存错位的结果
+        boolean complete = translatedMisses.isComplete();
+        
+        // 按原顺序合并缓存译文与新译文
+        List<SubtitleBlock> translatedBlocks = new ArrayList<>(batch.size());
+        Map<String, String> newTranslations = new LinkedHashMap<>();
+        Iterator<SubtitleBlock> missIterator = translatedMisses.getBlocks().iterator();
+        for (int i = 0; i < batch.size(); i++) {
+            SubtitleBlock originalBlock = batch.get(i);
+            if (cachedTexts[i] != null) {
+                translatedBlocks.add(new SubtitleBlock(originalBlock.number, originalBlock.startMs, originalBlock.endMs,
+                        cachedTexts[i]));
+            } else if (missIterator.hasNext()) {
+                SubtitleBlock translatedBlock = missIterator.next();
+                translatedBlocks.add(translatedBlock);
+                if (complete) {
+                    newTranslations.put(keys[i], translatedBlock.text);
                 }
             }
         }
+        memory.putAll(newTranslations);
         
-        return translatedBlocks;
+        return new TranslatedBatch(translatedBlocks, complete);
     }
 
     /**
      * 批量翻译字幕块
      */
-    private static List<SubtitleBlock> translateBatch(List<SubtitleBlock> batch, 
+    private static TranslatedBatch translateBatch(List<SubtitleBlock> batch, 
                                                      String apiKey, String sourceLang, String targetLang) throws Exception {
+        return translateBatch(batch, apiKey, config.getTranslationBaseUrl(), sourceLang, targetLang);
+    }
+
+    /**
+     * 通过指定地址的翻译API批量翻译字幕块
+     *
+     * @param baseUrl 翻译API地址，为空时使用SDK默认地址
+     */
+    static TranslatedBatch translateBatch(List<SubtitleBlock> batch, String apiKey, String baseUrl,
+                                          String sourceLang, String targetLang) throws Exception {
         
         // 构建翻译内容
         StringBuilder contentBuilder = new StringBuilder();
@@ -186,7 +218,7 @@ public class SubtitleTranslationService {
         
         try {
             // 按照用户提供的示例调用通义千问翻译API
-            Generation gen = new Generation();
+            Generation gen = createGeneration(baseUrl);
             
             Message userMsg = Message.builder()
                     .role(Role.USER.getValue())
@@ -206,7 +238,9 @@ public class SubtitleTranslationService {
                     .translationOptions(options)
                     .build();
             
-            GenerationResult result = gen.call(param);
+            // 通过共享限流器调用，按内容长度预估Token消耗，返回后按实际用量修正
+            GenerationResult result = DashScopeRateLimiter.getInstance().execute(
+                    content.length(), () -> gen.call(param), SubtitleTranslationService::getUsedTokens);
             
             if (result.getOutput() == null || result.getOutput().getChoices() == null || 
                 result.getOutput().getChoices().isEmpty()) {
@@ -223,11 +257,36 @@ public class SubtitleTranslationService {
         }
     }
 
+    /**
+     * 读取翻译调用实际消耗的Token数
+     */
+    private static int getUsedTokens(GenerationResult result) {
+        GenerationUsage usage = result.getUsage();
+        if (usage == null || usage.getTotalTokens() == null) {
+            return -1;
+        }
+        return usage.getTotalTokens();
+    }
+
+    /**
+     * 创建翻译API客户端
+     * 指定了地址（配置的 base_url 或本地的模拟服务）时连接到该地址，否则使用SDK默认地址
+     */
+    private static Generation createGeneration(String baseUrl) {
+        if (baseUrl == null || baseUrl.trim().isEmpty()) {
+            return new Generation();
+        }
+        return new Generation(Protocol.HTTP.getValue(), baseUrl.trim());
+    }
+
     /**
      * 解析翻译结果内容
+     * 每条原文的编号恰好出现一次时按编号对应（结果为完整）；否则退回按行顺序对应，结果标记为不完整
      */
-    private static List<SubtitleBlock> parseTranslatedContent(List<SubtitleBlock> originalBatch, String translatedContent) {
-        List<SubtitleBlock> translatedBlocks = new ArrayList<>();
+    static TranslatedBatch parseTranslatedContent(List<SubtitleBlock> originalBatch, String translatedContent) {
+        SubtitleBlock[] parsedBlocks = new SubtitleBlock[originalBatch.size()];
+        int parsedCount = 0;
+        boolean duplicated = false;
         String[] lines = translatedContent.split("\n");
         
         Pattern translatedPattern = Pattern.compile("^\\[(\\d+)\\]\\s*(.+)$");
@@ -242,59 +301,43 @@ public class SubtitleTranslationService {
                 String translatedText = matcher.group(2).trim();
                 
                 if (index >= 0 && index < originalBatch.size()) {
+                    if (parsedBlocks[index] != null) {
+                        duplicated = true;
+                        continue;
+                    }
                     SubtitleBlock originalBlock = originalBatch.get(index);
                     SubtitleBlock translatedBlock = new SubtitleBlock();
                     translatedBlock.number = originalBlock.number;
-                    translatedBlock.timestamp = originalBlock.timestamp;
+                    translatedBlock.startMs = originalBlock.startMs;
+                    translatedBlock.endMs = originalBlock.endMs;
                     translatedBlock.text = translatedText;
-                    translatedBlocks.add(translatedBlock);
+                    parsedBlocks[index] = translatedBlock;
+                    parsedCount++;
                 }
             }
         }
         
-        // 如果解析失败，使用原始文本
-        if (translatedBlocks.size() != originalBatch.size()) {
-            System.err.println("警告: 翻译结果解析不完整，将使用原始内容作为备选");
-            translatedBlocks.clear();
-            
-            // 尝试简单分割
-            String[] simpleSplit = translatedContent.split("\n");
-            for (int i = 0; i < originalBatch.size() && i < simpleSplit.length; i++) {
-                SubtitleBlock originalBlock = originalBatch.get(i);
-                SubtitleBlock translatedBlock = new SubtitleBlock();
-                translatedBlock.number = originalBlock.number;
-                translatedBlock.timestamp = originalBlock.timestamp;
-                translatedBlock.text = simpleSplit[i].trim();
-                translatedBlocks.add(translatedBlock);
-            }
+        if (parsedCount == originalBatch.size() && !duplicated) {
+            return new TranslatedBatch(Arrays.asList(parsedBlocks), true);
         }
         
-        return translatedBlocks;
-    }
-
-    /**
-     * 保存SRT字幕文件
-     */
-    private static void saveSrtFile(List<SubtitleBlock> blocks, File outputFile) throws IOException {
-        try (BufferedWriter writer = new BufferedWriter(
-                new OutputStreamWriter(new FileOutputStream(outputFile), StandardCharsets.UTF_8))) {
-            
-            for (int i = 0; i < blocks.size(); i++) {
-                SubtitleBlock block = blocks.get(i);
-                
-                writer.write(String.valueOf(block.number));
-                writer.newLine();
-                writer.write(block.timestamp);
-                writer.newLine();
-                writer.write(block.text);
-                writer.newLine();
-                
-                // 添加空行分隔（除了最后一个块）
-                if (i < blocks.size() - 1) {
-                    writer.newLine();
-                }
-            }
+        // 如果解析失败，使用原始文本
+        System.err.println("警告: 翻译结果解析不完整，将使用原始内容作为备选");
+        List<SubtitleBlock> translatedBlocks = new ArrayList<>();
+        
+        // 尝试简单分割
+        String[] simpleSplit = translatedContent.split("\n");
+        for (int i = 0; i < originalBatch.size() && i < simpleSplit.length; i++) {
+            SubtitleBlock originalBlock = originalBatch.get(i);
+            SubtitleBlock translatedBlock = new SubtitleBlock();
+            translatedBlock.number = originalBlock.number;
+            translatedBlock.startMs = originalBlock.startMs;
+            translatedBlock.endMs = originalBlock.endMs;
+            translatedBlock.text = simpleSplit[i].trim();
+            translatedBlocks.add(translatedBlock);
         }
+        
+        return new TranslatedBatch(translatedBlocks, false);
     }
 
     /**
@@ -308,11 +351,117 @@ public class SubtitleTranslationService {
     }
 
     /**
-     * 字幕块数据结构
+     * 边识别边翻译的流水线
+     * 作为识别结果的字幕块监听器使用；每个批次在翻译阶段的并发名额内执行，耗时计入所属任务
      */
-    private static class SubtitleBlock {
-        int number;       // 序号
-        String timestamp; // 时间戳
-        String text;      // 文本内容
+    static class StreamingTranslation implements SrtWriter.BlockListener, Closeable {
+        private final SrtWriter writer;
+        private final TranslationPipeline pipeline;
+        private final TranslationMemory memory = TranslationMemory.getInstance();
+        private final TranslationResult translationResult = new TranslationResult();
+        private final String sourceLang;
+        private final String targetLang;
+
+        private StreamingTranslation(File outputFile, String apiKey, String sourceLang, String targetLang) throws IOException {
+            this.sourceLang = sourceLang;
+            this.targetLang = targetLang;
+            // 识别与翻译在不同线程中进行，翻译批次的阶段耗时交给识别所在任务的记录
+            StageLimiter.Timings timings = StageLimiter.currentRecording();
+            this.writer = new SrtWriter(outputFile);
+            this.pipeline = new TranslationPipeline(
+                    batch -> StageLimiter.runRecording(timings, () -> StageLimiter.run(StageLimiter.Stage.TRANSLATION,
+                            () -> translateWithMemory(batch, memory, translationResult, apiKey, sourceLang, targetLang))),
+                    writer, null, config.getTranslationBatchSize(), config.getTranslationConcurrency());
+        }
+
+        /**
+         * 送入一个识别出的字幕块
+         */
+        @Override
+        public synchronized void onBlock(SubtitleBlock block) throws IOException {
+            try {
+                pipeline.accept(block);
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException("字幕翻译失败: " + e.getMessage(), e);
+            }
+        }
+
+        /**
+         * 翻译剩余的字幕并等待全部写入
+         *
+         * @return 翻译结果
+         * @throws Exception 如果翻译失败
+         */
+        synchronized TranslationResult finish() throws Exception {
+            translationResult.translatedCount = pipeline.finish();
+            writer.flush();
+            if (translationResult.translatedCount == 0) {
+                throw new Exception("没有可翻译的字幕");
+            }
+            translationResult.message = buildResultMessage(translationResult, memory, sourceLang, targetLang);
+            return translationResult;
+        }
+
+        /**
+         * 关闭流水线，取消尚未完成的批次
+         */
+        @Override
+        public void close() throws IOException {
+            pipeline.close();
+            writer.close();
+        }
+    }
+
+    /**
+     * 翻译结果类
+     */
+    public static class TranslationResult {
+        private String message;
+        private int translatedCount;
+        private int resumedBatches;
+        private final AtomicLong cacheHits = new AtomicLong();
+        private final AtomicLong cacheMisses = new AtomicLong();
+
+        /**
+         * 获取翻译结果描述
+         */
+        public String getMessage() {
+            return message;
+        }
+
+        /**
+         * 获取翻译的字幕条数
+         */
+        public int getTranslatedCount() {
+            return translatedCount;
+        }
+
+        /**
+         * 获取从检查点恢复的批次数量
+         */
+        public int getResumedBatches() {
+            return resumedBatches;
+        }
+
+        /**
+         * 获取翻译记忆命中条数
+         */
+        public long getCacheHits() {
+            return cacheHits.get();
+        }
+
+        /**
+         * 获取翻译记忆未命中条数
+         */
+        public long getCacheMisses() {
+            return cacheMisses.get();
+        }
+
+        @Override
+        public String toString() {
+            return message;
+        }
     }
 }
\ No newline at end of file
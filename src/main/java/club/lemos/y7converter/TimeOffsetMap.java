@@ -0,0 +1,162 @@
+package club.lemos.y7converter;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 语音区间时间映射
+ * 去除长静音后，保留的语音区间首尾相接组成裁剪后的音频；
+ * 识别结果的时间轴基于裁剪后的音频，通过本映射换算回原始音频的时间。
+ */
+class TimeOffsetMap {
+
+    // 保留的语音区间数量上限，避免 FFmpeg 滤镜表达式过长
+    private static final int MAX_SEGMENTS = 300;
+
+    // 原始音频中各语音区间的起点，以及在裁剪后音频中的起点（毫秒）
+    private final long[] originalStarts;
+    private final long[] originalEnds;
+    private final long[] trimmedStarts;
+    private final long originalDurationMs;
+
+    private TimeOffsetMap(List<SilenceDetector.Interval> segments, long originalDurationMs) {
+        int size = segments.size();
+        this.originalStarts = new long[size];
+        this.originalEnds = new long[size];
+        this.trimmedStarts = new long[size];
+        this.originalDurationMs = originalDurationMs;
+
+        long trimmedPosition = 0;
+        for (int i = 0; i < size; i++) {
+            SilenceDetector.Interval segment = segments.get(i);
+            originalStarts[i] = segment.startMs;
+            originalEnds[i] = segment.endMs;
+            trimmedStarts[i] = trimmedPosition;
+            trimmedPosition += segment.getDurationMs();
+        }
+    }
+
+    /**
+     * 检测源文件中的长静音并生成时间映射
+     *
+     * @param sourceFile 源视频或音频文件
+     * @return 时间映射；没有可去除的静音时返回null
+     * @throws IOException 如果静音检测失败
+     */
+    static TimeOffsetMap detect(File sourceFile) throws IOException {
+        ConfigLoader config = ConfigLoader.getInstance();
+        SilenceDetector.Result detection = SilenceDetector.detect(sourceFile, config.getVadMinSilenceSeconds());
+        return fromSilences(detection.getDurationMs(), detection.getSilences(), Math.max(0, config.getVadPaddingMs()));
+    }
+
+    /**
+     * 根据静音区间生成时间映射
+     * 每段静音两端各保留 paddingMs，避免截断语音首尾；区间过多时只去除最长的静音
+     *
+     * @param durationMs 原始音频时长（毫秒）
+     * @param silences   按时间顺序排列的静音区间
+     * @param paddingMs  语音前后保留的时长（毫秒）
+     * @return 时间映射；没有可去除的静音时返回null
+     */
+    static TimeOffsetMap fromSilences(long durationMs, List<SilenceDetector.Interval> silences, long paddingMs) {
+        List<SilenceDetector.Interval> removed = new ArrayList<>();
+        for (SilenceDetector.Interval silence : silences) {
+            long start = silence.startMs <= 0 ? 0 : silence.startMs + paddingMs;
+            long end = silence.endMs >= durationMs ? durationMs : silence.endMs - paddingMs;
+            if (end > start) {
+                removed.add(new SilenceDetector.Interval(start, end));
+            }
+        }
+        if (removed.isEmpty()) {
+            return null;
+        }
+
+        if (removed.size() >= MAX_SEGMENTS) {
+            removed.sort(Comparator.comparingLong(SilenceDetector.Interval::getDurationMs).reversed());
+            removed = new ArrayList<>(removed.subList(0, MAX_SEGMENTS - 1));
+            removed.sort(Comparator.comparingLong(interval -> interval.startMs));
+        }
+
+        // 去除静音后剩下的就是语音区间
+        List<SilenceDetector.Interval> segments = new ArrayList<>();
+        long position = 0;
+        for (SilenceDetector.Interval interval : removed) {
+            if (interval.startMs > position) {
+                segments.add(new SilenceDetector.Interval(position, interval.startMs));
+            }
+            position = Math.max(position, interval.endMs);
+        }
+        if (durationMs > position) {
+            segments.add(new SilenceDetector.Interval(position, durationMs));
+        }
+        if (segments.isEmpty()) {
+            return null;
+        }
+
+        return new TimeOffsetMap(segments, durationMs);
+    }
+
+    /**
+     * 将裁剪后音频中的时间换算为原始音频中的时间
+     *
+     * @param trimmedMs 裁剪后音频中的时间（毫秒）
+     * @return 原始音频中的时间（毫秒）
+     */
+    long toOriginal(long trimmedMs) {
+        int index = Arrays.binarySearch(trimmedStarts, trimmedMs);
+        if (index < 0) {
+            index = Math.max(0, -index - 2);
+        }
+        long originalMs = originalStarts[index] + (trimmedMs - trimmedStarts[index]);
+        // 编码误差可能使时间略超出区间末尾，超出部分不跨入被去除的静音
+        return index < originalEnds.length - 1 ? Math.min(originalMs, originalEnds[index]) : originalMs;
+    }
+
+    /**
+     * 生成只保留语音区间的 FFmpeg 音频滤镜
+     * aselect 选出语音区间的采样，asetpts 重排时间戳使各区间首尾相接
+     */
+    String toAudioFilter() {
+        StringBuilder expression = new StringBuilder("aselect='");
+        for (int i = 0; i < originalStarts.length; i++) {
+            if (i > 0) {
+                expression.append('+');
+            }
+            expression.append(String.format(Locale.ROOT, "between(t,%.3f,%.3f)",
+                    originalStarts[i] / 1000.0, originalEnds[i] / 1000.0));
+        }
+        return expression.append("',asetpts=N/SR/TB").toString();
+    }
+
+    /**
+     * 获取保留的语音区间
+     */
+    List<SilenceDetector.Interval> getSegments() {
+        List<SilenceDetector.Interval> segments = new ArrayList<>(originalStarts.length);
+        for (int i = 0; i < originalStarts.length; i++) {
+            segments.add(new SilenceDetector.Interval(originalStarts[i], originalEnds[i]));
+        }
+        return Collections.unmodifiableList(segments);
+    }
+
+    /**
+     * 获取裁剪后保留的音频时长（毫秒）
+     */
+    long getKeptMs() {
+        int last = originalStarts.length - 1;
+        return trimmedStarts[last] + originalEnds[last] - originalStarts[last];
+    }
+
+    /**
+     * 获取去除的音频时长（毫秒）
+     */
+    long getRemovedMs() {
+        return originalDurationMs - getKeptMs();
+    }
+}
@@ -0,0 +1,33 @@
+package club.lemos.y7converter;
+
+import java.util.List;
+
+/**
+ * 一批字幕的翻译结果
+ * 只有译文逐条对应原文（complete）时才可以写入翻译记忆和检查点；
+ * 解析不完整时的结果仍写入输出，但可能错位，不能长期保存。
+ */
+class TranslatedBatch {
+
+    private final List<SubtitleBlock> blocks;
+    private final boolean complete;
+
+    TranslatedBatch(List<SubtitleBlock> blocks, boolean complete) {
+        this.blocks = blocks;
+        this.complete = complete;
+    }
+
+    /**
+     * 获取翻译后的字幕块，顺序与原文一致
+     */
+    List<SubtitleBlock> getBlocks() {
+        return blocks;
+    }
+
+    /**
+     * 译文是否完整解析（每条原文恰好对应一条译文）
+     */
+    boolean isComplete() {
+        return complete;
+    }
+}
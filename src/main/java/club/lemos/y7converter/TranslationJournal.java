@@ -0,0 +1,166 @@
+package club.lemos.y7converter;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 翻译检查点日志
+ * 以追加方式记录已完成批次的序号及其翻译结果（每行一个JSON对象），
+ * 翻译中途失败后重试时，已记录的批次直接复用，不再重复调用翻译API。
+ */
+class TranslationJournal implements Closeable {
+
+    private static final String JOURNAL_DIR_NAME = "y7converter_journal";
+    private static final String JOURNAL_SUFFIX = ".journal";
+
+    // 记录格式版本，字幕块结构变化时递增，旧格式的检查点不再复用
+    private static final String JOURNAL_FORMAT = "2";
+
+    // 超过该时间未更新的检查点视为废弃，打开新检查点时顺带清理
+    private static final long STALE_JOURNAL_AGE_MS = TimeUnit.DAYS.toMillis(7);
+
+    private static final Gson GSON = new Gson();
+
+    private final File journalFile;
+    private final Map<Integer, List<SubtitleBlock>> completedBatches;
+    private final BufferedWriter writer;
+
+    private TranslationJournal(File journalFile) throws IOException {
+        this.journalFile = journalFile;
+        this.completedBatches = load(journalFile);
+        this.writer = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(journalFile, true), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 打开指定翻译任务的检查点日志
+     * 检查点由输入文件（路径、大小、修改时间）、语言、模型和批大小共同确定，
+     * 任一项变化都会使用新的检查点，避免复用不匹配的翻译结果。
+     *
+     * @param inputFile  输入字幕文件
+     * @param sourceLang 源语言
+     * @param targetLang 目标语言
+     * @param model      翻译模型
+     * @param batchSize  批处理大小
+     * @return 检查点日志
+     * @throws IOException 如果检查点文件无法打开
+     */
+    static TranslationJournal open(File inputFile, String sourceLang, String targetLang,
+                                   String model, int batchSize) throws IOException {
+        File journalDir = new File(ConfigLoader.getInstance().getTempDir(), JOURNAL_DIR_NAME);
+        if (!journalDir.isDirectory() && !journalDir.mkdirs()) {
+            throw new IOException("无法创建检查点目录: " + journalDir.getAbsolutePath());
+        }
+        deleteStaleJournals(journalDir);
+
+        String key = HashUtils.sha256Hex(inputFile.getAbsolutePath(),
+                String.valueOf(inputFile.length()), String.valueOf(inputFile.lastModified()),
+                sourceLang, targetLang, model, String.valueOf(batchSize), JOURNAL_FORMAT);
+        return new TranslationJournal(new File(journalDir, key + JOURNAL_SUFFIX));
+    }
+
+    /**
+     * 读取检查点中已完成的批次
+     * 最后一行可能因进程中断而不完整，解析失败的行直接忽略
+     */
+    private static Map<Integer, List<SubtitleBlock>> load(File journalFile) throws IOException {
+        Map<Integer, List<SubtitleBlock>> batches = new HashMap<>();
+        if (!journalFile.exists()) {
+            return batches;
+        }
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(journalFile), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                try {
+                    Entry entry = GSON.fromJson(line, Entry.class);
+                    if (entry != null && entry.blocks != null) {
+                        batches.put(entry.batch, entry.blocks);
+                    }
+                } catch (JsonParseException e) {
+                    System.err.println("警告: 忽略无法解析的检查点记录");
+                }
+            }
+        }
+        return batches;
+    }
+
+    /**
+     * 删除过期的检查点文件
+     */
+    private static void deleteStaleJournals(File journalDir) {
+        File[] journals = journalDir.listFiles((dir, name) -> name.endsWith(JOURNAL_SUFFIX));
+        if (journals == null) {
+            return;
+        }
+        long threshold = System.currentTimeMillis() - STALE_JOURNAL_AGE_MS;
+        for (File journal : journals) {
+            if (journal.lastModified() < threshold) {
+                journal.delete();
+            }
+        }
+    }
+
+    /**
+     * 获取已完成批次的翻译结果
+     *
+     * @param batchIndex 批次序号
+     * @return 翻译结果，未完成时返回null
+     */
+    List<SubtitleBlock> getCompletedBatch(int batchIndex) {
+        return completedBatches.get(batchIndex);
+    }
+
+    /**
+     * 获取已完成的批次数量
+     */
+    int getCompletedBatchCount() {
+        return completedBatches.size();
+    }
+
+    /**
+     * 追加一个已完成批次的记录并立即落盘
+     *
+     * @param batchIndex 批次序号
+     * @param blocks     翻译结果
+     */
+    synchronized void record(int batchIndex, List<SubtitleBlock> blocks) throws IOException {
+        Entry entry = new Entry();
+        entry.batch = batchIndex;
+        entry.blocks = blocks;
+        writer.write(GSON.toJson(entry));
+        writer.newLine();
+        writer.flush();
+    }
+
+    /**
+     * 翻译全部完成后删除检查点
+     */
+    void delete() throws IOException {
+        close();
+        if (journalFile.exists() && !journalFile.delete()) {
+            System.err.println("警告: 无法删除检查点文件: " + journalFile.getAbsolutePath());
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+
+    /**
+     * 检查点记录
+     */
+    private static class Entry {
+        int batch;
+        List<SubtitleBlock> blocks;
+    }
+}
@@ -0,0 +1,215 @@
+package club.lemos.y7converter;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.text.Normalizer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * 翻译记忆
+ * 以（规范化原文、源语言、目标语言、模型）的哈希为键，持久化缓存单条字幕的翻译结果。
+ * 数据保存在临时目录下的追加日志中，内存中按最近使用顺序保留，超过条目上限时淘汰最久未使用的条目；
+ * 日志中的失效记录过多时重写日志。
+ */
+class TranslationMemory {
+
+    private static final String CACHE_DIR_NAME = "y7converter_cache";
+    private static final String STORE_FILE_NAME = "translation_memory.jsonl";
+
+    // 连续的空白字符（含全角空格）在计算键时视为一个空格
+    private static final Pattern WHITESPACE_PATTERN = Pattern.compile("[ \\t\\u3000]+");
+
+    private static final Gson GSON = new Gson();
+
+    private static TranslationMemory instance;
+
+    private final boolean enabled;
+    private final int maxEntries;
+    private final File storeFile;
+    private final LinkedHashMap<String, String> entries;
+    private BufferedWriter writer;
+    private int logLines;
+
+    private TranslationMemory() {
+        ConfigLoader config = ConfigLoader.getInstance();
+        this.enabled = config.isTranslationMemoryEnabled();
+        this.maxEntries = Math.max(1, config.getTranslationMemoryMaxEntries());
+        this.storeFile = new File(new File(config.getTempDir(), CACHE_DIR_NAME), STORE_FILE_NAME);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > TranslationMemory.this.maxEntries;
+            }
+        };
+
+        if (enabled) {
+            try {
+                load();
+            } catch (IOException e) {
+                System.err.println("警告: 加载翻译记忆失败，将不使用翻译记忆: " + e.getMessage());
+                closeWriter();
+            }
+        }
+    }
+
+    /**
+     * 获取翻译记忆实例（单例模式）
+     *
+     * @return 翻译记忆实例
+     */
+    static synchronized TranslationMemory getInstance() {
+        if (instance == null) {
+            instance = new TranslationMemory();
+        }
+        return instance;
+    }
+
+    /**
+     * 从日志加载已有条目，并打开日志用于追加
+     */
+    private void load() throws IOException {
+        File cacheDir = storeFile.getParentFile();
+        if (!cacheDir.isDirectory() && !cacheDir.mkdirs()) {
+            throw new IOException("无法创建缓存目录: " + cacheDir.getAbsolutePath());
+        }
+
+        if (storeFile.exists()) {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new FileInputStream(storeFile), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    logLines++;
+                    try {
+                        Entry entry = GSON.fromJson(line, Entry.class);
+                        if (entry != null && entry.k != null && entry.v != null) {
+                            entries.put(entry.k, entry.v);
+                        }
+                    } catch (JsonParseException e) {
+                        // 忽略不完整的记录
+                    }
+                }
+            }
+        }
+
+        writer = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(storeFile, true), StandardCharsets.UTF_8));
+        compactIfNeeded();
+    }
+
+    /**
+     * 计算翻译记忆的键
+     *
+     * @param text       原文
+     * @param sourceLang 源语言
+     * @param targetLang 目标语言
+     * @param model      翻译模型
+     * @return 键
+     */
+    static String key(String text, String sourceLang, String targetLang, String model) {
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).trim();
+        normalized = WHITESPACE_PATTERN.matcher(normalized).replaceAll(" ");
+        return HashUtils.sha256Hex(normalized, sourceLang, targetLang, model);
+    }
+
+    /**
+     * 是否启用翻译记忆
+     */
+    boolean isEnabled() {
+        return enabled && writer != null;
+    }
+
+    /**
+     * 查找翻译结果
+     *
+     * @param key 键
+     * @return 译文，未命中时返回null
+     */
+    synchronized String get(String key) {
+        return isEnabled() ? entries.get(key) : null;
+    }
+
+    /**
+     * 保存翻译结果并追加到日志
+     *
+     * @param translations 键到译文的映射
+     */
+    synchronized void putAll(Map<String, String> translations) {
+        if (!isEnabled() || translations.isEmpty()) {
+            return;
+        }
+        try {
+            for (Map.Entry<String, String> translation : translations.entrySet()) {
+                entries.put(translation.getKey(), translation.getValue());
+                Entry entry = new Entry();
+                entry.k = translation.getKey();
+                entry.v = translation.getValue();
+                writer.write(GSON.toJson(entry));
+                writer.newLine();
+                logLines++;
+            }
+            writer.flush();
+            compactIfNeeded();
+        } catch (IOException e) {
+            System.err.println("警告: 写入翻译记忆失败，后续不再使用翻译记忆: " + e.getMessage());
+            closeWriter();
+        }
+    }
+
+    /**
+     * 日志行数超过有效条目两倍时，按最近使用顺序重写日志
+     */
+    private void compactIfNeeded() throws IOException {
+        if (logLines <= Math.max(entries.size() * 2, 1000)) {
+            return;
+        }
+
+        File tempFile = new File(storeFile.getParentFile(), STORE_FILE_NAME + ".tmp");
+        try (BufferedWriter compactWriter = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(tempFile), StandardCharsets.UTF_8))) {
+            for (Map.Entry<String, String> translation : entries.entrySet()) {
+                Entry entry = new Entry();
+                entry.k = translation.getKey();
+                entry.v = translation.getValue();
+                compactWriter.write(GSON.toJson(entry));
+                compactWriter.newLine();
+            }
+        }
+
+        writer.close();
+        Files.move(tempFile.toPath(), storeFile.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        writer = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(storeFile, true), StandardCharsets.UTF_8));
+        logLines = entries.size();
+
+        if (ConfigLoader.getInstance().isDebugMode()) {
+            System.out.println("翻译记忆已整理，当前条目数: " + entries.size());
+        }
+    }
+
+    private void closeWriter() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                // 忽略关闭错误
+            }
+            writer = null;
+        }
+    }
+
+    /**
+     * 翻译记忆记录
+     */
+    private static class Entry {
+        String k;
+        String v;
+    }
+}
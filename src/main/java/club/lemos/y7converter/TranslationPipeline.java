@@ -0,0 +1,184 @@
+package club.lemos.y7converter;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 字幕翻译流水线
+ * 字幕块逐条送入，凑满一批后提交翻译；最多同时翻译 concurrency 个批次，
+ * 已完成的批次按原顺序写入输出并立即落盘，内存中只保留在途的批次。
+ * 指定检查点日志时，每个批次翻译完成即写入检查点，已记录的批次不再重复翻译。
+ */
+class TranslationPipeline implements Closeable {
+
+    private final BatchTranslator translator;
+    private final SrtWriter writer;
+    private final TranslationJournal journal;
+    private final int batchSize;
+    private final int concurrency;
+    private final ExecutorService executor;
+
+    private final Deque<Future<List<SubtitleBlock>>> inFlight = new ArrayDeque<>();
+    private List<SubtitleBlock> pendingBatch = new ArrayList<>();
+    private int submittedBlocks;
+    private int batchIndex;
+    private int resumedBatches;
+
+    /**
+     * 创建翻译流水线
+     *
+     * @param translator  批量翻译实现
+     * @param writer      翻译结果写入器
+     * @param journal     检查点日志，为null时不记录检查点
+     * @param batchSize   每批字幕条数
+     * @param concurrency 同时在途的批次数量
+     */
+    TranslationPipeline(BatchTranslator translator, SrtWriter writer, TranslationJournal journal,
+                        int batchSize, int concurrency) {
+        this.translator = translator;
+        this.writer = writer;
+        this.journal = journal;
+        this.batchSize = Math.max(1, batchSize);
+        this.concurrency = Math.max(1, concurrency);
+        this.executor = Executors.newFixedThreadPool(this.concurrency, new TranslationThreadFactory());
+    }
+
+    /**
+     * 送入一个待翻译的字幕块
+     */
+    void accept(SubtitleBlock block) throws Exception {
+        pendingBatch.add(block);
+        if (pendingBatch.size() >= batchSize) {
+            submitPendingBatch();
+        }
+    }
+
+    /**
+     * 提交剩余字幕并等待所有批次写入完成
+     *
+     * @return 已写入的字幕块数量
+     */
+    int finish() throws Exception {
+        if (!pendingBatch.isEmpty()) {
+            submitPendingBatch();
+        }
+        while (!inFlight.isEmpty()) {
+            writeHead();
+        }
+        return writer.getCount();
+    }
+
+    /**
+     * 获取从检查点恢复（未重新翻译）的批次数量
+     */
+    int getResumedBatches() {
+        return resumedBatches;
+    }
+
+    /**
+     * 提交当前批次；在途批次已满时先等待最早的批次完成并写出
+     */
+    private void submitPendingBatch() throws Exception {
+        while (inFlight.size() >= concurrency) {
+            writeHead();
+        }
+        List<SubtitleBlock> batch = pendingBatch;
+        pendingBatch = new ArrayList<>(batchSize);
+        submittedBlocks += batch.size();
+        int index = batchIndex++;
+
+        // 检查点中已有该批次的结果时直接复用
+        List<SubtitleBlock> completed = journal != null ? journal.getCompletedBatch(index) : null;
+        if (completed != null && completed.size() == batch.size()) {
+            resumedBatches++;
+            inFlight.addLast(CompletableFuture.completedFuture(completed));
+            return;
+        }
+
+        inFlight.addLast(executor.submit(() -> {
+            TranslatedBatch translated = translator.translate(batch);
+            // 解析不完整的译文可能错位，不写入检查点，恢复时重新翻译
+            if (journal != null && translated.isComplete()) {
+                journal.record(index, translated.getBlocks());
+            }
+            return translated.getBlocks();
+        }));
+    }
+
+    /**
+     * 等待最早提交的批次完成，写出并落盘
+     */
+    private void writeHead() throws Exception {
+        Future<List<SubtitleBlock>> head = inFlight.peekFirst();
+        List<SubtitleBlock> translated;
+        try {
+            translated = head.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw new Exception("翻译批次执行失败: " + cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new Exception("翻译过程被中断", e);
+        }
+        inFlight.removeFirst();
+
+        writer.writeAll(translated);
+        writer.flush();
+
+        System.out.printf("翻译进度: 已完成 %d 条，已提交 %d 条\n", writer.getCount(), submittedBlocks);
+    }
+
+    /**
+     * 关闭流水线，取消尚未完成的批次
+     */
+    @Override
+    public void close() {
+        for (Future<List<SubtitleBlock>> future : inFlight) {
+            future.cancel(true);
+        }
+        inFlight.clear();
+        executor.shutdownNow();
+    }
+
+    /**
+     * 批量翻译接口
+     */
+    @FunctionalInterface
+    interface BatchTranslator {
+        /**
+         * 翻译一批字幕块
+         *
+         * @param batch 原始字幕块
+         * @return 翻译结果，字幕块顺序与输入一致
+         */
+        TranslatedBatch translate(List<SubtitleBlock> batch) throws Exception;
+    }
+
+    /**
+     * 翻译工作线程工厂
+     * 使用守护线程，避免未完成的翻译任务阻止程序退出
+     */
+    private static class TranslationThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "translation-worker-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package club.lemos.y7converter;
+
+import com.alibaba.dashscope.common.Status;
+import com.alibaba.dashscope.exception.ApiException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 令牌桶补充、Token预算与限流退避（使用模拟时间，不实际等待）
+ */
+class DashScopeRateLimiterTest {
+
+    private final FakeTicker ticker = new FakeTicker();
+
+    @Test
+    void refillsRequestPermitsOverTime() throws Exception {
+        DashScopeRateLimiter limiter = new DashScopeRateLimiter(true, 2, 0, 0, ticker);
+
+        // 桶容量为每秒请求数，前两次立即执行，第三次等待半秒
+        call(limiter, 0);
+        call(limiter, 0);
+        assertEquals(List.of(), ticker.sleeps);
+        call(limiter, 0);
+        assertEquals(List.of(millis(500)), ticker.sleeps);
+
+        // 长时间空闲后只补充到桶容量
+        ticker.now += TimeUnit.SECONDS.toNanos(10);
+        call(limiter, 0);
+        call(limiter, 0);
+        call(limiter, 0);
+        assertEquals(List.of(millis(500), millis(500)), ticker.sleeps);
+        assertEquals(6, limiter.getTotalCalls());
+        assertEquals(1000, limiter.getTotalWaitMs());
+    }
+
+    @Test
+    void waitsForTokenBudget() throws Exception {
+        DashScopeRateLimiter limiter = new DashScopeRateLimiter(true, 0, 6000, 0, ticker);
+
+        // 实际用量超出预计时从预算中补扣：6000 - 1000 - 3000 = 2000
+        assertEquals("ok", limiter.execute(1000, () -> "ok", result -> 4000));
+        call(limiter, 2000);
+        assertEquals(List.of(), ticker.sleeps);
+
+        // 预算用完，1500 个Token需要等待 1500 / 6000 分钟
+        call(limiter, 1500);
+        assertEquals(List.of(TimeUnit.SECONDS.toNanos(15)), ticker.sleeps);
+
+        // 超过每分钟上限的请求按上限计算，不会无限等待
+        ticker.now += TimeUnit.MINUTES.toNanos(1);
+        call(limiter, 100_000);
+        assertEquals(1, ticker.sleeps.size());
+    }
+
+    @Test
+    void halvesRateAndBacksOffWhenThrottled() throws Exception {
+        DashScopeRateLimiter limiter = new DashScopeRateLimiter(true, 4, 0, 3, ticker);
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = limiter.execute(0, () -> {
+            if (attempts.incrementAndGet() <= 2) {
+                throw throttled();
+            }
+            return "ok";
+        });
+
+        assertEquals("ok", result);
+        assertEquals(3, attempts.get());
+        // 退避 1 秒、2 秒，期间速率从 4 次/秒 依次减半到 1 次/秒
+        assertEquals(List.of(millis(1000), millis(2000)), ticker.sleeps);
+        assertEquals(2, limiter.getThrottledCalls());
+        assertEquals(0, limiter.getRejectedCalls());
+        // 成功后按最大速率的 5% 恢复
+        assertEquals(1.2, limiter.getCurrentRequestsPerSecond(), 1e-9);
+    }
+
+    @Test
+    void rejectsWhenRetriesRunOut() {
+        DashScopeRateLimiter limiter = new DashScopeRateLimiter(true, 4, 0, 1, ticker);
+
+        assertThrows(ApiException.class, () -> limiter.execute(0, () -> {
+            throw throttled();
+        }));
+
+        assertEquals(2, limiter.getTotalCalls());
+        assertEquals(2, limiter.getThrottledCalls());
+        assertEquals(1, limiter.getRejectedCalls());
+        assertEquals(List.of(millis(1000)), ticker.sleeps);
+        assertEquals(2.0, limiter.getCurrentRequestsPerSecond(), 1e-9);
+    }
+
+    @Test
+    void doesNotRetryOtherErrors() {
+        DashScopeRateLimiter limiter = new DashScopeRateLimiter(true, 4, 0, 3, ticker);
+
+        ApiException error = assertThrows(ApiException.class, () -> limiter.execute(0, () -> {
+            throw new ApiException(Status.builder().statusCode(400).code("InvalidParameter").build());
+        }));
+
+        assertEquals(400, error.getStatus().getStatusCode());
+        assertEquals(1, limiter.getTotalCalls());
+        assertEquals(0, limiter.getThrottledCalls());
+        assertEquals(List.of(), ticker.sleeps);
+    }
+
+    @Test
+    void passesCallsThroughWhenDisabled() throws Exception {
+        DashScopeRateLimiter limiter = new DashScopeRateLimiter(false, 1, 100, 0, ticker);
+
+        for (int i = 0; i < 5; i++) {
+            call(limiter, 1000);
+        }
+
+        assertEquals(5, limiter.getTotalCalls());
+        assertEquals(List.of(), ticker.sleeps);
+    }
+
+    private static void call(DashScopeRateLimiter limiter, int estimatedTokens) throws Exception {
+        limiter.execute(estimatedTokens, () -> "ok");
+    }
+
+    private static ApiException throttled() {
+        return new ApiException(Status.builder().statusCode(429).code("Throttling.RateQuota").build());
+    }
+
+    private static long millis(long ms) {
+        return TimeUnit.MILLISECONDS.toNanos(ms);
+    }
+
+    /**
+     * 模拟时间，等待时直接推进时间
+     */
+    private static class FakeTicker implements DashScopeRateLimiter.Ticker {
+        long now = TimeUnit.HOURS.toNanos(1);
+        final List<Long> sleeps = new ArrayList<>();
+
+        @Override
+        public long nanoTime() {
+            return now;
+        }
+
+        @Override
+        public void sleep(long nanos) {
+            sleeps.add(nanos);
+            now += nanos;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package club.lemos.y7converter;
+
+import com.aliyun.oss.OSS;
+import com.aliyun.oss.model.AbortMultipartUploadRequest;
+import com.aliyun.oss.model.CompleteMultipartUploadRequest;
+import com.aliyun.oss.model.CompleteMultipartUploadResult;
+import com.aliyun.oss.model.InitiateMultipartUploadResult;
+import com.aliyun.oss.model.UploadPartRequest;
+import com.aliyun.oss.model.UploadPartResult;
+import com.aliyun.oss.model.VoidResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 分片上传的重试、取消与检查点清理（使用模拟的OSS客户端）
+ */
+class FileUploadServiceTest {
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    void retriesOnlyUnfinishedParts() throws IOException {
+        StubOss oss = new StubOss();
+        oss.failuresByPart.put(2, new AtomicInteger(1));
+        File file = writeFile(2_500_000);
+
+        FileUploadService.UploadResult result = new FileUploadService(oss.client()).uploadFile(file);
+
+        assertTrue(result.isSuccess());
+        assertEquals(List.of(1, 2, 3), oss.completedParts);
+        // 第1、3片只上传一次，失败的第2片重试一次
+        assertEquals(4, oss.uploadedParts.size());
+        assertTrue(oss.abortedUploads.isEmpty());
+        assertFalse(hasCheckpoint(oss.uploadId));
+    }
+
+    @Test
+    void abortsUploadAndDeletesCheckpointWhenRetriesRunOut() throws IOException {
+        StubOss oss = new StubOss();
+        oss.failuresByPart.put(3, new AtomicInteger(Integer.MAX_VALUE));
+        File file = writeFile(2_500_000);
+
+        IOException error = assertThrows(IOException.class, () -> new FileUploadService(oss.client()).uploadFile(file));
+
+        assertTrue(error.getMessage().contains("OSS分片上传失败"), error.getMessage());
+        assertEquals(List.of(oss.uploadId), oss.abortedUploads);
+        assertNull(oss.completedParts);
+        assertFalse(hasCheckpoint(oss.uploadId));
+    }
+
+    @Test
+    void abortsStaleCheckpointsLeftByExitedProcesses() throws IOException {
+        File checkpointDir = new File(ConfigLoader.getInstance().getTempDir(), "y7converter_upload");
+        assertTrue(checkpointDir.isDirectory() || checkpointDir.mkdirs());
+        String staleUploadId = "stale-" + UUID.randomUUID();
+        File staleCheckpoint = new File(checkpointDir, staleUploadId + ".json");
+        Files.write(staleCheckpoint.toPath(), ("{\"bucketName\":\"old-bucket\",\"objectKey\":\"audio/old.mp3\","
+                + "\"uploadId\":\"" + staleUploadId + "\",\"parts\":{\"1\":\"etag\"}}").getBytes(StandardCharsets.UTF_8));
+        assertTrue(staleCheckpoint.setLastModified(System.currentTimeMillis() - 2 * 24 * 3600 * 1000L));
+
+        StubOss oss = new StubOss();
+        new FileUploadService(oss.client()).uploadFile(writeFile(1_500_000));
+
+        assertTrue(oss.abortedUploads.contains(staleUploadId));
+        assertFalse(oss.abortedUploads.contains(oss.uploadId));
+        assertFalse(staleCheckpoint.exists());
+    }
+
+    private File writeFile(int size) throws IOException {
+        File file = new File(tempDir, "extracted_audio_" + UUID.randomUUID() + ".mp3");
+        Files.write(file.toPath(), new byte[size]);
+        return file;
+    }
+
+    private static boolean hasCheckpoint(String uploadId) throws IOException {
+        File[] checkpoints = new File(ConfigLoader.getInstance().getTempDir(), "y7converter_upload").listFiles();
+        if (checkpoints != null) {
+            for (File checkpoint : checkpoints) {
+                if (Files.readString(checkpoint.toPath(), StandardCharsets.UTF_8).contains(uploadId)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 只实现分片上传相关方法的模拟OSS客户端
+     */
+    private static class StubOss {
+        final String uploadId = "upload-" + UUID.randomUUID();
+        // 各分片剩余的失败次数
+        final Map<Integer, AtomicInteger> failuresByPart = new ConcurrentHashMap<>();
+        final List<Integer> uploadedParts = new CopyOnWriteArrayList<>();
+        final List<String> abortedUploads = new CopyOnWriteArrayList<>();
+        volatile List<Integer> completedParts;
+
+        OSS client() {
+            return (OSS) Proxy.newProxyInstance(OSS.class.getClassLoader(), new Class<?>[]{OSS.class},
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "initiateMultipartUpload": {
+                                InitiateMultipartUploadResult result = new InitiateMultipartUploadResult();
+                                result.setUploadId(uploadId);
+                                return result;
+                            }
+                            case "uploadPart":
+                                return uploadPart((UploadPartRequest) args[0]);
+                            case "completeMultipartUpload":
+                                completedParts = ((CompleteMultipartUploadRequest) args[0]).getPartETags().stream()
+                                        .map(partETag -> partETag.getPartNumber()).toList();
+                                return new CompleteMultipartUploadResult();
+                            case "abortMultipartUpload":
+                                abortedUploads.add(((AbortMultipartUploadRequest) args[0]).getUploadId());
+                                return new VoidResult();
+                            default:
+                                throw new UnsupportedOperationException(method.getName());
+                        }
+                    });
+        }
+
+        private UploadPartResult uploadPart(UploadPartRequest request) throws IOException {
+            int partNumber = request.getPartNumber();
+            uploadedParts.add(partNumber);
+            AtomicInteger failures = failuresByPart.get(partNumber);
+            if (failures != null && failures.getAndDecrement() > 0) {
+                throw new IllegalStateException("模拟网络错误");
+            }
+            // 与真实客户端一样只读取分片长度的数据
+            assertEquals(request.getPartSize(), request.getInputStream().readNBytes((int) request.getPartSize()).length);
+
+            UploadPartResult result = new UploadPartResult();
+            result.setPartNumber(partNumber);
+            result.setETag("etag-" + partNumber);
+            return result;
+        }
+    }
+}
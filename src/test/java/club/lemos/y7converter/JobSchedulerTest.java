@@ -0,0 +1,287 @@
+package club.lemos.y7converter;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 批量任务的排队、跳过、临时输出、取消与各阶段的并发限制（使用模拟的处理过程）
+ */
+class JobSchedulerTest {
+
+    private static final int ACTION = CommandActions.GENERATE_SUBTITLE;
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    void runsJobsInSubmissionOrderAndMovesPartialOutput() throws Exception {
+        List<String> processed = new CopyOnWriteArrayList<>();
+        JobScheduler scheduler = new JobScheduler(1, null, true, null, (action, source, dest, translated, progress) -> {
+            // 处理过程只写临时文件，正式的输出文件在成功后才出现
+            assertTrue(dest.getName().endsWith(".part"), dest.getName());
+            assertFalse(new File(tempDir, FileNameUtils.generateSubtitleFileName(source)).exists());
+            processed.add(source.getName());
+            return writeOutput(action, source, dest);
+        });
+        try {
+            List<JobScheduler.Job> jobs = List.of(
+                    scheduler.submit(ACTION, source("c.mp4")),
+                    scheduler.submit(ACTION, source("a.mp4")),
+                    scheduler.submit(ACTION, source("b.mp4")));
+            scheduler.awaitAll();
+
+            assertEquals(List.of("c.mp4", "a.mp4", "b.mp4"), processed);
+            for (JobScheduler.Job job : jobs) {
+                assertEquals(JobScheduler.JobStatus.SUCCEEDED, job.getStatus());
+                assertEquals("subtitle of " + job.getSourceFile().getName(), read(job.getDestFile()));
+                assertFalse(new File(job.getDestFile().getPath() + ".part").exists());
+            }
+            assertEquals("共 3 个：已完成 3", scheduler.getSummary());
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    void failedJobLeavesNoOutput() throws Exception {
+        JobScheduler scheduler = new JobScheduler(1, null, true, null, (action, source, dest, translated, progress) -> {
+            writeOutput(action, source, dest);
+            throw new IllegalStateException("模拟处理失败");
+        });
+        try {
+            JobScheduler.Job job = scheduler.submit(ACTION, source("a.mp4"));
+            assertTrue(job.await(10, TimeUnit.SECONDS));
+
+            assertEquals(JobScheduler.JobStatus.FAILED, job.getStatus());
+            assertEquals("模拟处理失败", job.getErrorMessage());
+            assertFalse(job.getDestFile().exists());
+            assertFalse(new File(job.getDestFile().getPath() + ".part").exists());
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    void skipsExistingOutputUnlessReplacing() throws Exception {
+        File source = source("a.mp4");
+        File existing = new File(tempDir, "a.srt");
+        Files.write(existing.toPath(), "old".getBytes(StandardCharsets.UTF_8));
+        AtomicInteger calls = new AtomicInteger();
+        JobScheduler scheduler = new JobScheduler(1, null, true, null, (action, src, dest, translated, progress) -> {
+            calls.incrementAndGet();
+            return writeOutput(action, src, dest);
+        });
+        try {
+            JobScheduler.Job skipped = scheduler.submit(ACTION, source);
+            assertTrue(skipped.await(10, TimeUnit.SECONDS));
+            assertEquals(JobScheduler.JobStatus.SKIPPED, skipped.getStatus());
+            assertEquals(0, calls.get());
+            assertEquals("old", read(existing));
+
+            JobScheduler.Job replaced = scheduler.submit(ACTION, source, true);
+            assertTrue(replaced.await(10, TimeUnit.SECONDS));
+            assertEquals(JobScheduler.JobStatus.SUCCEEDED, replaced.getStatus());
+            assertEquals(existing, replaced.getDestFile());
+            assertEquals(1, calls.get());
+            assertEquals("subtitle of a.mp4", read(existing));
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    void cancelsQueuedAndRunningJobs() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        JobScheduler scheduler = new JobScheduler(1, null, true, null, (action, source, dest, translated, progress) -> {
+            calls.incrementAndGet();
+            writeOutput(action, source, dest);
+            started.countDown();
+            try {
+                Thread.sleep(60_000);
+            } catch (InterruptedException e) {
+                throw new CancellationException("操作已取消");
+            }
+            return writeOutput(action, source, dest);
+        });
+        try {
+            JobScheduler.Job running = scheduler.submit(ACTION, source("a.mp4"));
+            JobScheduler.Job queued = scheduler.submit(ACTION, source("b.mp4"));
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+
+            queued.cancel();
+            assertEquals(JobScheduler.JobStatus.CANCELLED, queued.getStatus());
+            running.cancel();
+            assertTrue(running.await(10, TimeUnit.SECONDS));
+
+            assertEquals(JobScheduler.JobStatus.CANCELLED, running.getStatus());
+            assertEquals(1, calls.get());
+            assertFalse(running.getDestFile().exists());
+            assertFalse(new File(running.getDestFile().getPath() + ".part").exists());
+            assertFalse(queued.getDestFile().exists());
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    void prunesEarliestFinishedJobs() throws Exception {
+        JobScheduler scheduler = new JobScheduler(1, null, true, null, JobSchedulerTest::writeOutput);
+        try {
+            JobScheduler.Job first = scheduler.submit(ACTION, source("a.mp4"));
+            JobScheduler.Job second = scheduler.submit(ACTION, source("b.mp4"));
+            JobScheduler.Job third = scheduler.submit(ACTION, source("c.mp4"));
+            scheduler.awaitAll();
+
+            scheduler.pruneFinished(1);
+
+            assertEquals(List.of(third), scheduler.getJobs());
+            assertNull(scheduler.getJob(first.getId()));
+            assertNull(scheduler.getJob(second.getId()));
+            // 输出文件保留，只移除任务记录
+            assertTrue(first.getDestFile().exists());
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    void resubmittedSourceReusesItsOutput() throws Exception {
+        JobScheduler scheduler = new JobScheduler(1, null, true, null, JobSchedulerTest::writeOutput);
+        try {
+            File source = source("a.mp4");
+            JobScheduler.Job first = scheduler.submit(ACTION, source);
+            assertTrue(first.await(10, TimeUnit.SECONDS));
+            JobScheduler.Job second = scheduler.submit(ACTION, source, true);
+            assertTrue(second.await(10, TimeUnit.SECONDS));
+
+            assertEquals(JobScheduler.JobStatus.SUCCEEDED, second.getStatus());
+            assertEquals(first.getDestFile(), second.getDestFile());
+            assertFalse(new File(tempDir, "a_2.srt").exists());
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    void releasesOutputClaimsOfRemovedJobs() throws Exception {
+        File outputDir = new File(tempDir, "out");
+        File first = source("first/a.mp4");
+        File second = source("second/a.mp4");
+        JobScheduler scheduler = new JobScheduler(1, outputDir, false, null, JobSchedulerTest::writeOutput);
+        try {
+            // 同名的不同源文件输出到同一目录时不会互相覆盖
+            assertEquals(new File(outputDir, "a.srt"), scheduler.submit(ACTION, first).getDestFile());
+            assertEquals(new File(outputDir, "a_2.srt"), scheduler.submit(ACTION, second).getDestFile());
+            scheduler.awaitAll();
+
+            scheduler.pruneFinished(0);
+
+            assertTrue(scheduler.getJobs().isEmpty());
+            assertEquals(new File(outputDir, "a.srt"), scheduler.submit(ACTION, second).getDestFile());
+            scheduler.awaitAll();
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    void overlapsStagesOfDifferentFilesWithinStageLimits() throws Exception {
+        // 测试配置中提取与识别各只有1个名额
+        long stageMs = 200;
+        Map<StageLimiter.Stage, AtomicInteger> active = new ConcurrentHashMap<>();
+        Map<StageLimiter.Stage, AtomicInteger> maxActive = new ConcurrentHashMap<>();
+        Map<String, long[]> extractTimes = new ConcurrentHashMap<>();
+        Map<String, long[]> recognitionTimes = new ConcurrentHashMap<>();
+        JobScheduler scheduler = new JobScheduler(2, null, true, null, (action, source, dest, translated, progress) -> {
+            try {
+                extractTimes.put(source.getName(), runStage(StageLimiter.Stage.EXTRACT, stageMs, active, maxActive));
+                recognitionTimes.put(source.getName(), runStage(StageLimiter.Stage.RECOGNITION, stageMs, active, maxActive));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            return writeOutput(action, source, dest);
+        });
+        try {
+            long start = System.nanoTime();
+            for (String name : List.of("a.mp4", "b.mp4", "c.mp4")) {
+                scheduler.submit(ACTION, source(name));
+            }
+            scheduler.awaitAll();
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            assertEquals("共 3 个：已完成 3", scheduler.getSummary());
+            assertEquals(1, maxActive.get(StageLimiter.Stage.EXTRACT).get());
+            assertEquals(1, maxActive.get(StageLimiter.Stage.RECOGNITION).get());
+            // 先提取的文件识别时，后一个文件已在提取音频（两个处理线程谁先提取不确定）
+            List<String> byExtractStart = new ArrayList<>(extractTimes.keySet());
+            byExtractStart.sort(Comparator.comparingLong(name -> extractTimes.get(name)[0]));
+            long[] firstRecognition = recognitionTimes.get(byExtractStart.get(0));
+            long[] secondExtract = extractTimes.get(byExtractStart.get(1));
+            assertTrue(secondExtract[0] < firstRecognition[1] && firstRecognition[0] < secondExtract[1],
+                    byExtractStart.get(1) + " 的提取应与 " + byExtractStart.get(0) + " 的识别重叠");
+            // 依次处理需要 6 个阶段的时间，流水线约为 4 个
+            assertTrue(elapsedMs < 5 * stageMs, "elapsed " + elapsedMs + " ms");
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    private static long[] runStage(StageLimiter.Stage stage, long durationMs,
+                                   Map<StageLimiter.Stage, AtomicInteger> active,
+                                   Map<StageLimiter.Stage, AtomicInteger> maxActive) throws Exception {
+        return StageLimiter.run(stage, () -> {
+            int current = active.computeIfAbsent(stage, s -> new AtomicInteger()).incrementAndGet();
+            maxActive.computeIfAbsent(stage, s -> new AtomicInteger()).accumulateAndGet(current, Math::max);
+            long begin = System.nanoTime();
+            try {
+                Thread.sleep(durationMs);
+            } finally {
+                active.get(stage).decrementAndGet();
+            }
+            return new long[]{begin, System.nanoTime()};
+        });
+    }
+
+    private File source(String name) throws IOException {
+        File file = new File(tempDir, name);
+        Files.createDirectories(file.getParentFile().toPath());
+        Files.write(file.toPath(), new byte[16]);
+        return file;
+    }
+
+    private static CommandResult writeOutput(int action, File source, File dest, File translated,
+                                             ProgressListener progress) {
+        return writeOutput(action, source, dest);
+    }
+
+    private static CommandResult writeOutput(int action, File source, File dest) {
+        try {
+            Files.write(dest.toPath(), ("subtitle of " + source.getName()).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return new CommandResult(dest, 0, action, "", "", 0);
+    }
+
+    private static String read(File file) throws IOException {
+        return Files.readString(file.toPath(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,166 @@
+package club.lemos.y7converter;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 任务HTTP接口的访问控制、请求检查与任务数量上限
+ * 测试配置的令牌为 test-token，未结束任务上限为 2
+ */
+class JobServerTest {
+
+    private static final String TOKEN = "Bearer test-token";
+    private static final Gson GSON = new Gson();
+
+    @TempDir
+    File tempDir;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    // 模拟的处理过程一直等待，提交的任务保持未结束
+    private final CountDownLatch release = new CountDownLatch(1);
+    private File outputDir;
+    private JobScheduler scheduler;
+    private JobServer server;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        outputDir = new File(tempDir, "out");
+        scheduler = new JobScheduler(1, outputDir, false, null, (action, source, dest, translated, progress) -> {
+            try {
+                release.await();
+                Files.write(dest.toPath(), "subtitle".getBytes(StandardCharsets.UTF_8));
+            } catch (InterruptedException | IOException e) {
+                throw new IllegalStateException(e);
+            }
+            return new CommandResult(dest, 0, action, "", "", 0);
+        });
+        server = new JobServer(scheduler);
+        server.start("127.0.0.1", 0);
+    }
+
+    @AfterEach
+    void stopServer() {
+        release.countDown();
+        server.stop();
+        scheduler.shutdown();
+    }
+
+    @Test
+    void rejectsRequestsFromOtherOrigins() throws Exception {
+        HttpResponse<String> crossSite = send(request("/jobs").header("Authorization", TOKEN)
+                .header("Origin", "http://evil.example").GET());
+        assertEquals(403, crossSite.statusCode());
+        assertTrue(crossSite.body().contains("http://evil.example"), crossSite.body());
+
+        HttpResponse<String> sameOrigin = send(request("/jobs").header("Authorization", TOKEN)
+                .header("Origin", "http://127.0.0.1:" + server.getPort()).GET());
+        assertEquals(200, sameOrigin.statusCode());
+    }
+
+    @Test
+    void rejectsOtherHostNamesOnLoopback() throws IOException {
+        // DNS 重绑定时浏览器发送的是攻击者的主机名；HttpClient 不允许修改 Host，直接写请求
+        assertTrue(rawGet("attacker.example").startsWith("HTTP/1.1 403"));
+        assertTrue(rawGet("localhost:" + server.getPort()).startsWith("HTTP/1.1 200"));
+    }
+
+    @Test
+    void requiresConfiguredToken() throws Exception {
+        assertEquals(403, send(request("/jobs").GET()).statusCode());
+        assertEquals(403, send(request("/jobs").header("Authorization", "Bearer wrong").GET()).statusCode());
+        assertEquals(200, send(request("/jobs").header("Authorization", TOKEN).GET()).statusCode());
+    }
+
+    @Test
+    void rejectsSubmissionsThatAreNotJson() throws Exception {
+        String body = GSON.toJson(Map.of("source", source("a.mp4").getAbsolutePath()));
+        HttpResponse<String> response = send(request("/jobs").header("Authorization", TOKEN)
+                .header("Content-Type", "text/plain").POST(HttpRequest.BodyPublishers.ofString(body)));
+
+        assertEquals(415, response.statusCode());
+        assertTrue(scheduler.getJobs().isEmpty());
+    }
+
+    @Test
+    void keepsOutputInsideOutputDirectory() throws Exception {
+        String source = source("a.mp4").getAbsolutePath();
+        for (String output : new String[]{"../escaped.srt", new File(tempDir, "escaped.srt").getAbsolutePath(), "."}) {
+            HttpResponse<String> response = submit(Map.of("source", source, "output", output));
+            assertEquals(400, response.statusCode(), output);
+        }
+        assertTrue(scheduler.getJobs().isEmpty());
+
+        HttpResponse<String> accepted = submit(Map.of("source", source, "output", "sub/../nested/a.srt"));
+        assertEquals(202, accepted.statusCode(), accepted.body());
+        assertEquals(new File(outputDir, "nested/a.srt").getAbsoluteFile(), scheduler.getJobs().get(0).getDestFile());
+    }
+
+    @Test
+    void rejectsSubmissionsWhenTooManyJobsArePending() throws Exception {
+        String source = source("a.mp4").getAbsolutePath();
+        assertEquals(202, submit(Map.of("source", source, "output", "1.srt")).statusCode());
+        assertEquals(202, submit(Map.of("source", source, "output", "2.srt")).statusCode());
+
+        HttpResponse<String> rejected = submit(Map.of("source", source, "output", "3.srt"));
+        assertEquals(503, rejected.statusCode());
+        assertEquals("10", rejected.headers().firstValue("Retry-After").orElse(null));
+        assertEquals(2, scheduler.getJobs().size());
+
+        // 任务结束后再次接受提交
+        release.countDown();
+        scheduler.awaitAll();
+        assertEquals(202, submit(Map.of("source", source, "output", "3.srt")).statusCode());
+    }
+
+    private HttpResponse<String> submit(Map<String, String> body) throws Exception {
+        return send(request("/jobs").header("Authorization", TOKEN).header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(GSON.toJson(body))));
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getPort() + path))
+                .timeout(Duration.ofSeconds(10));
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws Exception {
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+    }
+
+    private String rawGet(String host) throws IOException {
+        try (Socket socket = new Socket("127.0.0.1", server.getPort())) {
+            socket.setSoTimeout(10_000);
+            OutputStream output = socket.getOutputStream();
+            output.write(("GET /jobs HTTP/1.1\r\nHost: " + host + "\r\nAuthorization: " + TOKEN
+                    + "\r\nConnection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            output.flush();
+            InputStream input = socket.getInputStream();
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private File source(String name) throws IOException {
+        File file = new File(tempDir, name);
+        Files.write(file.toPath(), new byte[16]);
+        return file;
+    }
+}
@@ -0,0 +1,112 @@
+package club.lemos.y7converter;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link MappedSrtReader} 与 {@link SrtReader} 的解析结果应一致
+ */
+class MappedSrtReaderTest {
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    void matchesSrtReaderOnPlainFile() throws IOException {
+        File file = write("plain.srt", "1\n00:00:01,000 --> 00:00:02,000\nこんにちは\n\n"
+                + "2\n00:00:03,000 --> 00:00:04,500\n第一行\n第二行\n");
+
+        List<SubtitleBlock> blocks = assertSameBlocks(file);
+        assertEquals(2, blocks.size());
+        assertEquals("こんにちは", blocks.get(0).text);
+        assertEquals("第一行\n第二行", blocks.get(1).text);
+        assertEquals(4_500, blocks.get(1).endMs);
+    }
+
+    @Test
+    void matchesSrtReaderWithBomCrlfAndWhitespace() throws IOException {
+        File file = write("windows.srt", "\uFEFF1\r\n00:00:01,000 --> 00:00:02,000\r\n  first line  \r\n\r\n"
+                + "\r\n2\r\n00:00:03,000-->00:00:04,000\r\nsecond\r\n\t third \r\n\r\n"
+                + "3\r\n 00:00:05,000 --> 00:00:06,000 \r\nno trailing newline");
+
+        List<SubtitleBlock> blocks = assertSameBlocks(file);
+        assertEquals(3, blocks.size());
+        assertEquals(1, blocks.get(0).number);
+        assertEquals("first line", blocks.get(0).text);
+        assertEquals("second\nthird", blocks.get(1).text);
+        assertEquals("no trailing newline", blocks.get(2).text);
+    }
+
+    @Test
+    void matchesSrtReaderOnMappedFile() throws IOException {
+        // 超过直接读入内存的大小，使用内存映射读取
+        StringBuilder content = new StringBuilder();
+        int count = 0;
+        while (content.length() < 512 * 1024) {
+            count++;
+            content.append(count).append('\n')
+                    .append(SrtTime.formatRange(count * 1000L, count * 1000L + 800)).append('\n')
+                    .append("字幕 ").append(count).append('\n')
+                    .append(count % 3 == 0 ? "  second line\r\n" : "")
+                    .append('\n');
+        }
+        File file = write("large.srt", content.toString());
+
+        List<SubtitleBlock> blocks = assertSameBlocks(file);
+        assertEquals(count, blocks.size());
+        assertEquals("字幕 3\nsecond line", blocks.get(2).text);
+    }
+
+    @Test
+    void rejectsTextAccessAfterClose() throws IOException {
+        File file = write("closed.srt", "1\n00:00:01,000 --> 00:00:02,000\ntext\n");
+
+        MappedSrtReader reader = new MappedSrtReader(file);
+        MappedSrtReader.Cue cue = reader.next();
+        assertEquals("text", cue.getText());
+        reader.close();
+
+        assertThrows(IllegalStateException.class, reader::hasNext);
+        assertThrows(IllegalStateException.class, cue::getText);
+        // 关闭后已解除映射，文件可以删除
+        assertTrue(file.delete());
+    }
+
+    private File write(String name, String content) throws IOException {
+        File file = new File(tempDir, name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static List<SubtitleBlock> assertSameBlocks(File file) throws IOException {
+        List<SubtitleBlock> expected = new ArrayList<>();
+        try (SrtReader reader = new SrtReader(file)) {
+            reader.forEachRemaining(expected::add);
+        }
+
+        List<SubtitleBlock> actual = new ArrayList<>();
+        try (MappedSrtReader reader = new MappedSrtReader(file)) {
+            reader.forEachRemaining(cue -> actual.add(cue.toBlock()));
+        }
+
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            SubtitleBlock want = expected.get(i);
+            SubtitleBlock got = actual.get(i);
+            assertEquals(want.number, got.number, "number of block " + i);
+            assertEquals(want.startMs, got.startMs, "start of block " + i);
+            assertEquals(want.endMs, got.endMs, "end of block " + i);
+            assertEquals(want.text, got.text, "text of block " + i);
+        }
+        return expected;
+    }
+}
@@ -0,0 +1,74 @@
+package club.lemos.y7converter;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 取消任务时只结束该任务启动的进程
+ */
+class ProcessRunnerTest {
+
+    @TempDir
+    static File tempDir;
+
+    // 长时间运行的子进程（以源文件方式运行的Java程序，不依赖平台命令）
+    private static List<String> sleepCommand;
+
+    @BeforeAll
+    static void writeSleepProgram() throws IOException {
+        File source = new File(tempDir, "Sleep.java");
+        Files.write(source.toPath(), "class Sleep { public static void main(String[] args) throws Exception { Thread.sleep(60_000); } }"
+                .getBytes(StandardCharsets.UTF_8));
+        String java = ProcessHandle.current().info().command().orElse("java");
+        sleepCommand = List.of(java, source.getAbsolutePath());
+    }
+
+    @Test
+    void cancelsOnlyProcessesOfCancelledTask() throws Exception {
+        StageLimiter.Timings cancelledTask = new StageLimiter.Timings();
+        StageLimiter.Timings otherTask = new StageLimiter.Timings();
+        ProcessRunner cancelled = StageLimiter.runRecording(cancelledTask, () -> start());
+        ProcessRunner other = StageLimiter.runRecording(otherTask, () -> start());
+        try {
+            assertEquals(1, cancelledTask.cancelProcesses());
+
+            assertThrows(CancellationException.class, cancelled::waitFor);
+            assertTrue(cancelled.isTerminated());
+            assertFalse(other.isTerminated());
+            assertFalse(otherTask.isCancelled());
+        } finally {
+            other.destroy();
+        }
+    }
+
+    @Test
+    void refusesToStartProcessesForCancelledTask() throws Exception {
+        StageLimiter.Timings task = new StageLimiter.Timings();
+        assertEquals(0, task.cancelProcesses());
+
+        assertThrows(CancellationException.class, () -> StageLimiter.runRecording(task, () -> start()));
+    }
+
+    @Test
+    void finishedProcessesAreNotCancelled() throws Exception {
+        StageLimiter.Timings task = new StageLimiter.Timings();
+        ProcessRunner runner = StageLimiter.runRecording(task, () -> start());
+        runner.destroy();
+
+        assertEquals(0, task.cancelProcesses());
+    }
+
+    private static ProcessRunner start() throws IOException {
+        return ProcessRunner.start(sleepCommand, null, 0, false, null);
+    }
+}
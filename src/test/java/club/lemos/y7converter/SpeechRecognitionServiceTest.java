@@ -0,0 +1,111 @@
+package club.lemos.y7converter;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpeechRecognitionServiceTest {
+
+    @Test
+    void parsesSentencesAndSkipsOtherContent() throws IOException {
+        String json = "{\"file_url\":\"https://example.com/a.mp3\","
+                + "\"properties\":{\"audio_format\":\"mp3\",\"channels\":[0]},"
+                + "\"transcripts\":[{\"channel_id\":0,\"text\":\"全文\",\"sentences\":["
+                + "{\"begin_time\":100,\"end_time\":1500,\"text\":\" こんにちは \","
+                + "\"words\":[{\"begin_time\":100,\"end_time\":800,\"text\":\"こん\"}]},"
+                + "{\"begin_time\":1600,\"end_time\":2000,\"text\":\"\"},"
+                + "{\"begin_time\":2100,\"end_time\":null,\"text\":\"42\"}"
+                + "]},{\"channel_id\":1,\"sentences\":[{\"begin_time\":3000,\"end_time\":4000,\"text\":\"次\"}]}]}";
+
+        StringWriter output = new StringWriter();
+        List<SubtitleBlock> blocks = new ArrayList<>();
+        SrtWriter writer = new SrtWriter(output);
+        writer.setBlockListener(blocks::add);
+        SpeechRecognitionService.parseTranscription(new StringReader(json), writer);
+        writer.flush();
+
+        assertEquals(3, writer.getCount());
+        assertEquals(3, blocks.size());
+
+        assertEquals(1, blocks.get(0).number);
+        assertEquals(100, blocks.get(0).startMs);
+        assertEquals(1500, blocks.get(0).endMs);
+        assertEquals("こんにちは", blocks.get(0).text);
+
+        // 缺少结束时间时默认持续5秒，纯数字文本原样保留
+        assertEquals(2, blocks.get(1).number);
+        assertEquals(2100, blocks.get(1).startMs);
+        assertEquals(7100, blocks.get(1).endMs);
+        assertEquals("42", blocks.get(1).text);
+
+        assertEquals(3, blocks.get(2).number);
+        assertEquals("次", blocks.get(2).text);
+
+        String srt = output.toString().replace("\r\n", "\n");
+        assertTrue(srt.startsWith("1\n00:00:00,100 --> 00:00:01,500\nこんにちは\n\n2\n"), srt);
+    }
+
+    @Test
+    void continuesNumberingOfWrittenBlocks() throws IOException {
+        StringWriter output = new StringWriter();
+        SrtWriter writer = new SrtWriter(output);
+        writer.write(new SubtitleBlock(1, 0, 1000, "前一个结果"));
+
+        SpeechRecognitionService.parseTranscription(new StringReader(
+                "{\"transcripts\":[{\"sentences\":[{\"begin_time\":0,\"end_time\":500,\"text\":\"下一句\"}]}]}"), writer);
+        writer.flush();
+
+        assertEquals(2, writer.getCount());
+        assertTrue(output.toString().replace("\r\n", "\n").contains("\n2\n00:00:00,000 --> 00:00:00,500\n下一句\n"));
+    }
+
+    @Test
+    void rejectsMalformedJson() {
+        SrtWriter writer = new SrtWriter(new StringWriter());
+        assertThrows(IOException.class, () -> SpeechRecognitionService.parseTranscription(
+                new StringReader("{\"transcripts\":[{\"sentences\":["), writer));
+    }
+
+    @Test
+    void stopsWaitingWhenResultsStopArriving() throws InterruptedException {
+        CountDownLatch completed = new CountDownLatch(1);
+        AtomicLong lastEventNanos = new AtomicLong(System.nanoTime());
+
+        long start = System.nanoTime();
+        assertFalse(SpeechRecognitionService.awaitCompletion(completed, lastEventNanos,
+                TimeUnit.MILLISECONDS.toNanos(200)));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(200));
+    }
+
+    @Test
+    void keepsWaitingWhileResultsArrive() throws InterruptedException {
+        CountDownLatch completed = new CountDownLatch(1);
+        AtomicLong lastEventNanos = new AtomicLong(System.nanoTime());
+        Thread results = new Thread(() -> {
+            try {
+                // 总时长超过超时时间，但每次结果的间隔都小于超时时间
+                for (int i = 0; i < 6; i++) {
+                    Thread.sleep(100);
+                    lastEventNanos.set(System.nanoTime());
+                }
+                completed.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        results.start();
+
+        assertTrue(SpeechRecognitionService.awaitCompletion(completed, lastEventNanos,
+                TimeUnit.MILLISECONDS.toNanos(300)));
+        results.join();
+    }
+}
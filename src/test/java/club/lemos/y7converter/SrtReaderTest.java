@@ -0,0 +1,61 @@
+package club.lemos.y7converter;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SrtReaderTest {
+
+    @Test
+    void readsBlocksWithBomAndBlankLines() throws IOException {
+        List<SubtitleBlock> blocks = read("\uFEFF1\r\n00:00:01,000 --> 00:00:02,000\r\n第一行\r\n 第二行 \r\n\r\n\r\n"
+                + "2\n00:00:03,000 --> 00:00:04,000\nlast");
+
+        assertEquals(2, blocks.size());
+        assertEquals(1, blocks.get(0).number);
+        assertEquals(1_000, blocks.get(0).startMs);
+        assertEquals("第一行\n第二行", blocks.get(0).text);
+        assertEquals(2, blocks.get(1).number);
+        assertEquals(4_000, blocks.get(1).endMs);
+        assertEquals("last", blocks.get(1).text);
+    }
+
+    @Test
+    void skipsBlocksWithoutText() throws IOException {
+        List<SubtitleBlock> blocks = read("1\n00:00:01,000 --> 00:00:02,000\n\n"
+                + "2\n00:00:03,000 --> 00:00:04,000\ntext\n");
+
+        assertEquals(1, blocks.size());
+        assertEquals(2, blocks.get(0).number);
+    }
+
+    @Test
+    void roundTripsWrittenBlocks() throws IOException {
+        StringWriter output = new StringWriter();
+        try (SrtWriter writer = new SrtWriter(output)) {
+            writer.write(new SubtitleBlock(1, 0, 1_500, "こんにちは"));
+            writer.write(2, 1_500, 3_723_456, "两行\n字幕");
+        }
+
+        List<SubtitleBlock> blocks = read(output.toString());
+        assertEquals(2, blocks.size());
+        assertEquals("こんにちは", blocks.get(0).text);
+        assertEquals(1_500, blocks.get(1).startMs);
+        assertEquals(3_723_456, blocks.get(1).endMs);
+        assertEquals("两行\n字幕", blocks.get(1).text);
+    }
+
+    private static List<SubtitleBlock> read(String content) throws IOException {
+        List<SubtitleBlock> blocks = new ArrayList<>();
+        try (SrtReader reader = new SrtReader(new StringReader(content))) {
+            reader.forEachRemaining(blocks::add);
+        }
+        return blocks;
+    }
+}
@@ -0,0 +1,72 @@
+package club.lemos.y7converter;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SrtTimeTest {
+
+    @Test
+    void formatsTimestamps() {
+        assertEquals("00:00:00,000", SrtTime.format(0));
+        assertEquals("01:02:03,456", SrtTime.format(3_723_456));
+        assertEquals("00:00:00,000", SrtTime.format(-1500));
+        assertEquals("123:00:00,007", SrtTime.format(123 * 3_600_000L + 7));
+    }
+
+    @Test
+    void formatsRangeIntoBuffer() {
+        char[] buffer = new char[SrtTime.MAX_RANGE_LENGTH];
+        int length = SrtTime.formatRange(1_000, 62_500, buffer);
+        assertEquals("00:00:01,000 --> 00:01:02,500", new String(buffer, 0, length));
+        assertEquals(SrtTime.formatRange(1_000, 62_500), new String(buffer, 0, length));
+    }
+
+    @Test
+    void parsesTimestamps() {
+        assertEquals(3_723_456, SrtTime.parse("01:02:03,456"));
+        assertEquals(3_723_456, SrtTime.parse("01:02:03.456"));
+        assertEquals(3_723_456, SrtTime.parse("  01:02:03,456\t"));
+        assertEquals(123 * 3_600_000L + 7, SrtTime.parse("123:00:00,007"));
+    }
+
+    @Test
+    void rejectsMalformedTimestamps() {
+        assertThrows(IllegalArgumentException.class, () -> SrtTime.parse("01:02:03"));
+        assertThrows(IllegalArgumentException.class, () -> SrtTime.parse("01-02-03,456"));
+        assertThrows(IllegalArgumentException.class, () -> SrtTime.parse("01:0a:03,456"));
+        assertThrows(IllegalArgumentException.class, () -> SrtTime.parse(""));
+    }
+
+    @Test
+    void parsesRangeWithAnyWhitespace() {
+        SubtitleBlock block = new SubtitleBlock();
+        assertTrue(SrtTime.parseRange("00:00:01,000-->00:00:02,500", block));
+        assertEquals(1_000, block.startMs);
+        assertEquals(2_500, block.endMs);
+
+        assertTrue(SrtTime.parseRange(" 00:00:03,000   -->  00:00:04,000 ", block));
+        assertEquals(3_000, block.startMs);
+        assertEquals(4_000, block.endMs);
+    }
+
+    @Test
+    void rejectsMalformedRangeWithoutTouchingTarget() {
+        SubtitleBlock block = new SubtitleBlock(1, 10, 20, "text");
+        assertFalse(SrtTime.parseRange("00:00:01,000 -> 00:00:02,000", block));
+        assertFalse(SrtTime.parseRange("00:00:01,000 --> later", block));
+        assertFalse(SrtTime.parseRange("字幕文本", block));
+        assertEquals(10, block.startMs);
+        assertEquals(20, block.endMs);
+
+        assertTrue(SrtTime.parseRange("00:00:01,000 --> 00:00:02,000", null));
+    }
+
+    @Test
+    void roundTripsFormattedRange() {
+        SubtitleBlock block = new SubtitleBlock();
+        assertTrue(SrtTime.parseRange(SrtTime.formatRange(86_399_999, 360_000_001), block));
+        assertEquals(86_399_999, block.startMs);
+        assertEquals(360_000_001, block.endMs);
+    }
+}
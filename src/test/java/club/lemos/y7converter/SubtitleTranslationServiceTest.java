@@ -0,0 +1,56 @@
+package club.lemos.y7converter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SubtitleTranslationServiceTest {
+
+    private static final List<SubtitleBlock> ORIGINAL = List.of(
+            new SubtitleBlock(11, 0, 1000, "Hello"),
+            new SubtitleBlock(12, 1000, 2000, "World"),
+            new SubtitleBlock(13, 2000, 3000, "Bye"));
+
+    @Test
+    void mapsNumberedLinesByIndex() {
+        TranslatedBatch batch = SubtitleTranslationService.parseTranslatedContent(ORIGINAL,
+                "[2] 世界\n\n[1] 你好\n[3]再见\n");
+
+        assertTrue(batch.isComplete());
+        List<SubtitleBlock> blocks = batch.getBlocks();
+        assertEquals(3, blocks.size());
+        assertEquals("你好", blocks.get(0).text);
+        assertEquals(11, blocks.get(0).number);
+        assertEquals("世界", blocks.get(1).text);
+        assertEquals(1000, blocks.get(1).startMs);
+        assertEquals(2000, blocks.get(1).endMs);
+        assertEquals("再见", blocks.get(2).text);
+    }
+
+    @Test
+    void marksMissingLinesIncomplete() {
+        TranslatedBatch batch = SubtitleTranslationService.parseTranslatedContent(ORIGINAL, "[1] 你好\n[3] 再见");
+
+        assertFalse(batch.isComplete());
+    }
+
+    @Test
+    void marksDuplicatedLinesIncomplete() {
+        TranslatedBatch batch = SubtitleTranslationService.parseTranslatedContent(ORIGINAL,
+                "[1] 你好\n[2] 世界\n[2] 世界二\n[3] 再见");
+
+        assertFalse(batch.isComplete());
+    }
+
+    @Test
+    void fallsBackToLineOrderWithoutNumbers() {
+        TranslatedBatch batch = SubtitleTranslationService.parseTranslatedContent(ORIGINAL, "你好\n世界\n再见");
+
+        assertFalse(batch.isComplete());
+        assertEquals(3, batch.getBlocks().size());
+        assertEquals("世界", batch.getBlocks().get(1).text);
+        assertEquals(12, batch.getBlocks().get(1).number);
+    }
+}
@@ -0,0 +1,56 @@
+package club.lemos.y7converter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeOffsetMapTest {
+
+    @Test
+    void returnsNullWithoutRemovableSilence() {
+        assertNull(TimeOffsetMap.fromSilences(10_000, List.of(), 300));
+        // 静音短于两端保留的时长，没有可去除的部分
+        assertNull(TimeOffsetMap.fromSilences(10_000, List.of(new SilenceDetector.Interval(4_000, 4_500)), 300));
+    }
+
+    @Test
+    void mapsTrimmedTimeBackToOriginal() {
+        // 去除 2300-7700 与末尾 9300-10000，保留 0-2300 和 7700-9300
+        TimeOffsetMap map = TimeOffsetMap.fromSilences(10_000, List.of(
+                new SilenceDetector.Interval(2_000, 8_000),
+                new SilenceDetector.Interval(9_000, 10_000)), 300);
+        assertNotNull(map);
+        assertEquals("[0-2300, 7700-9300]", map.getSegments().toString());
+
+        assertEquals(0, map.toOriginal(0));
+        assertEquals(1_500, map.toOriginal(1_500));
+        assertEquals(7_700, map.toOriginal(2_300));
+        assertEquals(8_700, map.toOriginal(3_300));
+        assertEquals(9_300, map.toOriginal(3_900));
+    }
+
+    @Test
+    void mapsLeadingSilenceWithoutPadding() {
+        TimeOffsetMap map = TimeOffsetMap.fromSilences(10_000,
+                List.of(new SilenceDetector.Interval(0, 3_000)), 300);
+        assertNotNull(map);
+        assertEquals("[2700-10000]", map.getSegments().toString());
+
+        assertEquals(2_700, map.toOriginal(0));
+        assertEquals(7_700, map.toOriginal(5_000));
+    }
+
+    @Test
+    void keepsOverrunPastLastSegment() {
+        TimeOffsetMap map = TimeOffsetMap.fromSilences(10_000,
+                List.of(new SilenceDetector.Interval(2_000, 8_000)), 0);
+        assertNotNull(map);
+
+        assertEquals(1_999, map.toOriginal(1_999));
+        assertEquals(8_000, map.toOriginal(2_000));
+        // 编码误差导致略超出最后一段末尾时按原偏移换算
+        assertEquals(10_050, map.toOriginal(4_050));
+    }
+}
@@ -0,0 +1,88 @@
+package club.lemos.y7converter;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TranslationJournalTest {
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    void resumesRecordedBatches() throws IOException {
+        File input = writeInput("resume.srt");
+
+        TranslationJournal journal = open(input, 10);
+        try {
+            assertEquals(0, journal.getCompletedBatchCount());
+            journal.record(0, List.of(new SubtitleBlock(1, 0, 1000, "你好")));
+            journal.record(2, List.of(new SubtitleBlock(21, 20_000, 21_000, "再见"),
+                    new SubtitleBlock(22, 21_000, 22_000, "多行\n译文")));
+        } finally {
+            journal.close();
+        }
+
+        // 模拟翻译失败后重试：重新打开同一任务的检查点
+        TranslationJournal resumed = open(input, 10);
+        try {
+            assertEquals(2, resumed.getCompletedBatchCount());
+            assertNull(resumed.getCompletedBatch(1));
+
+            List<SubtitleBlock> batch = resumed.getCompletedBatch(2);
+            assertEquals(2, batch.size());
+            assertEquals(22, batch.get(1).number);
+            assertEquals(21_000, batch.get(1).startMs);
+            assertEquals(22_000, batch.get(1).endMs);
+            assertEquals("多行\n译文", batch.get(1).text);
+            assertEquals("你好", resumed.getCompletedBatch(0).get(0).text);
+        } finally {
+            resumed.delete();
+        }
+
+        TranslationJournal fresh = open(input, 10);
+        try {
+            assertEquals(0, fresh.getCompletedBatchCount());
+        } finally {
+            fresh.delete();
+        }
+    }
+
+    @Test
+    void doesNotReuseJournalOfDifferentSettings() throws IOException {
+        File input = writeInput("settings.srt");
+
+        TranslationJournal journal = open(input, 10);
+        try {
+            journal.record(0, List.of(new SubtitleBlock(1, 0, 1000, "你好")));
+        } finally {
+            journal.close();
+        }
+
+        TranslationJournal otherBatchSize = open(input, 20);
+        try {
+            assertEquals(0, otherBatchSize.getCompletedBatchCount());
+        } finally {
+            otherBatchSize.delete();
+        }
+
+        open(input, 10).delete();
+    }
+
+    private File writeInput(String name) throws IOException {
+        File input = new File(tempDir, name);
+        Files.write(input.toPath(), "1\n00:00:00,000 --> 00:00:01,000\nhello\n".getBytes(StandardCharsets.UTF_8));
+        return input;
+    }
+
+    private static TranslationJournal open(File input, int batchSize) throws IOException {
+        return TranslationJournal.open(input, "English", "Chinese", "qwen-mt-plus", batchSize);
+    }
+}
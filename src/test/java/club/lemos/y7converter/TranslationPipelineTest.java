@@ -0,0 +1,286 @@
+package club.lemos.y7converter;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntPredicate;
+import java.util.function.IntToLongFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 翻译流水线对接本地模拟的翻译API（带人为延迟）：按原顺序合并、在途批次上限、检查点复用、取消与并发加速
+ */
+class TranslationPipelineTest {
+
+    private static final int CUES = 40;
+    private static final int BATCH_SIZE = 5;
+    private static final int BATCHES = CUES / BATCH_SIZE;
+
+    @TempDir
+    File tempDir;
+
+    private final StubGeneration stub = new StubGeneration();
+
+    @BeforeEach
+    void startStub() throws IOException {
+        stub.start();
+    }
+
+    @AfterEach
+    void stopStub() {
+        stub.stop();
+    }
+
+    @Test
+    void writesBatchesInCueOrderWithinInFlightLimit() throws Exception {
+        // 越早的批次越慢，后提交的批次先完成
+        stub.latencyMs = firstCue -> 50 + (CUES - firstCue) * 5L;
+
+        File output = new File(tempDir, "parallel.srt");
+        assertEquals(CUES, translate(output, null, 4));
+
+        assertTranslatedInOrder(output);
+        assertEquals(BATCHES, stub.requests.get());
+        assertEquals(4, stub.maxActive.get());
+    }
+
+    @Test
+    void translatesFasterThanOneBatchAtATime() throws Exception {
+        stub.latencyMs = firstCue -> 150;
+
+        long serialStart = System.nanoTime();
+        translate(new File(tempDir, "serial.srt"), null, 1);
+        long serialMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - serialStart);
+        assertEquals(1, stub.maxActive.get());
+
+        long parallelStart = System.nanoTime();
+        File output = new File(tempDir, "parallel.srt");
+        translate(output, null, 4);
+        long parallelMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - parallelStart);
+
+        assertTranslatedInOrder(output);
+        // 8 个批次依次翻译约 1200 毫秒，同时 4 个约 300 毫秒
+        assertTrue(parallelMs * 2 < serialMs, "serial " + serialMs + " ms, parallel " + parallelMs + " ms");
+    }
+
+    @Test
+    void resumesFromJournalWithoutResendingCompletedBatches() throws Exception {
+        File input = new File(tempDir, "input.srt");
+        Files.write(input.toPath(), "journal key".getBytes(StandardCharsets.UTF_8));
+        stub.latencyMs = firstCue -> 20;
+        // 第4批（第16~20条）失败，之前的3批已写入检查点
+        stub.failing = firstCue -> firstCue == 16;
+
+        try (TranslationJournal journal = open(input)) {
+            Exception error = assertThrows(Exception.class, () -> translate(new File(tempDir, "failed.srt"), journal, 1));
+            assertTrue(error.getMessage().contains("调用翻译API失败"), error.getMessage());
+        }
+        assertEquals(4, stub.requests.get());
+
+        stub.failing = firstCue -> false;
+        stub.requestedFirstCues.clear();
+        File output = new File(tempDir, "resumed.srt");
+        TranslationJournal journal = open(input);
+        try (journal;
+             SrtWriter writer = new SrtWriter(output);
+             TranslationPipeline pipeline = new TranslationPipeline(this::translateBatch, writer, journal, BATCH_SIZE, 4)) {
+            assertEquals(3, journal.getCompletedBatchCount());
+            for (int i = 1; i <= CUES; i++) {
+                pipeline.accept(cue(i));
+            }
+            assertEquals(CUES, pipeline.finish());
+            assertEquals(3, pipeline.getResumedBatches());
+        } finally {
+            journal.delete();
+        }
+
+        assertTranslatedInOrder(output);
+        List<Integer> resent = new ArrayList<>(stub.requestedFirstCues);
+        resent.sort(null);
+        assertEquals(List.of(16, 21, 26, 31, 36), resent);
+    }
+
+    @Test
+    void stopsSendingBatchesWhenInterrupted() throws Exception {
+        long latencyMs = 2000;
+        stub.latencyMs = firstCue -> latencyMs;
+        File output = new File(tempDir, "cancelled.srt");
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        Thread translation = new Thread(() -> {
+            try {
+                translate(output, null, 2);
+            } catch (Exception e) {
+                failure.set(e);
+            }
+        });
+        translation.start();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (stub.requests.get() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(2, stub.requests.get());
+
+        // 在途批次已满，送入第3批时等待最早的批次；中断后立即结束，不等待模拟服务返回
+        long interruptedAt = System.nanoTime();
+        translation.interrupt();
+        translation.join(TimeUnit.SECONDS.toMillis(10));
+        assertFalse(translation.isAlive());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - interruptedAt) < latencyMs / 2);
+        assertTrue(failure.get().getMessage().contains("翻译过程被中断"), failure.get().getMessage());
+
+        // 在途请求返回后也不再提交新批次，未完成的译文不会写出
+        Thread.sleep(latencyMs + 500);
+        assertEquals(2, stub.requests.get());
+        assertEquals(0, output.length());
+    }
+
+    private int translate(File output, TranslationJournal journal, int concurrency) throws Exception {
+        try (SrtWriter writer = new SrtWriter(output);
+             TranslationPipeline pipeline = new TranslationPipeline(this::translateBatch, writer, journal,
+                     BATCH_SIZE, concurrency)) {
+            for (int i = 1; i <= CUES; i++) {
+                pipeline.accept(cue(i));
+            }
+            return pipeline.finish();
+        }
+    }
+
+    private TranslatedBatch translateBatch(List<SubtitleBlock> batch) throws Exception {
+        return SubtitleTranslationService.translateBatch(batch, "test-key", stub.baseUrl(), "Japanese", "Chinese");
+    }
+
+    private static TranslationJournal open(File input) throws IOException {
+        return TranslationJournal.open(input, "Japanese", "Chinese", "qwen-mt-plus", BATCH_SIZE);
+    }
+
+    private static SubtitleBlock cue(int number) {
+        return new SubtitleBlock(number, number * 1000L, number * 1000L + 800, "line " + number);
+    }
+
+    private static void assertTranslatedInOrder(File output) throws IOException {
+        List<SubtitleBlock> blocks = new ArrayList<>();
+        try (SrtReader reader = new SrtReader(output)) {
+            reader.forEachRemaining(blocks::add);
+        }
+        assertEquals(CUES, blocks.size());
+        for (int i = 0; i < CUES; i++) {
+            SubtitleBlock block = blocks.get(i);
+            assertEquals(i + 1, block.number);
+            assertEquals((i + 1) * 1000L, block.startMs);
+            assertEquals("译 line " + (i + 1), block.text);
+        }
+    }
+
+    /**
+     * 模拟的翻译API：按批次第一条字幕的序号决定延迟与是否失败，译文为原文加上"译"前缀
+     */
+    private static class StubGeneration {
+        private static final Pattern LINE = Pattern.compile("^\\[(\\d+)\\] line (\\d+)$");
+        private static final Gson GSON = new Gson();
+
+        final AtomicInteger requests = new AtomicInteger();
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicInteger maxActive = new AtomicInteger();
+        final List<Integer> requestedFirstCues = new CopyOnWriteArrayList<>();
+        volatile IntToLongFunction latencyMs = firstCue -> 0;
+        volatile IntPredicate failing = firstCue -> false;
+        private HttpServer server;
+        private ExecutorService executor;
+
+        void start() throws IOException {
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            executor = Executors.newCachedThreadPool(r -> {
+                Thread thread = new Thread(r, "stub-generation");
+                thread.setDaemon(true);
+                return thread;
+            });
+            server.setExecutor(executor);
+            server.createContext("/", this::handle);
+            server.start();
+        }
+
+        void stop() {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+
+        String baseUrl() {
+            return "http://127.0.0.1:" + server.getAddress().getPort() + "/api/v1";
+        }
+
+        private void handle(HttpExchange exchange) throws IOException {
+            try (exchange) {
+                JsonObject request = GSON.fromJson(new String(exchange.getRequestBody().readAllBytes(),
+                        StandardCharsets.UTF_8), JsonObject.class);
+                String content = request.getAsJsonObject("input").getAsJsonArray("messages")
+                        .get(0).getAsJsonObject().get("content").getAsString();
+
+                StringBuilder translated = new StringBuilder();
+                int firstCue = -1;
+                for (String line : content.split("\n")) {
+                    Matcher matcher = LINE.matcher(line);
+                    assertTrue(matcher.matches(), line);
+                    if (firstCue < 0) {
+                        firstCue = Integer.parseInt(matcher.group(2));
+                    }
+                    translated.append('[').append(matcher.group(1)).append("] 译 line ").append(matcher.group(2)).append('\n');
+                }
+                requests.incrementAndGet();
+                requestedFirstCues.add(firstCue);
+
+                maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(latencyMs.applyAsLong(firstCue));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } finally {
+                    active.decrementAndGet();
+                }
+
+                if (failing.test(firstCue)) {
+                    send(exchange, 500, "{\"code\":\"InternalError\",\"message\":\"模拟服务错误\",\"request_id\":\"stub\"}");
+                    return;
+                }
+                JsonObject message = new JsonObject();
+                message.addProperty("role", "assistant");
+                message.addProperty("content", translated.toString().trim());
+                send(exchange, 200, "{\"request_id\":\"stub\",\"output\":{\"choices\":[{\"finish_reason\":\"stop\","
+                        + "\"message\":" + GSON.toJson(message) + "}]},"
+                        + "\"usage\":{\"input_tokens\":10,\"output_tokens\":10,\"total_tokens\":20}}");
+            }
+        }
+
+        private static void send(HttpExchange exchange, int status, String body) throws IOException {
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(bytes);
+            }
+        }
+    }
+}